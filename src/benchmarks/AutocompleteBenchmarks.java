@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import data_structures.ArrayList;
+import data_structures.PrefixTrie;
+import interfaces.List;
+import main.Book;
+
+/**
+ * Autocompletion of titles with a PrefixTrie against a scan of every title, at 10^5 and 10^6 books
+ * generated by DataGenerator (seed 1). The heap and the number of nodes of the trie are printed before
+ * its benchmarks.
+ *
+ * Usage: java -Xms3g -Xmx3g -cp bin benchmarks.AutocompleteBenchmarks [BenchmarkRunner options]
+ *
+ *  - complete: the 10 titles with the most copies that start with the prefix, for a short prefix
+ *    that matches many titles and a long one that matches a few.
+ */
+public class AutocompleteBenchmarks {
+
+	private static final String[] PREFIXES = { "the s", "the silent garden" };
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(args, "AutocompleteBenchmarks.json");
+		DataGenerator generator = new DataGenerator(1, 0.3);
+		for(int books: runner.sizes(100_000, 1_000_000)) {
+			List<Book> rows = new ArrayList<>(books);
+			for(int id = 1; id <= books; id++)
+				rows.add(generator.book(id, books));
+
+			long before = IntMapFootprint.usedHeap();
+			PrefixTrie trie = new PrefixTrie();
+			for(Book book: rows)
+				trie.add(book.getTitle());
+			long bytes = IntMapFootprint.usedHeap() - before;
+			System.out.println("Books:\t" + books + "\ttitles: " + trie.size() + "\tnodes: " + trie.nodeCount()
+					+ "\ttrie: " + bytes / 1024 + " KB");
+
+			String size = String.valueOf(books);
+			for(String prefix: PREFIXES) {
+				runner.run("AutocompleteBenchmarks.complete", BenchmarkRunner.params("method", "scan", "prefix", prefix, "books", size), () -> {
+					return scan(rows, prefix, 10).size();
+				});
+				runner.run("AutocompleteBenchmarks.complete", BenchmarkRunner.params("method", "trie", "prefix", prefix, "books", size), () -> {
+					return trie.complete(prefix, 10).size();
+				});
+			}
+		}
+		runner.writeJson();
+	}
+
+	/**
+	 * What autocompletion costs without the trie: count the copies of every matching title, then pick
+	 * the n with the most copies.
+	 */
+	private static List<String> scan(List<Book> rows, String prefix, int n) {
+		Map<String, Integer> counts = new HashMap<>();
+		for(Book book: rows) {
+			String title = book.getTitle();
+			if(title.regionMatches(true, 0, prefix, 0, prefix.length()))
+				counts.merge(title.toLowerCase(), 1, Integer::sum);
+		}
+		List<String> result = new ArrayList<>(n);
+		while(result.size() < n && !counts.isEmpty()) {
+			Map.Entry<String, Integer> best = null;
+			for(Map.Entry<String, Integer> entry: counts.entrySet()) {
+				if(best == null || entry.getValue() > best.getValue()
+						|| (entry.getValue().equals(best.getValue()) && entry.getKey().compareTo(best.getKey()) < 0))
+					best = entry;
+			}
+			result.add(best.getKey());
+			counts.remove(best.getKey());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,268 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import data_structures.ArrayList;
+import interfaces.List;
+
+/**
+ * A small average time benchmark harness, in the spirit of JMH but without its annotation processor
+ * so it runs from the plain bin/ classpath like the rest of the project.
+ *
+ * Every benchmark is an Operation that is invoked over and over. Warmup iterations let the JIT
+ * compile it, then each measurement iteration runs it for about --time milliseconds and records the
+ * average nanoseconds per invocation. The score is the mean of the measurement iterations and the
+ * error is the half width of its 99.9% confidence interval, like JMH's avgt mode.
+ *
+ * Results are printed as they finish and written as a JSON array using the field names of JMH's
+ * JSON output (benchmark, mode, params, primaryMetric...), so the same trend tracking tools can
+ * read them.
+ *
+ * Common options:
+ *  --warmup N       warmup iterations (default 3)
+ *  --iterations N   measurement iterations (default 5)
+ *  --time MS        milliseconds per iteration (default 200)
+ *  --sizes A,B,...  sizes to run instead of the defaults of the benchmark class
+ *  --filter TEXT    only run benchmarks whose name contains TEXT
+ *  --json PATH      where the results are written (default: the benchmark class name + ".json")
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * One invocation of the code being measured. It returns a value derived from its work so the JIT
+	 * can't remove the work as dead code.
+	 */
+	public interface Operation {
+		long run() throws Exception;
+	}
+
+	// t-distribution quantiles for a two sided 99.9% interval, by degrees of freedom (index 0 is unused)
+	private static final double[] T_999 = { Double.NaN, 636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78,
+			4.59, 4.44, 4.32, 4.22, 4.14, 4.07, 4.01, 3.97, 3.92, 3.88, 3.85 };
+	// Everything the operations return ends up here
+	private static volatile long sink;
+
+	private int warmupIterations = 3;
+	private int measurementIterations = 5;
+	private long iterationNanos = 200_000_000L;
+	private int[] sizes;
+	private String filter = "";
+	private String jsonPath;
+	private final List<Result> results = new ArrayList<>();
+
+	/**
+	 * Creates a runner configured from the command line.
+	 *
+	 * @param args Command line arguments, see the class comment.
+	 * @param defaultJsonPath Where the results go if --json isn't given.
+	 */
+	public BenchmarkRunner(String[] args, String defaultJsonPath) {
+		this.jsonPath = defaultJsonPath;
+		for(int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if(i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing value for " + option);
+			String value = args[++i];
+			switch(option) {
+			case "--warmup": this.warmupIterations = Integer.parseInt(value); break;
+			case "--iterations": this.measurementIterations = Integer.parseInt(value); break;
+			case "--time": this.iterationNanos = Long.parseLong(value) * 1_000_000L; break;
+			case "--filter": this.filter = value; break;
+			case "--json": this.jsonPath = value; break;
+			case "--sizes":
+				String[] parts = value.split(",");
+				this.sizes = new int[parts.length];
+				for(int j = 0; j < parts.length; j++)
+					this.sizes[j] = Integer.parseInt(parts[j].trim().replace("_", ""));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + option);
+			}
+		}
+		if(this.measurementIterations < 1)
+			throw new IllegalArgumentException("--iterations must be at least 1");
+	}
+
+	/**
+	 * Returns the sizes given with --sizes, or the defaults if there were none.
+	 */
+	public int[] sizes(int... defaults) {
+		return this.sizes != null ? this.sizes : defaults;
+	}
+
+	/**
+	 * Checks if a benchmark passes --filter. Use it to skip expensive setup.
+	 */
+	public boolean enabled(String benchmark) {
+		return benchmark.contains(this.filter);
+	}
+
+	/**
+	 * Measures an operation and records the result.
+	 *
+	 * @param benchmark Name of the benchmark, for example "ListBenchmarks.get".
+	 * @param params Parameters of this run, for example the implementation and size. Can be empty.
+	 * @param operation The code to measure.
+	 */
+	public void run(String benchmark, Map<String, String> params, Operation operation) throws Exception {
+		if(!enabled(benchmark))
+			return;
+		// Find a batch size that takes a good fraction of an iteration, so the clock is read rarely
+		long batch = 1;
+		while(true) {
+			long start = System.nanoTime();
+			runBatch(operation, batch);
+			long elapsed = System.nanoTime() - start;
+			if(elapsed >= this.iterationNanos / 20 || batch >= (1L << 40))
+				break;
+			batch *= 2;
+		}
+		for(int i = 0; i < this.warmupIterations; i++)
+			iteration(operation, batch);
+		double[] scores = new double[this.measurementIterations];
+		for(int i = 0; i < scores.length; i++)
+			scores[i] = iteration(operation, batch);
+
+		Result result = new Result(benchmark, params, scores);
+		this.results.add(result);
+		System.out.printf("%-40s %-40s %,16.1f +- %,.1f ns/op%n", benchmark, params, result.score, result.error);
+	}
+
+	/**
+	 * Writes every result recorded so far to the JSON file.
+	 */
+	public void writeJson() throws IOException {
+		try(BufferedWriter out = new BufferedWriter(new FileWriter(this.jsonPath, StandardCharsets.UTF_8))) {
+			out.write("[\n");
+			int written = 0;
+			for(Result result: this.results) {
+				if(written++ > 0)
+					out.write(",\n");
+				result.writeJson(out, this.warmupIterations, this.measurementIterations, this.iterationNanos);
+			}
+			out.write("\n]\n");
+		}
+		System.out.println("Results written to " + this.jsonPath);
+	}
+
+	/**
+	 * Runs whole batches until the iteration time is used up.
+	 * @return (double) average nanoseconds per invocation
+	 */
+	private double iteration(Operation operation, long batch) throws Exception {
+		long invocations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			runBatch(operation, batch);
+			invocations += batch;
+			elapsed = System.nanoTime() - start;
+		} while(elapsed < this.iterationNanos);
+		return elapsed / (double) invocations;
+	}
+
+	private static void runBatch(Operation operation, long batch) throws Exception {
+		long total = 0;
+		for(long i = 0; i < batch; i++)
+			total += operation.run();
+		sink += total;
+	}
+
+	/**
+	 * Shorthand for building the params of a run: params("size", "1000", "impl", "ArrayList").
+	 */
+	public static Map<String, String> params(String... keysAndValues) {
+		Map<String, String> params = new LinkedHashMap<>();
+		for(int i = 0; i + 1 < keysAndValues.length; i += 2)
+			params.put(keysAndValues[i], keysAndValues[i + 1]);
+		return params;
+	}
+
+	private static class Result {
+		final String benchmark;
+		final Map<String, String> params;
+		final double[] scores;
+		final double score;
+		final double error;
+
+		Result(String benchmark, Map<String, String> params, double[] scores) {
+			this.benchmark = benchmark;
+			this.params = params;
+			this.scores = scores;
+
+			double sum = 0;
+			for(double s: scores)
+				sum += s;
+			this.score = sum / scores.length;
+			if(scores.length < 2) {
+				this.error = Double.NaN;
+				return;
+			}
+			double squares = 0;
+			for(double s: scores)
+				squares += (s - this.score) * (s - this.score);
+			double deviation = Math.sqrt(squares / (scores.length - 1));
+			int degrees = scores.length - 1;
+			double t = degrees < T_999.length ? T_999[degrees] : 3.29;
+			this.error = t * deviation / Math.sqrt(scores.length);
+		}
+
+		void writeJson(BufferedWriter out, int warmup, int measurement, long iterationNanos) throws IOException {
+			out.write("  {\n");
+			out.write("    \"benchmark\": " + quote(this.benchmark) + ",\n");
+			out.write("    \"mode\": \"avgt\",\n");
+			out.write("    \"threads\": 1,\n");
+			out.write("    \"forks\": 1,\n");
+			out.write("    \"jvm\": " + quote(System.getProperty("java.home")) + ",\n");
+			out.write("    \"jdkVersion\": " + quote(System.getProperty("java.version")) + ",\n");
+			out.write("    \"warmupIterations\": " + warmup + ",\n");
+			out.write("    \"warmupTime\": \"" + iterationNanos / 1_000_000 + " ms\",\n");
+			out.write("    \"measurementIterations\": " + measurement + ",\n");
+			out.write("    \"measurementTime\": \"" + iterationNanos / 1_000_000 + " ms\",\n");
+			out.write("    \"params\": {");
+			int written = 0;
+			for(Map.Entry<String, String> param: this.params.entrySet()) {
+				if(written++ > 0)
+					out.write(", ");
+				out.write(quote(param.getKey()) + ": " + quote(param.getValue()));
+			}
+			out.write("},\n");
+			out.write("    \"primaryMetric\": {\n");
+			out.write("      \"score\": " + number(this.score) + ",\n");
+			out.write("      \"scoreError\": " + number(this.error) + ",\n");
+			out.write("      \"scoreConfidence\": [" + number(this.score - this.error) + ", "
+					+ number(this.score + this.error) + "],\n");
+			out.write("      \"scoreUnit\": \"ns/op\",\n");
+			out.write("      \"rawData\": [[");
+			for(int i = 0; i < this.scores.length; i++)
+				out.write((i > 0 ? ", " : "") + number(this.scores[i]));
+			out.write("]]\n");
+			out.write("    }\n");
+			out.write("  }");
+		}
+
+		private static String number(double value) {
+			// JSON has no NaN, JMH writes it as a string too
+			return Double.isNaN(value) ? "\"NaN\"" : Double.toString(value);
+		}
+
+		private static String quote(String s) {
+			StringBuilder quoted = new StringBuilder(s.length() + 2).append('"');
+			for(int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if(c == '"' || c == '\\')
+					quoted.append('\\').append(c);
+				else if(c < 0x20)
+					quoted.append(String.format("\\u%04x", (int) c));
+				else
+					quoted.append(c);
+			}
+			return quoted.append('"').toString();
+		}
+	}
+}
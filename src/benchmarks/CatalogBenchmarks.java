@@ -0,0 +1,149 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import main.BookQuery;
+import main.LibraryCatalog;
+
+/**
+ * Average time of the LibraryCatalog operations that run the most, on catalogs of 10^3 to 10^6 books
+ * written by DataGenerator (seed 1, one user for every 20 books).
+ *
+ * Usage: java -Xms4g -Xmx4g -cp bin benchmarks.CatalogBenchmarks [BenchmarkRunner options]
+ *
+ *  - construct:       load the catalog and user CSVs into a new LibraryCatalog
+ *  - checkOutBook:    check out a random book, then return it
+ *  - checkOutThreads: 1 to 8 threads each check out and return 10000 books of their own lock stripes.
+ *                     Every thread does the same work, so if check outs on different stripes don't wait
+ *                     for each other the time stays flat as threads are added (up to the number of cores).
+ *  - searchForBook:   find every Mystery book by scanning the catalog
+ *  - findByGenre:     find every Mystery book with the genre index
+ *  - bookCount:       count the copies of a random book's title with the title index
+ *  - keywordScan:     find the books whose title or author contains "secret" and "smith", the way it's
+ *                     done with searchForBook: toLowerCase() and contains() on every book
+ *  - searchAllKeywords / searchAnyKeywords: the same words with the keyword index (AND, and top 10 of OR).
+ *                     The index is built before measuring.
+ *  - queryScan:       find the Mystery books by one author that aren't checked out, with searchForBook
+ *  - search:          the same query as a BookQuery, which starts from the author's books in the index
+ *  - generateReport:  write the whole report to a Writer that discards it, so the disk isn't measured
+ *                     and report/report.txt is left alone
+ */
+public class CatalogBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(args, "CatalogBenchmarks.json");
+		DataGenerator generator = new DataGenerator(1, 0.3);
+		for(int books: runner.sizes(1_000, 10_000, 100_000, 1_000_000)) {
+			File catalogFile = File.createTempFile("catalog", ".csv");
+			File userFile = File.createTempFile("user", ".csv");
+			catalogFile.deleteOnExit();
+			userFile.deleteOnExit();
+			generator.writeCatalog(catalogFile, books);
+			generator.writeUsers(userFile, Math.max(1, books / 20), books);
+			run(runner, catalogFile.getPath(), userFile.getPath(), books);
+			catalogFile.delete();
+			userFile.delete();
+			IntMapFootprint.usedHeap();
+		}
+		runner.writeJson();
+	}
+
+	private static void run(BenchmarkRunner runner, String catalogPath, String userPath, int books) throws Exception {
+		String size = String.valueOf(books);
+		runner.run("CatalogBenchmarks.construct", BenchmarkRunner.params("books", size), () -> {
+			return new LibraryCatalog(catalogPath, userPath).getBookCatalog().size();
+		});
+
+		LibraryCatalog catalog = new LibraryCatalog(catalogPath, userPath);
+		Random random = new Random(42);
+		runner.run("CatalogBenchmarks.checkOutBook", BenchmarkRunner.params("books", size), () -> {
+			int id = 1 + random.nextInt(books);
+			boolean checkedOut = catalog.checkOutBook(id);
+			catalog.returnBook(id);
+			return checkedOut ? 1 : 0;
+		});
+		for(int threads = 1; threads <= 8; threads *= 2)
+			checkOutThreads(runner, catalog, books, threads);
+		runner.run("CatalogBenchmarks.searchForBook", BenchmarkRunner.params("books", size), () -> {
+			return catalog.searchForBook(book -> book.getGenre().equals("Mystery")).size();
+		});
+		runner.run("CatalogBenchmarks.findByGenre", BenchmarkRunner.params("books", size), () -> {
+			return catalog.findByGenre("Mystery").size();
+		});
+		String[] titles = new String[1024];
+		for(int i = 0; i < titles.length; i++)
+			titles[i] = catalog.getBookCatalog().get(random.nextInt(books)).getTitle();
+		int[] next = new int[1];
+		runner.run("CatalogBenchmarks.bookCount", BenchmarkRunner.params("books", size), () -> {
+			return catalog.bookCount(titles[next[0]++ & (titles.length - 1)]);
+		});
+		runner.run("CatalogBenchmarks.keywordScan", BenchmarkRunner.params("books", size), () -> {
+			return catalog.searchForBook(book -> {
+				String text = (book.getTitle() + " " + book.getAuthor()).toLowerCase();
+				return text.contains("secret") && text.contains("smith");
+			}).size();
+		});
+		catalog.searchAllKeywords("secret");
+		runner.run("CatalogBenchmarks.searchAllKeywords", BenchmarkRunner.params("books", size), () -> {
+			return catalog.searchAllKeywords("secret smith").size();
+		});
+		runner.run("CatalogBenchmarks.searchAnyKeywords", BenchmarkRunner.params("books", size), () -> {
+			return catalog.searchAnyKeywords("secret smith", 10).size();
+		});
+		String author = catalog.getBookCatalog().get(books / 2).getAuthor();
+		runner.run("CatalogBenchmarks.queryScan", BenchmarkRunner.params("books", size), () -> {
+			return catalog.searchForBook(book -> book.getGenre().equals("Mystery") && book.getAuthor().equals(author)
+					&& !book.isCheckedOut()).size();
+		});
+		BookQuery query = BookQuery.genre("Mystery").and(BookQuery.author(author)).and(BookQuery.checkedOut(false));
+		runner.run("CatalogBenchmarks.search", BenchmarkRunner.params("books", size), () -> {
+			return catalog.search(query).size();
+		});
+		runner.run("CatalogBenchmarks.generateReport", BenchmarkRunner.params("books", size), () -> {
+			catalog.writeReport(Writer.nullWriter());
+			return catalog.getStatistics().checkedOutCount();
+		});
+	}
+
+	private static void checkOutThreads(BenchmarkRunner runner, LibraryCatalog catalog, int books, int threads) throws Exception {
+		if(!runner.enabled("CatalogBenchmarks.checkOutThreads"))
+			return;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<>(threads);
+			for(int t = 0; t < threads; t++) {
+				// Thread t only uses ids that are 8 * t modulo 64, so no two threads share a stripe
+				int stripe = 8 * t;
+				tasks.add(() -> {
+					int checkedOut = 0;
+					Random random = new Random(stripe);
+					for(int i = 0; i < 10_000; i++) {
+						int id = (random.nextInt(books) & ~63) | stripe;
+						if(id == 0 || id > books)
+							continue;
+						if(catalog.checkOutBook(id))
+							checkedOut++;
+						catalog.returnBook(id);
+					}
+					return checkedOut;
+				});
+			}
+			runner.run("CatalogBenchmarks.checkOutThreads", BenchmarkRunner.params("books", String.valueOf(books), "threads", String.valueOf(threads)), () -> {
+				int checkedOut = 0;
+				for(Future<Integer> result: pool.invokeAll(tasks))
+					checkedOut += result.get();
+				return checkedOut;
+			});
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
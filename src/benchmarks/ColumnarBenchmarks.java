@@ -0,0 +1,91 @@
+package benchmarks;
+
+import data_structures.ArrayList;
+import interfaces.List;
+import main.Book;
+import main.ColumnarBookStore;
+
+/**
+ * Scans over a catalog stored as Book objects (ArrayList<Book>, like LibraryCatalog) and the same
+ * catalog in a ColumnarBookStore, at 10^6 and 10^7 books generated by DataGenerator (seed 1).
+ *
+ * Usage: java -Xms6g -Xmx6g -cp bin benchmarks.ColumnarBenchmarks [BenchmarkRunner options]
+ * Only one layout is in memory at a time. The heap each one needs is printed before its benchmarks.
+ *
+ *  - genreCount:      count the Mystery books
+ *  - checkedOutCount: count the checked out books
+ *  - totalFees:       add up the fees of every book
+ *  - searchByGenre:   collect the Mystery books
+ */
+public class ColumnarBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(args, "ColumnarBenchmarks.json");
+		DataGenerator generator = new DataGenerator(1, 0.3);
+		for(int books: runner.sizes(1_000_000, 10_000_000)) {
+			long before = IntMapFootprint.usedHeap();
+			List<Book> rows = new ArrayList<>(books);
+			for(int id = 1; id <= books; id++)
+				rows.add(generator.book(id, books));
+			System.out.println("Books:\t" + books + "\trows: " + (IntMapFootprint.usedHeap() - before) / (1024 * 1024) + " MB");
+			runRows(runner, rows, books);
+
+			ColumnarBookStore store = ColumnarBookStore.of(rows);
+			rows = null;
+			System.out.println("Books:\t" + books + "\tcolumns: " + (IntMapFootprint.usedHeap() - before) / (1024 * 1024) + " MB");
+			runColumns(runner, store, books);
+			store = null;
+		}
+		runner.writeJson();
+	}
+
+	private static void runRows(BenchmarkRunner runner, List<Book> rows, int books) throws Exception {
+		String size = String.valueOf(books);
+		runner.run("ColumnarBenchmarks.genreCount", BenchmarkRunner.params("layout", "rows", "books", size), () -> {
+			int count = 0;
+			for(Book book: rows) {
+				if(book.getGenre().equals("Mystery"))
+					count++;
+			}
+			return count;
+		});
+		runner.run("ColumnarBenchmarks.checkedOutCount", BenchmarkRunner.params("layout", "rows", "books", size), () -> {
+			int count = 0;
+			for(Book book: rows) {
+				if(book.isCheckedOut())
+					count++;
+			}
+			return count;
+		});
+		runner.run("ColumnarBenchmarks.totalFees", BenchmarkRunner.params("layout", "rows", "books", size), () -> {
+			float total = 0;
+			for(Book book: rows)
+				total += book.calculateFees();
+			return (long) total;
+		});
+		runner.run("ColumnarBenchmarks.searchByGenre", BenchmarkRunner.params("layout", "rows", "books", size), () -> {
+			List<Book> result = new ArrayList<>();
+			for(Book book: rows) {
+				if(book.getGenre().equals("Mystery"))
+					result.add(book);
+			}
+			return result.size();
+		});
+	}
+
+	private static void runColumns(BenchmarkRunner runner, ColumnarBookStore store, int books) throws Exception {
+		String size = String.valueOf(books);
+		runner.run("ColumnarBenchmarks.genreCount", BenchmarkRunner.params("layout", "columns", "books", size), () -> {
+			return store.genreCount("Mystery");
+		});
+		runner.run("ColumnarBenchmarks.checkedOutCount", BenchmarkRunner.params("layout", "columns", "books", size), () -> {
+			return store.checkedOutCount();
+		});
+		runner.run("ColumnarBenchmarks.totalFees", BenchmarkRunner.params("layout", "columns", "books", size), () -> {
+			return (long) store.totalFees();
+		});
+		runner.run("ColumnarBenchmarks.searchByGenre", BenchmarkRunner.params("layout", "columns", "books", size), () -> {
+			return store.searchByGenre("Mystery").size();
+		});
+	}
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import main.Book;
+import main.CsvReader;
+
+/**
+ * Measures how many catalog rows per second the old split() based loader and CsvReader can parse.
+ *
+ * Usage: java -cp bin benchmarks.CsvLoadBenchmark [rows] [rounds]
+ * The default is a synthetic catalog of 10,000,000 rows parsed 3 times with each loader.
+ * Books are built but not kept, so the heap doesn't limit the number of rows.
+ */
+public class CsvLoadBenchmark {
+
+	private static final String[] GENRES = { "Adventure", "Fiction", "Classics", "Mystery", "Science Fiction" };
+
+	public static void main(String[] args) throws IOException {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		File catalog = File.createTempFile("catalog", ".csv");
+		catalog.deleteOnExit();
+		writeCatalog(catalog, rows);
+		System.out.println("Catalog: " + rows + " rows, " + catalog.length() / (1024 * 1024) + " MB");
+
+		for(int round = 1; round <= rounds; round++) {
+			long start = System.nanoTime();
+			long checksum = loadWithSplit(catalog);
+			report("split()   round " + round, rows, System.nanoTime() - start, checksum);
+
+			start = System.nanoTime();
+			checksum = loadWithCsvReader(catalog);
+			report("CsvReader round " + round, rows, System.nanoTime() - start, checksum);
+		}
+	}
+
+	/**
+	 * The loop LibraryCatalog used before CsvReader: a regex split and a new formatter for every row.
+	 */
+	static long loadWithSplit(File catalog) throws IOException {
+		long checksum = 0;
+		BufferedReader reader = new BufferedReader(new FileReader(catalog));
+		String line = reader.readLine();
+		boolean header = true;
+		while(line != null) {
+			String[] bookInfo = line.split("\\s*,\\s*");
+			if(!header) {
+				int id = Integer.parseInt(bookInfo[0]);
+				LocalDate lastCheckOut = LocalDate.parse(bookInfo[4], DateTimeFormatter.ofPattern("yyyy-MM-d"));
+				boolean checkedOut = Boolean.parseBoolean(bookInfo[5]);
+				Book book = new Book(id, bookInfo[1], bookInfo[2], bookInfo[3], lastCheckOut, checkedOut);
+				checksum += book.getId() + book.getLastCheckOut().getDayOfMonth() + (book.isCheckedOut() ? 1 : 0);
+			}
+			header = false;
+			line = reader.readLine();
+		}
+		reader.close();
+		return checksum;
+	}
+
+	static long loadWithCsvReader(File catalog) throws IOException {
+		long checksum = 0;
+		try(CsvReader reader = new CsvReader(new FileReader(catalog))) {
+			reader.next();
+			while(reader.next()) {
+				Book book = new Book(reader.getInt(0), reader.getString(1), reader.getString(2), reader.getString(3),
+						reader.getDate(4), reader.getBoolean(5));
+				checksum += book.getId() + book.getLastCheckOut().getDayOfMonth() + (book.isCheckedOut() ? 1 : 0);
+			}
+		}
+		return checksum;
+	}
+
+	static void writeCatalog(File file, int rows) throws IOException {
+		try(BufferedWriter writer = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+			writer.write("ID,Title,Author,Genre,Last Checkout Date,Checked Out\n");
+			LocalDate base = LocalDate.of(2022, 1, 1);
+			for(int id = 1; id <= rows; id++) {
+				writer.write(id + ",Title number " + id + ",Author " + (id % 5000) + "," + GENRES[id % GENRES.length]
+						+ "," + base.plusDays(id % 600) + "," + (id % 2 == 0) + "\n");
+			}
+		}
+	}
+
+	private static void report(String name, int rows, long nanos, long checksum) {
+		double seconds = nanos / 1e9;
+		System.out.printf("%s: %.2f s, %,.0f rows/s (checksum %d)%n", name, seconds, rows / seconds, checksum);
+	}
+}
@@ -0,0 +1,351 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import main.Book;
+import main.LibraryCatalog;
+
+/**
+ * Writes synthetic catalog.csv and user.csv files (and optionally a catalog snapshot) of any size,
+ * for load testing LibraryCatalog.
+ *
+ * Usage: java -cp bin benchmarks.DataGenerator --books N [--users N] [--seed N] [--checked-out RATIO]
+ *        [--out DIR] [--snapshot]
+ * The defaults are one user for every 20 books, seed 1, 30% of the books checked out and the current
+ * directory. --snapshot also writes DIR/catalog.snapshot, which loads the whole catalog first, so it
+ * needs a heap big enough for it.
+ *
+ * The data tries to look like a real library:
+ *  - Genres follow fixed weights: a handful of popular genres hold most of the books.
+ *  - Authors and titles follow power laws: a few authors wrote many books and popular titles have
+ *    many copies, so bookCount() and author searches have real work to do.
+ *  - Checked out books were mostly checked out in the last 31 days, but about one in five is late,
+ *    with a long tail of very late books, so the fees in the report vary.
+ *  - Most users hold nothing, the rest hold a few checked out books each. No book is held by two users.
+ *
+ * Every value of a book is computed from a hash of the seed and the book id instead of a running
+ * random generator. The same seed always gives the same files, and the user pass can ask whether
+ * any book is checked out without keeping the catalog in memory, so the size is limited only by disk.
+ */
+public class DataGenerator {
+
+	// Fees are calculated against this date, see Book.calculateFees()
+	static final LocalDate TODAY = LocalDate.of(2023, 9, 15);
+	// Books can be kept this many days before they are late
+	static final int LOAN_DAYS = 31;
+	// Oldest last check out date we generate, in days before TODAY
+	static final int HISTORY_DAYS = 3 * 365;
+
+	static final String[] GENRES = { "Fiction", "Mystery", "Adventure", "Science Fiction", "Classics", "Fantasy",
+			"Romance", "Biography", "History", "Thriller", "Horror", "Poetry", "Self Help", "Travel", "Cooking" };
+	// Relative number of books of each genre, same order as GENRES
+	static final int[] GENRE_WEIGHTS = { 220, 150, 110, 90, 80, 75, 70, 45, 40, 40, 25, 15, 15, 10, 5 };
+
+	private static final String[] FIRST_NAMES = { "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael",
+			"Linda", "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah",
+			"Carlos", "Karen", "Daniel", "Lisa", "Matthew", "Nancy", "Anthony", "Betty", "Mark", "Sandra", "Luis", "Ashley",
+			"Steven", "Kimberly", "Andrew", "Emily", "Jose", "Donna", "Kevin", "Michelle", "Brian", "Carmen" };
+	private static final String[] LAST_NAMES = { "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+			"Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor",
+			"Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez",
+			"Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Cruz" };
+	private static final String[] ADJECTIVES = { "Secret", "Silent", "Lost", "Hidden", "Last", "Golden", "Broken",
+			"Distant", "Forgotten", "Crimson", "Endless", "Burning", "Frozen", "Wild", "Quiet", "Dark", "Bright", "Hollow",
+			"Ancient", "Little", "Great", "Final", "Restless", "Stolen", "Winter", "Summer", "Iron", "Glass", "Paper", "Velvet" };
+	private static final String[] NOUNS = { "Garden", "River", "Clock", "Island", "Kingdom", "Letter", "House", "Road",
+			"Mountain", "Ship", "Mirror", "Forest", "City", "Door", "Voice", "Storm", "Key", "Map", "Crown", "Shadow",
+			"Harbor", "Bridge", "Tower", "Song", "Promise", "Journey", "Station", "Valley", "Library", "Lantern" };
+
+	// Parameters of the power laws. Larger exponents mean more skew.
+	private static final double AUTHOR_EXPONENT = 0.8;
+	private static final double TITLE_EXPONENT = 0.6;
+
+	private final long seed;
+	private final double checkedOutRatio;
+	// GENRE_WEIGHTS as cumulative fractions of the total
+	private final double[] genreCumulative;
+	// "yyyy-MM-dd" of TODAY minus the index in days, computed once since there are few distinct dates
+	private final String[] dates;
+
+	/**
+	 * @param seed Same seed, same data.
+	 * @param checkedOutRatio Fraction of the books that are checked out, between 0 and 1.
+	 */
+	public DataGenerator(long seed, double checkedOutRatio) {
+		if(checkedOutRatio < 0 || checkedOutRatio > 1)
+			throw new IllegalArgumentException("The checked out ratio must be between 0 and 1");
+		this.seed = seed;
+		this.checkedOutRatio = checkedOutRatio;
+
+		int total = 0;
+		for(int weight: GENRE_WEIGHTS)
+			total += weight;
+		this.genreCumulative = new double[GENRE_WEIGHTS.length];
+		int sum = 0;
+		for(int i = 0; i < GENRE_WEIGHTS.length; i++) {
+			sum += GENRE_WEIGHTS[i];
+			this.genreCumulative[i] = sum / (double) total;
+		}
+
+		this.dates = new String[HISTORY_DAYS + 1];
+		for(int days = 0; days <= HISTORY_DAYS; days++)
+			this.dates[days] = TODAY.minusDays(days).toString();
+	}
+
+	public static void main(String[] args) throws IOException {
+		int books = -1;
+		int users = -1;
+		long seed = 1;
+		double checkedOutRatio = 0.3;
+		String out = ".";
+		boolean snapshot = false;
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "--books": books = Integer.parseInt(args[++i].replace("_", "")); break;
+			case "--users": users = Integer.parseInt(args[++i].replace("_", "")); break;
+			case "--seed": seed = Long.parseLong(args[++i]); break;
+			case "--checked-out": checkedOutRatio = Double.parseDouble(args[++i]); break;
+			case "--out": out = args[++i]; break;
+			case "--snapshot": snapshot = true; break;
+			default: throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		if(books < 1)
+			throw new IllegalArgumentException("--books is required and must be at least 1");
+		if(users < 0)
+			users = Math.max(1, books / 20);
+
+		File directory = new File(out);
+		directory.mkdirs();
+		File catalogFile = new File(directory, "catalog.csv");
+		File userFile = new File(directory, "user.csv");
+		DataGenerator generator = new DataGenerator(seed, checkedOutRatio);
+
+		long start = System.nanoTime();
+		generator.writeCatalog(catalogFile, books);
+		generator.writeUsers(userFile, users, books);
+		System.out.printf("Wrote %d books (%d MB) and %d users (%d MB) in %.1f s%n", books,
+				catalogFile.length() / (1024 * 1024), users, userFile.length() / (1024 * 1024),
+				(System.nanoTime() - start) / 1e9);
+
+		if(snapshot) {
+			File snapshotFile = new File(directory, "catalog.snapshot");
+			new LibraryCatalog(catalogFile.getPath(), userFile.getPath()).saveSnapshot(snapshotFile.getPath());
+			System.out.println("Wrote " + snapshotFile + " (" + snapshotFile.length() / (1024 * 1024) + " MB)");
+		}
+	}
+
+	/**
+	 * Writes a catalog CSV with books 1 to books, in the format of data/catalog.csv.
+	 *
+	 * @param file File to write, replaced if it exists.
+	 * @param books Number of books.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void writeCatalog(File file, int books) throws IOException {
+		try(BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+			writer.write("ID,Title,Author,Genre,Last Checkout Date,Checked Out\n");
+			// The pools grow with the catalog so the skew looks the same at every size
+			int authors = Math.max(10, books / 25);
+			int titles = Math.max(10, books / 3);
+			StringBuilder line = new StringBuilder(128);
+			for(int id = 1; id <= books; id++) {
+				line.setLength(0);
+				line.append(id).append(',');
+				appendTitle(line, powerLaw(uniform(id, 1), titles, TITLE_EXPONENT));
+				line.append(',');
+				appendName(line, powerLaw(uniform(id, 2), authors, AUTHOR_EXPONENT));
+				line.append(',').append(GENRES[genre(id)]);
+				line.append(',').append(this.dates[daysSinceCheckOut(id)]);
+				line.append(',').append(isCheckedOut(id)).append('\n');
+				writer.append(line);
+			}
+		}
+	}
+
+	/**
+	 * Writes a user CSV in the format of data/user.csv. Users hold books that are checked out in the
+	 * catalog written by writeCatalog() with the same seed, ratio and number of books.
+	 *
+	 * @param file File to write, replaced if it exists.
+	 * @param users Number of users.
+	 * @param books Number of books of the catalog.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void writeUsers(File file, int users, int books) throws IOException {
+		try(BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+			writer.write("ID,Full Name,Books\n");
+			// Users walk the books in a scrambled order and take the next checked out ones.
+			// The order is position * step mod books with step coprime to books, so no book is visited twice.
+			long step = coprimeStep(books);
+			long position = 0;
+			long visited = 0;
+			StringBuilder line = new StringBuilder(128);
+			for(int id = 1; id <= users; id++) {
+				line.setLength(0);
+				line.append(id).append(',');
+				// The name pool grows with the users so names repeat about as often at every size
+				appendName(line, (int) ((mix(id, 3) >>> 1) % Math.max(FIRST_NAMES.length * LAST_NAMES.length, users)));
+				line.append(',');
+
+				int holding = booksHeld(id);
+				if(holding > 0)
+					line.append('{');
+				int taken = 0;
+				while(taken < holding && visited < books) {
+					int bookID = (int) (position % books) + 1;
+					position += step;
+					visited++;
+					if(isCheckedOut(bookID)) {
+						if(taken++ > 0)
+							line.append(' ');
+						line.append(bookID);
+					}
+				}
+				if(holding > 0) {
+					if(taken == 0)
+						line.setLength(line.length() - 1);
+					else
+						line.append('}');
+				}
+				writer.append(line).append('\n');
+			}
+		}
+	}
+
+	/**
+	 * Builds the book with this id of the catalog writeCatalog() writes, without going through a file.
+	 * Like the CSV loader, every book gets its own title and author Strings.
+	 */
+	Book book(int id, int books) {
+		int authors = Math.max(10, books / 25);
+		int titles = Math.max(10, books / 3);
+		StringBuilder title = new StringBuilder(48);
+		appendTitle(title, powerLaw(uniform(id, 1), titles, TITLE_EXPONENT));
+		StringBuilder author = new StringBuilder(32);
+		appendName(author, powerLaw(uniform(id, 2), authors, AUTHOR_EXPONENT));
+		return new Book(id, title.toString(), author.toString(), GENRES[genre(id)],
+				TODAY.minusDays(daysSinceCheckOut(id)), isCheckedOut(id));
+	}
+
+	/**
+	 * Checks if the book with this id is checked out in the generated catalog.
+	 */
+	boolean isCheckedOut(int id) {
+		return uniform(id, 4) < this.checkedOutRatio;
+	}
+
+	/**
+	 * Returns the position in GENRES of the genre of the book with this id.
+	 */
+	int genre(int id) {
+		double u = uniform(id, 5);
+		for(int i = 0; i < this.genreCumulative.length - 1; i++) {
+			if(u < this.genreCumulative[i])
+				return i;
+		}
+		return this.genreCumulative.length - 1;
+	}
+
+	/**
+	 * Returns how many days before TODAY the book with this id was last checked out.
+	 */
+	int daysSinceCheckOut(int id) {
+		double u = uniform(id, 6);
+		if(!isCheckedOut(id)) {
+			// Returned books were last checked out any time in the history
+			return 1 + (int) (u * HISTORY_DAYS);
+		}
+		// 4 out of 5 checked out books are still within the loan
+		if(u < 0.8)
+			return (int) (u / 0.8 * LOAN_DAYS);
+		// The late ones are mostly a little late, a few are very late (exponential, mean 45 days)
+		double late = -45 * Math.log(1 - uniform(id, 7));
+		return (int) Math.min(HISTORY_DAYS, LOAN_DAYS + late);
+	}
+
+	/**
+	 * Number of books the user wants to hold: 60% of users hold none, the rest hold 1 to 8,
+	 * fewer being more common.
+	 */
+	private int booksHeld(int userID) {
+		double u = uniform(userID, 8);
+		if(u < 0.6)
+			return 0;
+		return 1 + Math.min(7, (int) (-1.5 * Math.log(1 - uniform(userID, 9))));
+	}
+
+	private void appendTitle(StringBuilder line, int index) {
+		line.append("The ").append(ADJECTIVES[index % ADJECTIVES.length]).append(' ')
+			.append(NOUNS[(index / ADJECTIVES.length) % NOUNS.length]);
+		// Once every combination is used, number them like the volumes of a series
+		int volume = index / (ADJECTIVES.length * NOUNS.length);
+		if(volume > 0)
+			line.append(" Volume ").append(volume + 1);
+	}
+
+	private static void appendName(StringBuilder line, int index) {
+		line.append(FIRST_NAMES[index % FIRST_NAMES.length]).append(' ')
+			.append(LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length]);
+		int generation = index / (FIRST_NAMES.length * LAST_NAMES.length);
+		if(generation > 0)
+			line.append(' ').append(generation + 1);
+	}
+
+	/**
+	 * Maps a uniform number in [0, 1) to an index in [0, n) that follows a power law with the given
+	 * exponent, so index 0 is the most common. This is the inverse of the continuous distribution,
+	 * which needs no table and is close enough to a discrete Zipf for test data.
+	 */
+	static int powerLaw(double u, int n, double exponent) {
+		double x;
+		if(exponent == 1)
+			x = Math.pow(n + 1, u);
+		else {
+			double a = 1 - exponent;
+			x = Math.pow(u * (Math.pow(n + 1, a) - 1) + 1, 1 / a);
+		}
+		return Math.min(n - 1, (int) x - 1);
+	}
+
+	/**
+	 * A uniform number in [0, 1) for one property (salt) of one row (id).
+	 */
+	private double uniform(long id, int salt) {
+		return (mix(id, salt) >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * SplitMix64 finalizer of the seed, id and salt: every bit of the input affects every bit of the output.
+	 */
+	private long mix(long id, int salt) {
+		long z = this.seed * 0x9E3779B97F4A7C15L + id * 0xBF58476D1CE4E5B9L + salt * 0x94D049BB133111EBL;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * A step close to books times the golden ratio that shares no factor with books.
+	 */
+	private static long coprimeStep(int books) {
+		long step = Math.max(1, (long) (books * 0.6180339887));
+		while(gcd(step, books) != 1)
+			step++;
+		return step;
+	}
+
+	private static long gcd(long a, long b) {
+		while(b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.HashMap;
+
+import data_structures.IntObjectHashMap;
+
+/**
+ * Compares how much heap IntObjectHashMap and java.util.HashMap<Integer, ...> need to index the same ids.
+ *
+ * Run it with a fixed heap so the numbers are stable, for example:
+ * java -Xms2g -Xmx2g -cp bin benchmarks.IntMapFootprint 1000000
+ */
+public class IntMapFootprint {
+
+	public static void main(String[] args) {
+		int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		// Every entry points to the same value so we only measure the map itself
+		Object value = new Object();
+
+		long before = usedHeap();
+		IntObjectHashMap<Object> intMap = new IntObjectHashMap<>();
+		for(int id = 1; id <= entries; id++)
+			intMap.put(id, value);
+		long intMapBytes = usedHeap() - before;
+
+		before = usedHeap();
+		HashMap<Integer, Object> boxedMap = new HashMap<>();
+		for(int id = 1; id <= entries; id++)
+			boxedMap.put(id, value);
+		long boxedMapBytes = usedHeap() - before;
+
+		System.out.println("Entries:\t\t" + entries);
+		System.out.println("IntObjectHashMap:\t" + intMapBytes / 1024 + " KB (" + intMapBytes / entries + " bytes/entry)");
+		System.out.println("java.util.HashMap:\t" + boxedMapBytes / 1024 + " KB (" + boxedMapBytes / entries + " bytes/entry)");
+		// Keep both maps alive until we are done measuring
+		if(intMap.size() != boxedMap.size())
+			throw new IllegalStateException();
+	}
+
+	/**
+	 * Returns the heap currently in use after asking the JVM to collect garbage a few times.
+	 * @return (long) bytes in use
+	 */
+	static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 4; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
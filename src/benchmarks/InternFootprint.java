@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.io.File;
+
+import main.Book;
+import main.LibraryCatalog;
+
+/**
+ * Shows how much heap the catalog saves by sharing title, author and genre Strings between books.
+ *
+ * A synthetic catalog (DataGenerator, seed 1) is loaded with LibraryCatalog, which interns the Strings.
+ * Then every book gets its own copy of them, the way the loader used to create a new String for each
+ * field, and the heap is measured again.
+ *
+ * Run it with a fixed heap so the numbers are stable, for example:
+ * java -Xms3g -Xmx3g -cp bin benchmarks.InternFootprint 1000000
+ */
+public class InternFootprint {
+
+	public static void main(String[] args) throws Exception {
+		int books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		File catalogFile = File.createTempFile("catalog", ".csv");
+		File userFile = File.createTempFile("user", ".csv");
+		catalogFile.deleteOnExit();
+		userFile.deleteOnExit();
+		DataGenerator generator = new DataGenerator(1, 0.3);
+		generator.writeCatalog(catalogFile, books);
+		generator.writeUsers(userFile, Math.max(1, books / 20), books);
+
+		long before = IntMapFootprint.usedHeap();
+		LibraryCatalog catalog = new LibraryCatalog(catalogFile.getPath(), userFile.getPath());
+		long interned = IntMapFootprint.usedHeap() - before;
+
+		for(Book book: catalog.getBookCatalog()) {
+			book.setTitle(new String(book.getTitle()));
+			book.setAuthor(new String(book.getAuthor()));
+			book.setGenre(new String(book.getGenre()));
+		}
+		long copied = IntMapFootprint.usedHeap() - before;
+
+		System.out.println("Books:\t\t\t" + books);
+		System.out.println("Shared Strings:\t\t" + interned / (1024 * 1024) + " MB (" + interned / books + " bytes/book)");
+		System.out.println("One String per field:\t" + copied / (1024 * 1024) + " MB (" + copied / books + " bytes/book)");
+		// Keep the catalog alive until we are done measuring
+		if(catalog.getBookCatalog().size() != books)
+			throw new IllegalStateException();
+		catalogFile.delete();
+		userFile.delete();
+	}
+}
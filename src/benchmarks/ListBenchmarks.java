@@ -0,0 +1,94 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import data_structures.ArrayList;
+import data_structures.DoublyLinkedList;
+import data_structures.SinglyLinkedList;
+import interfaces.List;
+
+/**
+ * Average time of the basic operations of every interfaces.List implementation, at 10^3 to 10^7 elements.
+ *
+ * Usage: java -Xms4g -Xmx4g -cp bin benchmarks.ListBenchmarks [BenchmarkRunner options]
+ * For a quick run: --sizes 1000,100000 --iterations 3 --time 100
+ *
+ * The list keeps the same size during a run, so the operations that change it are paired:
+ *  - add:      append an element, then remove the last element
+ *  - remove:   remove the element at a random position, then insert it back there
+ *  - get:      get a random position
+ *  - contains: look for a random element that is in the list
+ *  - iterate:  go through the whole list with its iterator (one op = the whole list)
+ *  - build:    append size elements to a new list (one op = the whole list). Appending is constant
+ *              time in every implementation, so this should grow linearly with the size.
+ */
+public class ListBenchmarks {
+
+	// Random positions and elements are taken from tables of this size, so picking one is cheap
+	private static final int RANDOM_TABLE_SIZE = 1 << 12;
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(args, "ListBenchmarks.json");
+		for(int size: runner.sizes(1_000, 10_000, 100_000, 1_000_000, 10_000_000)) {
+			run(runner, "ArrayList", ArrayList::new, size);
+			run(runner, "SinglyLinkedList", SinglyLinkedList::new, size);
+			run(runner, "DoublyLinkedList", DoublyLinkedList::new, size);
+			// Don't let one list's nodes slow down the next
+			IntMapFootprint.usedHeap();
+		}
+		runner.writeJson();
+	}
+
+	private static void run(BenchmarkRunner runner, String name, Supplier<List<Integer>> factory, int size) throws Exception {
+		runner.run("ListBenchmarks.build", BenchmarkRunner.params("impl", name, "size", String.valueOf(size)), () -> {
+			return fill(factory.get(), size).size();
+		});
+
+		List<Integer> list = fill(factory.get(), size);
+		Random random = new Random(42);
+		int[] positions = new int[RANDOM_TABLE_SIZE];
+		Integer[] elements = new Integer[RANDOM_TABLE_SIZE];
+		for(int i = 0; i < RANDOM_TABLE_SIZE; i++) {
+			positions[i] = random.nextInt(size);
+			elements[i] = list.get(random.nextInt(size));
+		}
+		// Index into the tables, advanced on every invocation
+		int[] next = new int[1];
+		Integer extra = Integer.valueOf(-1);
+
+		runner.run("ListBenchmarks.add", BenchmarkRunner.params("impl", name, "size", String.valueOf(size)), () -> {
+			list.add(extra);
+			list.remove(list.size() - 1);
+			return list.size();
+		});
+		runner.run("ListBenchmarks.remove", BenchmarkRunner.params("impl", name, "size", String.valueOf(size)), () -> {
+			int position = positions[next[0]++ & (RANDOM_TABLE_SIZE - 1)];
+			Integer element = list.get(position);
+			list.remove(position);
+			list.add(position, element);
+			return element;
+		});
+		runner.run("ListBenchmarks.get", BenchmarkRunner.params("impl", name, "size", String.valueOf(size)), () -> {
+			return list.get(positions[next[0]++ & (RANDOM_TABLE_SIZE - 1)]);
+		});
+		runner.run("ListBenchmarks.contains", BenchmarkRunner.params("impl", name, "size", String.valueOf(size)), () -> {
+			return list.contains(elements[next[0]++ & (RANDOM_TABLE_SIZE - 1)]) ? 1 : 0;
+		});
+		runner.run("ListBenchmarks.iterate", BenchmarkRunner.params("impl", name, "size", String.valueOf(size)), () -> {
+			long sum = 0;
+			for(Integer element: list)
+				sum += element;
+			return sum;
+		});
+	}
+
+	/**
+	 * Adds 0 to size - 1 to the list, in order.
+	 */
+	static List<Integer> fill(List<Integer> list, int size) {
+		for(int i = 0; i < size; i++)
+			list.add(i);
+		return list;
+	}
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.stream.StreamSupport;
+
+import interfaces.FilterFunction;
+import main.Book;
+import main.LibraryCatalog;
+
+/**
+ * searchForBook on one thread against searchForBook(filter, true) on the common fork-join pool, at
+ * catalog sizes around ParallelSearch.PARALLEL_THRESHOLD (8192), to find where running in parallel
+ * starts to pay off. The catalogs are written by DataGenerator (seed 1).
+ *
+ * Usage: java -Xms4g -Xmx4g -cp bin benchmarks.ParallelSearchBenchmarks [BenchmarkRunner options]
+ * The crossover depends on the number of cores, which is printed first. With one core parallel never wins.
+ *
+ * Two filters:
+ *  - cheap:     the genre is Mystery
+ *  - expensive: the lower cased title and author contain "secret"
+ * and three modes:
+ *  - sequential: searchForBook(filter)
+ *  - parallel:   searchForBook(filter, true), sequential below the threshold
+ *  - stream:     a parallel stream over the catalog's Spliterator with no threshold at all, which shows
+ *                how small catalogs do when they are always split
+ */
+public class ParallelSearchBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(args, "ParallelSearchBenchmarks.json");
+		System.out.println("Cores:\t" + Runtime.getRuntime().availableProcessors());
+		DataGenerator generator = new DataGenerator(1, 0.3);
+		for(int books: runner.sizes(1_000, 4_000, 16_000, 64_000, 256_000, 1_000_000)) {
+			File catalogFile = File.createTempFile("catalog", ".csv");
+			File userFile = File.createTempFile("user", ".csv");
+			catalogFile.deleteOnExit();
+			userFile.deleteOnExit();
+			generator.writeCatalog(catalogFile, books);
+			generator.writeUsers(userFile, Math.max(1, books / 20), books);
+			LibraryCatalog catalog = new LibraryCatalog(catalogFile.getPath(), userFile.getPath());
+			run(runner, catalog, "cheap", book -> book.getGenre().equals("Mystery"), books);
+			run(runner, catalog, "expensive", book -> (book.getTitle() + " " + book.getAuthor()).toLowerCase().contains("secret"), books);
+			catalogFile.delete();
+			userFile.delete();
+			catalog = null;
+			IntMapFootprint.usedHeap();
+		}
+		runner.writeJson();
+	}
+
+	private static void run(BenchmarkRunner runner, LibraryCatalog catalog, String name, FilterFunction<Book> filter, int books) throws Exception {
+		String size = String.valueOf(books);
+		runner.run("ParallelSearchBenchmarks.search", BenchmarkRunner.params("filter", name, "mode", "sequential", "books", size), () -> {
+			return catalog.searchForBook(filter).size();
+		});
+		runner.run("ParallelSearchBenchmarks.search", BenchmarkRunner.params("filter", name, "mode", "parallel", "books", size), () -> {
+			return catalog.searchForBook(filter, true).size();
+		});
+		runner.run("ParallelSearchBenchmarks.search", BenchmarkRunner.params("filter", name, "mode", "stream", "books", size), () -> {
+			return StreamSupport.stream(catalog.getBookCatalog().spliterator(), true).filter(filter::filter).count();
+		});
+	}
+}
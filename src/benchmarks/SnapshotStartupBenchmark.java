@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import main.LibraryCatalog;
+
+/**
+ * Compares a cold start from the CSV files with a warm start from a binary snapshot.
+ *
+ * Usage: java -Xms4g -Xmx4g -cp bin benchmarks.SnapshotStartupBenchmark [books] [rounds]
+ * A fixed heap keeps heap resizing out of the numbers.
+ * The default is 2,000,000 books and one user for every 20 books, each holding a few of them.
+ */
+public class SnapshotStartupBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int books = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		File catalog = File.createTempFile("catalog", ".csv");
+		File users = File.createTempFile("user", ".csv");
+		File snapshot = File.createTempFile("catalog", ".snapshot");
+		catalog.deleteOnExit();
+		users.deleteOnExit();
+		snapshot.deleteOnExit();
+		CsvLoadBenchmark.writeCatalog(catalog, books);
+		writeUsers(users, books);
+		new LibraryCatalog(catalog.getPath(), users.getPath()).saveSnapshot(snapshot.getPath());
+		System.out.println("Books: " + books + ", CSV: " + (catalog.length() + users.length()) / (1024 * 1024)
+				+ " MB, snapshot: " + snapshot.length() / (1024 * 1024) + " MB");
+
+		for(int round = 1; round <= rounds; round++) {
+			// Start each measurement from a clean heap so one catalog's garbage isn't billed to the other
+			IntMapFootprint.usedHeap();
+			long start = System.nanoTime();
+			int csvBooks = new LibraryCatalog(catalog.getPath(), users.getPath()).getBookCatalog().size();
+			long csvNanos = System.nanoTime() - start;
+
+			IntMapFootprint.usedHeap();
+			start = System.nanoTime();
+			int snapshotBooks = LibraryCatalog.loadSnapshot(snapshot.getPath()).getBookCatalog().size();
+			long snapshotNanos = System.nanoTime() - start;
+
+			if(csvBooks != snapshotBooks)
+				throw new IllegalStateException("Snapshot and CSV catalogs differ");
+			System.out.printf("Round %d: CSV %.2f s, snapshot %.2f s (%.1fx)%n", round, csvNanos / 1e9,
+					snapshotNanos / 1e9, csvNanos / (double) snapshotNanos);
+		}
+	}
+
+	static void writeUsers(File file, int books) throws IOException {
+		try(BufferedWriter writer = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+			writer.write("ID,Full Name,Books\n");
+			for(int id = 1; id * 20 <= books; id++) {
+				int first = (id - 1) * 20 + 2;
+				writer.write(id + ",User " + id + ",{" + first + " " + (first + 2) + " " + (first + 4) + "}\n");
+			}
+		}
+	}
+}
@@ -1,9 +1,14 @@
 package data_structures;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import interfaces.FilterFunction;
 import interfaces.List;
 
 
@@ -17,6 +22,10 @@ import interfaces.List;
 @SuppressWarnings("unchecked")
 public class ArrayList<E> implements List<E>{
 	
+	/* Largest array we ask for. Some VMs reserve a few words of the array for its header, 
+	   so asking for Integer.MAX_VALUE elements fails even with enough memory. */
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+	
 	// Private fields needed by this list
 	// Will hold the data
 	private E[] elements;
@@ -24,6 +33,16 @@ public class ArrayList<E> implements List<E>{
 	   NOTE: size != elements.length, size is how many occupied spaces, 
 	   length is how many elements fit in the array */
 	private int size;
+	/* Number of structural changes (adds and removes) so far. Iterators compare it with the value
+	   they expect to notice when the list was changed behind their back. */
+	private int modCount;
+	/* Elements removed through an iterator leave a gap in the array: positions gapStart to 
+	   gapStart + gapLength - 1 are empty and everything after them belongs gapLength positions earlier.
+	   The iterator moves the gap along as it goes, so removing while iterating never shifts the whole tail.
+	   The gap goes away when that iterator reaches the end. If it stops earlier, the next change closes 
+	   the gap first; methods that only read skip over it, so they never write to the list. */
+	private int gapStart;
+	private int gapLength;
 	
 	/**
 	 * Default constructor. 
@@ -36,9 +55,12 @@ public class ArrayList<E> implements List<E>{
 
 	/**
 	 * Constructs an ArrayList with an initial capacity given by the parameter initialCapacity.
-	 * @param initialCapacity - the initial capacity (length of array) we want the ArrayList to start with.
+	 * @param initialCapacity - the initial capacity (length of array) we want the ArrayList to start with. Can be 0.
+	 * @throws IllegalArgumentException if initialCapacity is negative
 	 */
 	public ArrayList(int initialCapacity) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
 		this.elements = (E[]) new Object[initialCapacity];
 		this.size = 0;
 	}
@@ -67,9 +89,11 @@ public class ArrayList<E> implements List<E>{
 	 */
 	@Override
 	public void add(E obj) {
+		closeGap();
+		this.modCount++;
 		// Check if array is full, expands if it is
 		if(this.size == this.elements.length)
-			reallocate();
+			grow(this.size + 1);
 		// Add value at end and increase size
 		this.elements[size++] = obj;
 //		this.size++;
@@ -87,31 +111,82 @@ public class ArrayList<E> implements List<E>{
 		// Check bounds
 		if(index < 0 || index > size)
 			throw new IndexOutOfBoundsException();
+		closeGap();
+		this.modCount++;
 		// If array full, expands if it is
 		if(this.size == this.elements.length)
-			reallocate();
-		// Shift values to the right
-		for(int i = size; i > index; i--)
-			this.elements[i] = this.elements[i-1];
+			grow(this.size + 1);
+		// Shift values to the right in one block copy
+		System.arraycopy(this.elements, index, this.elements, index + 1, this.size - index);
 		// Place new value
 		this.elements[index] = obj;
 		// Increase size
 		this.size++;
 	}
 	/**
-	 * Expands the size of elements. 
-	 * It create an new array twice the length of the current elements array and places all the existing 
-	 * elements in it. This new array then replaces the old elements array.
+	 * Expands the size of elements so at least minCapacity elements fit.
+	 * The new array is usually twice the length of the current one, so n adds cost O(n) copies in total.
+	 * It's never smaller than minCapacity and never larger than MAX_CAPACITY.
+	 * 
+	 * @param minCapacity - (int) number of elements that must fit
+	 * @throws OutOfMemoryError if minCapacity is more than an array can hold
 	 */
-	private void reallocate() {
-		E[] temp = (E[]) new Object[this.size*2];
-		
-		for(int i=0; i<this.elements.length; i++) {
-			temp[i] = this.elements[i];
-			elements[i] = null;
+	private void grow(int minCapacity) {
+		// minCapacity < 0 means size + n overflowed
+		if(minCapacity < 0 || minCapacity > MAX_CAPACITY)
+			throw new OutOfMemoryError("ArrayList can't hold " + Integer.toUnsignedString(minCapacity) + " elements");
+		// Doubling in long so it can't overflow, then capped
+		long doubled = Math.max(2L * this.elements.length, 15);
+		int newCapacity = (int) Math.min(Math.max(doubled, minCapacity), MAX_CAPACITY);
+		this.elements = Arrays.copyOf(this.elements, newCapacity);
+	}
+
+	/**
+	 * Makes sure the ArrayList can hold minCapacity elements without growing again.
+	 * Calling it before adding many elements replaces several reallocations with one.
+	 * 
+	 * @param minCapacity - (int) number of elements we expect to hold
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if(minCapacity > this.elements.length)
+			grow(minCapacity);
+	}
+
+	/**
+	 * Shrinks the internal array to the current size, to give back the memory of the empty spaces.
+	 */
+	public void trimToSize() {
+		closeGap();
+		if(this.elements.length > this.size)
+			this.elements = Arrays.copyOf(this.elements, this.size);
+	}
+
+	/**
+	 * Adds every element of other to the end of this List, in order.
+	 * The array grows at most once, and another ArrayList is copied in a single block.
+	 * 
+	 * @param other - (List<E>) the elements to add. Can be this same List.
+	 */
+	public void addAll(List<E> other) {
+		closeGap();
+		int count = other.size();
+		if(count == 0)
+			return;
+		ensureCapacity(this.size + count);
+		if(other instanceof ArrayList) {
+			// Copy around the source's gap rather than closing it, it's only read here
+			ArrayList<E> source = (ArrayList<E>) other;
+			int before = Math.min(source.gapStart, count);
+			System.arraycopy(source.elements, 0, this.elements, this.size, before);
+			System.arraycopy(source.elements, before + source.gapLength, this.elements, this.size + before, count - before);
 		}
-		this.elements = temp;
-		
+		else {
+			int position = this.size;
+			for(E obj: other)
+				this.elements[position++] = obj;
+		}
+		this.size += count;
+		this.modCount++;
 	}
 
 	/**
@@ -126,7 +201,30 @@ public class ArrayList<E> implements List<E>{
 		if(index < 0 || index >= size)
 			throw new IndexOutOfBoundsException();
 		// Return value
-		return this.elements[index];
+		return element(index);
+	}
+
+	/**
+	 * Returns the element at position index, skipping the gap if there is one.
+	 */
+	private E element(int index) {
+		return this.elements[index < this.gapStart ? index : index + this.gapLength];
+	}
+
+	/**
+	 * Moves the elements after the gap back to close it, so positions in the array match positions in the list again.
+	 */
+	private void closeGap() {
+		if(this.gapLength == 0)
+			return;
+		int after = this.size - this.gapStart;
+		if(after > 0) {
+			System.arraycopy(this.elements, this.gapStart + this.gapLength, this.elements, this.gapStart, after);
+			// The old copies at the end must go so GC can collect them
+			for(int i = this.size; i < this.size + this.gapLength; i++)
+				this.elements[i] = null;
+		}
+		this.gapLength = 0;
 	}
 
 	/**
@@ -142,10 +240,12 @@ public class ArrayList<E> implements List<E>{
 		// Check bounds
 		if(index < 0 || index >= size)
 			throw new IndexOutOfBoundsException();
+		// Skip the gap, if there is one
+		int position = index < this.gapStart ? index : index + this.gapLength;
 		// Get value being replaced
-		E oldValue = this.elements[index];
+		E oldValue = this.elements[position];
 		// Update value
-		this.elements[index] = obj;
+		this.elements[position] = obj;
 		// Return old value
 		return oldValue;
 	}
@@ -164,9 +264,10 @@ public class ArrayList<E> implements List<E>{
 		// Check bounds
 		if(index < 0 || index >= size)
 			throw new IndexOutOfBoundsException();
-		// Shift values to the left
-		for(int i = index; i < this.size-1; i++)
-			this.elements[i] = this.elements[i+1];
+		closeGap();
+		this.modCount++;
+		// Shift values to the left in one block copy
+		System.arraycopy(this.elements, index + 1, this.elements, index, this.size - index - 1);
 		// Null the last position
 		this.elements[this.size-1]= null;
 		// Decrease size
@@ -183,6 +284,7 @@ public class ArrayList<E> implements List<E>{
 	 * @return (boolean) True if object is removed, false if it's not present in the list
 	 */
 	public boolean remove(E obj) {
+		closeGap();
 		// Find the FIRST instance of the obj in the array to remove it
 		for(int i=0; i<this.size ; i++) {
 			if(this.elements[i].equals(obj)) {
@@ -203,7 +305,7 @@ public class ArrayList<E> implements List<E>{
 		// Search the array for obj
 		for(int i = 0; i < this.size; i++) {
 			// if found we are done
-			if(this.elements[i].equals(obj))
+			if(element(i).equals(obj))
 				return true;
 		}
 		// Was not found
@@ -215,6 +317,8 @@ public class ArrayList<E> implements List<E>{
 	 */
 	@Override
 	public void clear() {
+		closeGap();
+		this.modCount++;
 		// Empty array
 		for(int i = 0; i < this.size; i++)
 			this.elements[i] = null;
@@ -229,18 +333,42 @@ public class ArrayList<E> implements List<E>{
 	 */
 	@Override
 	public int removeAll(E obj) {
-		// Counter
-		int count = 0;
-		
+		// Removing them one by one would shift the tail once per copy, removeIf does it in one pass
 //		while(remove(obj)) 
 //			count++;
-		boolean found = remove(obj);
-		while(found) {
-			count++;
-			found = remove(obj);
-			
+		return removeIf(e -> e.equals(obj));
+	}
+
+	/**
+	 * Removes every element that passes the filter.
+	 * Kept elements are moved down over the removed ones as we go, so each element moves at most once.
+	 * 
+	 * @return Returns the number of elements removed
+	 */
+	@Override
+	public int removeIf(FilterFunction<E> filter) {
+		closeGap();
+		// Elements before kept are the ones that stay, in order
+		int kept = 0;
+		int read = 0;
+		try {
+			for(; read < this.size; read++) {
+				E element = this.elements[read];
+				if(!filter.filter(element))
+					this.elements[kept++] = element;
+			}
+		} finally {
+			// If the filter threw, keep whatever it didn't get to see
+			int unread = this.size - read;
+			System.arraycopy(this.elements, read, this.elements, kept, unread);
+			int newSize = kept + unread;
+			for(int i = newSize; i < this.size; i++)
+				this.elements[i] = null;
+			if(newSize != this.size)
+				this.modCount++;
+			this.size = newSize;
 		}
-		return count;
+		return read - kept;
 	}
 
 	/**
@@ -254,7 +382,7 @@ public class ArrayList<E> implements List<E>{
 		// Search for obj
 		for(int i = 0; i < this.size; i++) {
 			// If found we are done
-			if(this.elements[i].equals(obj))
+			if(element(i).equals(obj))
 				return i;
 		}
 		// Wasn't found
@@ -273,7 +401,7 @@ public class ArrayList<E> implements List<E>{
 		// To be more efficient we start from position size-1 and move towards 0
 		for(int i = this.size-1; i >=0; i--) {
 			// If found we are done
-			if(this.elements[i].equals(obj))
+			if(element(i).equals(obj))
 				return i;
 		}
 		// Wasn't found
@@ -288,7 +416,7 @@ public class ArrayList<E> implements List<E>{
 	public E first() {
 		if(this.isEmpty())
 			throw new NoSuchElementException();
-		return this.elements[0];
+		return element(0);
 	}
 
 	/**
@@ -300,7 +428,7 @@ public class ArrayList<E> implements List<E>{
 	public E last() {
 		if(this.isEmpty())
 			throw new NoSuchElementException();
-		return this.elements[this.size-1];
+		return element(this.size-1);
 	}
 	/**
 	 * Returns iterator object for the ArrayList
@@ -313,6 +441,21 @@ public class ArrayList<E> implements List<E>{
 		return new ArrayListIterator<E>();
 	}
 	
+	/**
+	 * Returns a Spliterator for the ArrayList, so the List can be split into ranges and processed by 
+	 * several threads (for example on a fork-join pool).
+	 * 
+	 * trySplit() hands out the first half of the remaining range by index, without copying anything, 
+	 * and the halves keep the order of the List. Like the iterator it is fail-fast: if the List is 
+	 * changed while it's in use, ConcurrentModificationException is thrown.
+	 * 
+	 * @return - Spliterator for this List
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new ArrayListSpliterator(0, this.size, this.modCount);
+	}
+	
 	/**
 	 * Returns a String version of the ArrayList. 
 	 * The format will be: { A, B, C, null, null }, where each element within the brackets { }
@@ -325,9 +468,9 @@ public class ArrayList<E> implements List<E>{
 	public String toString() {
 		// We will enclose the elements in brackets { }
 		String str = "{ ";
-		// We print all the elements in the array including the empty spaces
-		for(E e: this.elements)
-			str+= e + ", ";
+		// We print all the elements in the array including the empty spaces (a gap is printed as if it was closed)
+		for(int i = 0; i < this.elements.length; i++)
+			str+= (i < this.size ? element(i) : null) + ", ";
 		// The final comma is unnecessary so we remove it and close the brackets
 		int lastComma = str.lastIndexOf(",");
 		if(lastComma != -1)
@@ -345,7 +488,7 @@ public class ArrayList<E> implements List<E>{
 //		for(E e: this)
 //			System.out.println(F.apply(e));
 		for(int i = 0; i < this.size; i++)
-			System.out.println(F.apply(this.elements[i]));
+			System.out.println(F.apply(element(i)));
 	}
 	
 	/**
@@ -353,6 +496,13 @@ public class ArrayList<E> implements List<E>{
 	 * What this does is that it makes it possible for use to iterate through the ArrayList
 	 * using for-each or using the Iterator methods.
 	 * 
+	 * It is fail-fast: if the list is changed by anything other than this iterator's remove(), 
+	 * the next call throws ConcurrentModificationException instead of returning the wrong elements.
+	 * 
+	 * remove() doesn't shift the rest of the array. It leaves a gap that next() slides forward one 
+	 * element at a time, so removing any number of elements in one pass costs O(n) in total.
+	 * An iterator that never removes anything never writes to the list.
+	 * 
 	 * @author Gretchen Bonilla
 	 *
 	 * @param <E>
@@ -361,10 +511,17 @@ public class ArrayList<E> implements List<E>{
 		
 		// Will keep track of what position in the List we are currently in
 		private int currentPosition;
+		// Whether the element before currentPosition can be removed (next() was called and it wasn't removed yet)
+		private boolean canRemove;
+		// Whether this iterator removed something, so the gap right at currentPosition (if any) is ours to move
+		private boolean removed;
+		// The modCount we expect the list to have. If it's different someone else changed the list.
+		private int expectedModCount;
 		
 		public ArrayListIterator() {
 			// Start of array
 			currentPosition = 0;
+			expectedModCount = modCount;
 		}
 		/**
 		 * Checks if we can still move in the list. This is done with an index.
@@ -380,9 +537,130 @@ public class ArrayList<E> implements List<E>{
 		 */
 		@Override
 		public E next() {
+			checkForComodification();
+			if(currentPosition >= size)
+				throw new NoSuchElementException();
+			if(removed && gapLength > 0 && gapStart == currentPosition) {
+				// Slide our gap forward: the next element moves down to the start of the gap
+				elements[gapStart] = elements[gapStart + gapLength];
+				elements[gapStart + gapLength] = null;
+				gapStart++;
+			}
+			canRemove = true;
 			// Returns the value at the current position and increases the index
-			return (E) elements[currentPosition++];
+			E value = (E) element(currentPosition++);
+			if(removed)
+				dropGapAtEnd();
+			return value;
+		}
+
+		/**
+		 * Removes the element returned by the last call to next().
+		 */
+		@Override
+		public void remove() {
+			if(!canRemove)
+				throw new IllegalStateException();
+			checkForComodification();
+			// A gap that isn't right at the cursor (left by another iterator) is closed first
+			if(gapLength > 0 && gapStart != currentPosition)
+				closeGap();
+			// The removed position becomes the start of the gap
+			currentPosition--;
+			elements[currentPosition] = null;
+			gapStart = currentPosition;
+			gapLength++;
+			size--;
+			canRemove = false;
+			removed = true;
+			modCount++;
+			expectedModCount = modCount;
+			dropGapAtEnd();
+		}
+
+		/**
+		 * Once nothing is left after the gap, it's just empty space at the end of the array.
+		 */
+		private void dropGapAtEnd() {
+			if(gapLength > 0 && gapStart == size)
+				gapLength = 0;
+		}
+
+		private void checkForComodification() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+		
+	}
+
+	/**
+	 * Spliterator over positions [index, fence) of the ArrayList.
+	 */
+	private class ArrayListSpliterator implements Spliterator<E> {
+		
+		// Next position to visit
+		private int index;
+		// One past the last position of this range
+		private final int fence;
+		// The modCount we expect the list to have. If it's different someone else changed the list.
+		private final int expectedModCount;
+		
+		ArrayListSpliterator(int index, int fence, int expectedModCount) {
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		/**
+		 * Gives the first half of the remaining range to a new Spliterator and keeps the second half.
+		 */
+		@Override
+		public Spliterator<E> trySplit() {
+			int middle = (this.index + this.fence) >>> 1;
+			if(this.index >= middle)
+				return null;
+			ArrayListSpliterator prefix = new ArrayListSpliterator(this.index, middle, this.expectedModCount);
+			this.index = middle;
+			return prefix;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if(this.index >= this.fence)
+				return false;
+			E value = element(this.index++);
+			action.accept(value);
+			checkForComodification();
+			return true;
 		}
 		
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			// Read the array once, then check for changes once at the end.
+			// Positions from gapStart on are gapLength further in the array.
+			E[] array = elements;
+			int split = Math.max(this.index, Math.min(gapStart, this.fence));
+			for(int i = this.index; i < split; i++)
+				action.accept(array[i]);
+			for(int i = split + gapLength; i < this.fence + gapLength; i++)
+				action.accept(array[i]);
+			this.index = this.fence;
+			checkForComodification();
+		}
+		
+		@Override
+		public long estimateSize() {
+			return this.fence - this.index;
+		}
+		
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+		
+		private void checkForComodification() {
+			if(modCount != this.expectedModCount)
+				throw new ConcurrentModificationException();
+		}
 	}
 }
@@ -1,8 +1,11 @@
 package data_structures;
 
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
 
+import interfaces.FilterFunction;
 import interfaces.List;
 
 
@@ -67,14 +70,22 @@ public class DoublyLinkedList<E> implements List<E>{
 			this.element = null;
 		}
 	}
-	private class LinkedListIterator<E> implements Iterator<E> {
+	/**
+	 * Fail-fast iterator: if the list is changed by anything other than this iterator's remove(),
+	 * the next call throws ConcurrentModificationException. remove() is O(1).
+	 */
+	private class LinkedListIterator implements Iterator<E> {
 		// For keeping track of the current node of the list
 		private Node<E> currentNode;
+		// Node returned by the last next(), null if there was none or it was removed
+		private Node<E> lastReturned;
+		// The modCount we expect the list to have. If it's different someone else changed the list.
+		private int expectedModCount;
 		
-		@SuppressWarnings("unchecked")
 		public LinkedListIterator() {
 			// We start at the head node
-			currentNode = (Node<E>) header.getNext();
+			currentNode = header.getNext();
+			expectedModCount = modCount;
 		}
 
 		/**
@@ -91,12 +102,29 @@ public class DoublyLinkedList<E> implements List<E>{
 		 */
 		@Override
 		public E next() {
+			checkForComodification(expectedModCount);
+			if(currentNode == trailer)
+				throw new NoSuchElementException();
+			lastReturned = currentNode;
 			// Get the current value
 			E value = currentNode.getElement();
 			// Move to next node
 			currentNode = currentNode.getNext();
 			return value;
 		}
+
+		/**
+		 * Removes the node returned by the last call to next().
+		 */
+		@Override
+		public void remove() {
+			if(lastReturned == null)
+				throw new IllegalStateException();
+			checkForComodification(expectedModCount);
+			unlink(lastReturned);
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
 		
 	}
 	
@@ -105,6 +133,8 @@ public class DoublyLinkedList<E> implements List<E>{
 	private Node<E> header;
 	private Node<E> trailer;
 	private int size;
+	// Number of structural changes (adds and removes) so far, so iterators can notice changes made behind their back
+	private int modCount;
 	
 	public DoublyLinkedList() {
 		// Initialize dummies
@@ -123,18 +153,61 @@ public class DoublyLinkedList<E> implements List<E>{
 		return this.size;
 	}
 
+	/**
+	 * Finds the node at position index, walking from whichever end is closer.
+	 * @param index - (int) position of the node, size gives the trailer
+	 * @return (Node<E>) the node at position index
+	 */
 	private Node<E> getNode(int index) {
 		// Check the index is valid
 		if(index < 0 || index >size)
 			throw new IndexOutOfBoundsException();
-		// We start at head
-		Node<E> temp = header.getNext();
-		// Move through the list until we find the node at position index
-		for(int i = 0; i < index; i++)
-			temp = temp.getNext();
+		Node<E> temp;
+		if(index < size / 2) {
+			// First half: we start at head and move forward
+			temp = header.getNext();
+			for(int i = 0; i < index; i++)
+				temp = temp.getNext();
+		}
+		else {
+			// Second half: we start at the trailer and move back
+			temp = trailer;
+			for(int i = size; i > index; i--)
+				temp = temp.getPrev();
+		}
 		// Return the node
 		return temp;
 	}
+
+	/**
+	 * Inserts a new node holding obj right before node.
+	 */
+	private void linkBefore(Node<E> node, E obj) {
+		Node<E> newNode = new Node<E>(node, node.getPrev(), obj);
+		node.getPrev().setNext(newNode);
+		node.setPrev(newNode);
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Takes node out of the chain and clears it.
+	 */
+	private void unlink(Node<E> node) {
+		node.getPrev().setNext(node.getNext());
+		node.getNext().setPrev(node.getPrev());
+		node.clear();
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Throws ConcurrentModificationException if the list was changed since an iterator saw expected.
+	 */
+	private void checkForComodification(int expected) {
+		if(modCount != expected)
+			throw new ConcurrentModificationException();
+	}
 	
 	@Override
 	public boolean isEmpty() {
@@ -143,23 +216,15 @@ public class DoublyLinkedList<E> implements List<E>{
 
 	@Override
 	public void add(E obj) {
-		Node<E> newNode = new Node<E>(trailer, trailer.getPrev(), obj);
-		trailer.getPrev().setNext(newNode);
-		trailer.setPrev(newNode);
-		size++;
+		linkBefore(trailer, obj);
 	}
 
 	@Override
 	public void add(int index, E obj) {
 		if(index == size)
 			add(obj);
-		else {
-			Node<E> curr = getNode(index);
-			Node<E> newNode = new Node<E>(curr, curr.getPrev(), obj);
-			curr.getPrev().setNext(newNode);
-			curr.setPrev(newNode);
-			size++;
-		}
+		else
+			linkBefore(getNode(index), obj);
 	}
 
 	@Override
@@ -183,11 +248,7 @@ public class DoublyLinkedList<E> implements List<E>{
 	public boolean remove(int index) {
 		if(index < 0 || index >=size)
 			throw new IndexOutOfBoundsException();
-		Node<E> curr = getNode(index);
-		curr.getPrev().setNext(curr.getNext());
-		curr.getNext().setPrev(curr.getPrev());
-		curr.clear();
-		size--;
+		unlink(getNode(index));
 		return true;
 	}
 
@@ -213,13 +274,24 @@ public class DoublyLinkedList<E> implements List<E>{
 
 	@Override
 	public int removeAll(E obj) {
-		// TODO Auto-generated method stub
+		// Searching again from the start after every removal was O(n^2)
+		return removeIf(e -> e.equals(obj));
+	}
+
+	/**
+	 * Unlinks every node whose element passes the filter, in one pass from header to trailer.
+	 */
+	@Override
+	public int removeIf(FilterFunction<E> filter) {
 		int count = 0;
-		int index = firstIndex(obj);
-		while(index != -1) {
-			remove(index);
-			index = firstIndex(obj);
-			count++;
+		Node<E> temp = header.getNext();
+		while(temp != trailer) {
+			Node<E> next = temp.getNext();
+			if(filter.filter(temp.getElement())) {
+				unlink(temp);
+				count++;
+			}
+			temp = next;
 		}
 		return count;
 	}
@@ -288,7 +360,131 @@ public class DoublyLinkedList<E> implements List<E>{
 	@Override
 	public Iterator<E> iterator() {
 		// TODO Auto-generated method stub
-		return new LinkedListIterator<E>();
+		return new LinkedListIterator();
+	}
+
+	/**
+	 * Returns a cursor that starts before the first element.
+	 * @return (ListIterator<E>) cursor over the list
+	 */
+	public ListIterator<E> listIterator() {
+		return new ListCursor(0);
+	}
+
+	/**
+	 * Returns a cursor that starts before the element at position index, so the first call to next()
+	 * returns that element. Finding the start walks from the closer end, every move after that is O(1).
+	 * @param index - (int) position of the first element next() will return, size to start at the end
+	 * @return (ListIterator<E>) cursor over the list
+	 * @throws IndexOutOfBoundsException if index is not between 0 and size
+	 */
+	public ListIterator<E> listIterator(int index) {
+		return new ListCursor(index);
+	}
+
+	/**
+	 * A ListIterator that remembers its node, so moving, adding, removing and replacing at the cursor
+	 * don't need to walk the list. Use it instead of get(i)/remove(i) loops, which walk on every call.
+	 */
+	private class ListCursor implements ListIterator<E> {
+		// Node that next() returns. The trailer when we are at the end.
+		private Node<E> nextNode;
+		// Position of nextNode
+		private int nextIndex;
+		// Node returned by the last next() or previous(), null if there was none or it was removed
+		private Node<E> lastReturned;
+		// The modCount we expect the list to have. If it's different someone else changed the list.
+		private int expectedModCount;
+
+		ListCursor(int index) {
+			this.nextNode = getNode(index);
+			this.nextIndex = index;
+			this.expectedModCount = modCount;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.nextNode != trailer;
+		}
+
+		@Override
+		public E next() {
+			checkForComodification(this.expectedModCount);
+			if(!hasNext())
+				throw new NoSuchElementException();
+			this.lastReturned = this.nextNode;
+			this.nextNode = this.nextNode.getNext();
+			this.nextIndex++;
+			return this.lastReturned.getElement();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return this.nextNode.getPrev() != header;
+		}
+
+		@Override
+		public E previous() {
+			checkForComodification(this.expectedModCount);
+			if(!hasPrevious())
+				throw new NoSuchElementException();
+			this.nextNode = this.nextNode.getPrev();
+			this.lastReturned = this.nextNode;
+			this.nextIndex--;
+			return this.lastReturned.getElement();
+		}
+
+		@Override
+		public int nextIndex() {
+			return this.nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			return this.nextIndex - 1;
+		}
+
+		/**
+		 * Removes the element returned by the last next() or previous().
+		 */
+		@Override
+		public void remove() {
+			if(this.lastReturned == null)
+				throw new IllegalStateException();
+			checkForComodification(this.expectedModCount);
+			if(this.lastReturned == this.nextNode)
+				// We came from previous(), the cursor stays before the element that follows it
+				this.nextNode = this.nextNode.getNext();
+			else
+				// We came from next(), the removed element was before the cursor
+				this.nextIndex--;
+			unlink(this.lastReturned);
+			this.lastReturned = null;
+			this.expectedModCount = modCount;
+		}
+
+		/**
+		 * Replaces the element returned by the last next() or previous().
+		 */
+		@Override
+		public void set(E obj) {
+			if(this.lastReturned == null)
+				throw new IllegalStateException();
+			checkForComodification(this.expectedModCount);
+			this.lastReturned.setElement(obj);
+		}
+
+		/**
+		 * Inserts obj right before the cursor, so next() is not affected and previous() returns obj.
+		 */
+		@Override
+		public void add(E obj) {
+			checkForComodification(this.expectedModCount);
+			linkBefore(this.nextNode, obj);
+			this.nextIndex++;
+			this.lastReturned = null;
+			this.expectedModCount = modCount;
+		}
 	}
 	
 	
@@ -0,0 +1,289 @@
+package data_structures;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+import interfaces.IntList;
+
+/**
+ * Implementation of an IntList using an int array, the int version of ArrayList.
+ *
+ * Each value takes 4 bytes in the array, while a List<Integer> needs a reference to
+ * an Integer object of 16 bytes for every value outside the small Integer cache.
+ */
+public class IntArrayList implements IntList {
+
+	// Same limit as ArrayList, some VMs reserve a few words of the array for its header
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+	// Shared by every list created with capacity 0 until it gets its first value
+	private static final int[] EMPTY = new int[0];
+
+	// Will hold the data
+	private int[] values;
+	// Number of values in the list, values.length is how many fit
+	private int size;
+	// Number of structural changes (adds and removes) so far, so iterators can notice changes made behind their back
+	private int modCount;
+
+	/**
+	 * Creates an empty list with room for 10 values.
+	 */
+	public IntArrayList() {
+		this(10);
+	}
+
+	/**
+	 * Creates an empty list with room for initialCapacity values.
+	 * @param initialCapacity - the initial capacity (length of array). Can be 0.
+	 * @throws IllegalArgumentException if initialCapacity is negative
+	 */
+	public IntArrayList(int initialCapacity) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+		this.values = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+	}
+
+	/**
+	 * Creates a list holding a copy of the given values.
+	 * @param values - (int[]) the values, in order
+	 * @return (IntArrayList) a list with exactly those values
+	 */
+	public static IntArrayList of(int... values) {
+		IntArrayList list = new IntArrayList(values.length);
+		System.arraycopy(values, 0, list.values, 0, values.length);
+		list.size = values.length;
+		return list;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public void add(int value) {
+		if(this.size == this.values.length)
+			grow(this.size + 1);
+		this.values[this.size++] = value;
+		this.modCount++;
+	}
+
+	@Override
+	public void add(int index, int value) {
+		if(index < 0 || index > this.size)
+			throw new IndexOutOfBoundsException();
+		if(this.size == this.values.length)
+			grow(this.size + 1);
+		// Shift values to the right in one block copy
+		System.arraycopy(this.values, index, this.values, index + 1, this.size - index);
+		this.values[index] = value;
+		this.size++;
+		this.modCount++;
+	}
+
+	/**
+	 * Adds every value of other to the end of this list, growing the array at most once.
+	 * @param other - (IntList) the values to add. Can be this same list.
+	 */
+	public void addAll(IntList other) {
+		int count = other.size();
+		ensureCapacity(this.size + count);
+		if(other instanceof IntArrayList)
+			System.arraycopy(((IntArrayList) other).values, 0, this.values, this.size, count);
+		else {
+			for(int i = 0; i < count; i++)
+				this.values[this.size + i] = other.get(i);
+		}
+		this.size += count;
+		this.modCount++;
+	}
+
+	/**
+	 * Expands the array so at least minCapacity values fit, usually doubling it.
+	 * @throws OutOfMemoryError if minCapacity is more than an array can hold
+	 */
+	private void grow(int minCapacity) {
+		// minCapacity < 0 means size + n overflowed
+		if(minCapacity < 0 || minCapacity > MAX_CAPACITY)
+			throw new OutOfMemoryError("IntArrayList can't hold " + Integer.toUnsignedString(minCapacity) + " values");
+		long doubled = Math.max(2L * this.values.length, 10);
+		int newCapacity = (int) Math.min(Math.max(doubled, minCapacity), MAX_CAPACITY);
+		this.values = Arrays.copyOf(this.values, newCapacity);
+	}
+
+	/**
+	 * Makes sure the list can hold minCapacity values without growing again.
+	 * @param minCapacity - (int) number of values we expect to hold
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if(minCapacity > this.values.length)
+			grow(minCapacity);
+	}
+
+	/**
+	 * Shrinks the internal array to the current size.
+	 */
+	public void trimToSize() {
+		if(this.values.length > this.size)
+			this.values = this.size == 0 ? EMPTY : Arrays.copyOf(this.values, this.size);
+	}
+
+	@Override
+	public int get(int index) {
+		if(index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException();
+		return this.values[index];
+	}
+
+	@Override
+	public int set(int index, int value) {
+		if(index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException();
+		int oldValue = this.values[index];
+		this.values[index] = value;
+		return oldValue;
+	}
+
+	@Override
+	public int remove(int index) {
+		if(index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException();
+		int removed = this.values[index];
+		// Shift values to the left in one block copy
+		System.arraycopy(this.values, index + 1, this.values, index, this.size - index - 1);
+		this.size--;
+		this.modCount++;
+		return removed;
+	}
+
+	@Override
+	public boolean removeValue(int value) {
+		int index = firstIndex(value);
+		if(index == -1)
+			return false;
+		remove(index);
+		return true;
+	}
+
+	@Override
+	public boolean contains(int value) {
+		return firstIndex(value) != -1;
+	}
+
+	@Override
+	public void clear() {
+		// No references to release, forgetting the values is enough
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public int firstIndex(int value) {
+		for(int i = 0; i < this.size; i++) {
+			if(this.values[i] == value)
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndex(int value) {
+		for(int i = this.size - 1; i >= 0; i--) {
+			if(this.values[i] == value)
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public void sort() {
+		Arrays.sort(this.values, 0, this.size);
+		this.modCount++;
+	}
+
+	@Override
+	public int binarySearch(int value) {
+		return Arrays.binarySearch(this.values, 0, this.size, value);
+	}
+
+	@Override
+	public void forEach(IntConsumer action) {
+		int expectedModCount = this.modCount;
+		for(int i = 0; i < this.size; i++) {
+			action.accept(this.values[i]);
+			if(this.modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public int[] toArray() {
+		return Arrays.copyOf(this.values, this.size);
+	}
+
+	/**
+	 * Returns the values in the format { 1, 2, 3 }.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("{ ");
+		for(int i = 0; i < this.size; i++) {
+			if(i > 0)
+				str.append(", ");
+			str.append(this.values[i]);
+		}
+		return str.append(" }").toString();
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt iterator() {
+		return new IntArrayListIterator();
+	}
+
+	/**
+	 * Fail-fast iterator: if the list is changed by anything other than this iterator's remove(),
+	 * the next call throws ConcurrentModificationException.
+	 */
+	private class IntArrayListIterator implements PrimitiveIterator.OfInt {
+		// Position of the value nextInt() returns
+		private int currentPosition;
+		// Whether the value before currentPosition can be removed
+		private boolean canRemove;
+		// The modCount we expect the list to have. If it's different someone else changed the list.
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return this.currentPosition < size;
+		}
+
+		@Override
+		public int nextInt() {
+			if(modCount != this.expectedModCount)
+				throw new ConcurrentModificationException();
+			if(this.currentPosition >= size)
+				throw new NoSuchElementException();
+			this.canRemove = true;
+			return values[this.currentPosition++];
+		}
+
+		@Override
+		public void remove() {
+			if(!this.canRemove)
+				throw new IllegalStateException();
+			if(modCount != this.expectedModCount)
+				throw new ConcurrentModificationException();
+			IntArrayList.this.remove(--this.currentPosition);
+			this.canRemove = false;
+			this.expectedModCount = modCount;
+		}
+	}
+}
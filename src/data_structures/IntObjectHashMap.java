@@ -0,0 +1,320 @@
+package data_structures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Map from primitive int keys to objects, implemented as an open-addressing hash table.
+ *
+ * Keys are stored in an int[] and values in a parallel array, so no Integer is ever allocated.
+ * Collisions are resolved with linear probing over a table whose length is always a power of two,
+ * which lets us find a slot with a bit mask instead of a modulo.
+ * A null value marks an empty slot, which is why null values are not allowed.
+ *
+ * Iterating the map (for-each) gives the values in table order, which is not the insertion order.
+ * Use keyIterator() to walk the keys the same way.
+ *
+ * @param <V> - Type of the values stored in the map.
+ */
+@SuppressWarnings("unchecked")
+public class IntObjectHashMap<V> implements Iterable<V> {
+
+	// The table grows once it is more than 3/4 full
+	private static final float LOAD_FACTOR = 0.75f;
+	// Largest power of two we can allocate an array for
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	// Keys of the entries. Only meaningful where values[i] != null
+	private int[] keys;
+	// Values of the entries. null means the slot is empty
+	private V[] values;
+	// How many entries are in the map
+	private int size;
+	// Size at which we have to grow the table
+	private int threshold;
+
+	/**
+	 * Creates an empty map with room for 16 entries before growing.
+	 */
+	public IntObjectHashMap() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty map that can hold expectedSize entries without growing.
+	 * @param expectedSize - (int) how many entries we expect to place in the map
+	 */
+	public IntObjectHashMap(int expectedSize) {
+		if(expectedSize < 0)
+			throw new IllegalArgumentException("Negative size: " + expectedSize);
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	/**
+	 * Returns how many entries are in the map.
+	 * @return (int) number of entries
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns whether the map has no entries.
+	 * @return (boolean) True if empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the value mapped to key.
+	 * @param key - (int) key to search for
+	 * @return (V) the value, or null if the key is not present
+	 */
+	public V get(int key) {
+		int mask = this.keys.length - 1;
+		// Walk the probe sequence until we hit the key or an empty slot
+		for(int i = hash(key) & mask; this.values[i] != null; i = (i + 1) & mask) {
+			if(this.keys[i] == key)
+				return this.values[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if key is present in the map.
+	 * @param key - (int) key to search for
+	 * @return (boolean) True if present, false otherwise
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps key to value, replacing any previous value.
+	 * @param key - (int) key of the entry
+	 * @param value - (V) value of the entry, can't be null
+	 * @return (V) the value previously mapped to key, or null if there was none
+	 * @throws NullPointerException if value is null
+	 */
+	public V put(int key, V value) {
+		if(value == null)
+			throw new NullPointerException("IntObjectHashMap does not allow null values");
+		int mask = this.keys.length - 1;
+		int i = hash(key) & mask;
+		// Look for the key or the first empty slot
+		while(this.values[i] != null) {
+			if(this.keys[i] == key) {
+				V old = this.values[i];
+				this.values[i] = value;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		this.keys[i] = key;
+		this.values[i] = value;
+		// Grow after inserting so the table is never completely full
+		if(++this.size > this.threshold)
+			rehash(this.keys.length * 2);
+		return null;
+	}
+
+	/**
+	 * Maps key to value only if key isn't in the map yet. An existing value is never replaced.
+	 * @param key - (int) key of the entry
+	 * @param value - (V) value of the entry, can't be null
+	 * @return (V) the value already mapped to key (the map didn't change), or null if value was added
+	 * @throws NullPointerException if value is null
+	 */
+	public V putIfAbsent(int key, V value) {
+		V old = get(key);
+		if(old != null)
+			return old;
+		put(key, value);
+		return null;
+	}
+
+	/**
+	 * Removes the entry for key if present.
+	 *
+	 * Instead of leaving a tombstone we shift back the entries that come after the removed one
+	 * in the same run, so lookups never have to skip over deleted slots.
+	 *
+	 * @param key - (int) key of the entry to remove
+	 * @return (V) the value that was removed, or null if the key was not present
+	 */
+	public V remove(int key) {
+		int mask = this.keys.length - 1;
+		int i = hash(key) & mask;
+		while(this.values[i] != null) {
+			if(this.keys[i] == key) {
+				V old = this.values[i];
+				shiftBack(i);
+				this.size--;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes every entry. The table keeps its current length.
+	 */
+	public void clear() {
+		for(int i = 0; i < this.values.length; i++)
+			this.values[i] = null;
+		this.size = 0;
+	}
+
+	/**
+	 * Returns an iterator over the values of the map.
+	 *
+	 * @return - Iterator over the values
+	 */
+	@Override
+	public Iterator<V> iterator() {
+		return new ValueIterator();
+	}
+
+	/**
+	 * Returns an iterator over the keys of the map. Keys are given as primitive ints, nothing gets boxed
+	 * as long as nextInt() is used.
+	 *
+	 * @return - Iterator over the keys
+	 */
+	public PrimitiveIterator.OfInt keyIterator() {
+		return new KeyIterator();
+	}
+
+	/**
+	 * Empties slot gap and moves later entries of the run into it when their home slot allows it.
+	 * An entry at slot j whose home is h can move to gap only if gap lies cyclically in [h, j).
+	 * @param gap - (int) slot that was just emptied
+	 */
+	private void shiftBack(int gap) {
+		int mask = this.keys.length - 1;
+		int j = gap;
+		while(true) {
+			j = (j + 1) & mask;
+			if(this.values[j] == null)
+				break;
+			int home = hash(this.keys[j]) & mask;
+			// Distance from home to the gap must be smaller than the distance from home to j
+			if(((gap - home) & mask) < ((j - home) & mask)) {
+				this.keys[gap] = this.keys[j];
+				this.values[gap] = this.values[j];
+				gap = j;
+			}
+		}
+		this.values[gap] = null;
+	}
+
+	/**
+	 * Moves every entry into a new table of the given length.
+	 * @param newLength - (int) power of two length of the new table
+	 */
+	private void rehash(int newLength) {
+		if(newLength > MAXIMUM_CAPACITY)
+			throw new IllegalStateException("IntObjectHashMap can't grow past " + MAXIMUM_CAPACITY + " slots");
+		int[] oldKeys = this.keys;
+		V[] oldValues = this.values;
+		allocate(newLength);
+		int mask = newLength - 1;
+		for(int i = 0; i < oldValues.length; i++) {
+			if(oldValues[i] != null) {
+				int j = hash(oldKeys[i]) & mask;
+				while(this.values[j] != null)
+					j = (j + 1) & mask;
+				this.keys[j] = oldKeys[i];
+				this.values[j] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Allocates empty key and value arrays of the given length.
+	 * @param length - (int) power of two length of the table
+	 */
+	private void allocate(int length) {
+		this.keys = new int[length];
+		this.values = (V[]) new Object[length];
+		this.threshold = (int) (length * LOAD_FACTOR);
+	}
+
+	/**
+	 * Returns the smallest power of two table length that fits expectedSize entries under the load factor.
+	 * @param expectedSize - (int) number of entries
+	 * @return (int) table length
+	 */
+	private static int tableSizeFor(int expectedSize) {
+		long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+		int length = 2;
+		while(length < needed) {
+			if(length == MAXIMUM_CAPACITY)
+				throw new IllegalArgumentException("Too many entries: " + expectedSize);
+			length <<= 1;
+		}
+		return length;
+	}
+
+	/**
+	 * Spreads the bits of key so consecutive IDs don't all land in neighbouring slots.
+	 * @param key - (int) key to hash
+	 * @return (int) mixed hash
+	 */
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Walks the table slot by slot skipping the empty ones.
+	 * Changing the map while iterating gives undefined results.
+	 */
+	private abstract class SlotIterator {
+		// Next slot to look at
+		private int nextSlot;
+
+		public SlotIterator() {
+			this.nextSlot = 0;
+			skipEmpty();
+		}
+
+		public boolean hasNext() {
+			return this.nextSlot < values.length;
+		}
+
+		/**
+		 * Returns the current occupied slot and moves to the next one.
+		 * @return (int) slot of the current entry
+		 */
+		protected int nextSlot() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			int slot = this.nextSlot++;
+			skipEmpty();
+			return slot;
+		}
+
+		private void skipEmpty() {
+			while(this.nextSlot < values.length && values[this.nextSlot] == null)
+				this.nextSlot++;
+		}
+	}
+
+	private class ValueIterator extends SlotIterator implements Iterator<V> {
+		@Override
+		public V next() {
+			return values[nextSlot()];
+		}
+	}
+
+	private class KeyIterator extends SlotIterator implements PrimitiveIterator.OfInt {
+		@Override
+		public int nextInt() {
+			return keys[nextSlot()];
+		}
+	}
+}
@@ -0,0 +1,391 @@
+package data_structures;
+
+import java.util.Arrays;
+
+/**
+ * A sorted set of non-negative ints (for example book ids) compressed with delta + varint encoding:
+ * each value is stored as its difference from the previous one, 7 bits per byte, with the high bit
+ * set on every byte except the last. Ids that are close together take one or two bytes instead of four.
+ *
+ * The values are split in blocks of up to SKIP_INTERVAL values, and we remember where each block starts
+ * in the bytes, so a Cursor can jump over whole blocks with advanceTo() instead of decoding everything in
+ * between. That is what makes intersecting a short list with a long one cheap. The first value of a
+ * block is stored whole, not as a delta, so each block can be decoded on its own.
+ *
+ * Appending a value bigger than all the others is O(1). Adding a smaller one or removing a value only
+ * decodes and encodes the block it falls in (splitting it in two when it gets too big, or merging it
+ * with the next one when it gets too small); the bytes after it are moved, not re-encoded.
+ */
+public class PostingList {
+
+	// Most values per block. Blocks that fill up by appending have exactly this many.
+	private static final int SKIP_INTERVAL = 128;
+	private static final byte[] EMPTY = new byte[0];
+
+	// The encoded values
+	private byte[] data = EMPTY;
+	// Bytes of data in use
+	private int length;
+	// Number of values
+	private int size;
+	// Largest value, the base of the next delta
+	private int last;
+	// Number of blocks
+	private int blocks;
+	// For block j: its first value, where it starts in data and the index of its first value
+	private int[] skipFirst = new int[1];
+	private int[] skipOffset = new int[1];
+	private int[] skipIndex = new int[1];
+
+	/**
+	 * Creates an empty list.
+	 */
+	public PostingList() {
+	}
+
+	/**
+	 * Builds a list from values that are already sorted.
+	 * @param values - (int[]) strictly increasing, non-negative values
+	 * @param count - (int) how many of the values to use
+	 * @return (PostingList) the compressed list
+	 * @throws IllegalArgumentException if the values are not strictly increasing or are negative
+	 */
+	public static PostingList of(int[] values, int count) {
+		PostingList list = new PostingList();
+		// Most deltas fit in 1 or 2 bytes, this avoids most of the regrowing
+		list.data = new byte[Math.max(8, count * 2)];
+		for(int i = 0; i < count; i++) {
+			if(!list.append(values[i]))
+				throw new IllegalArgumentException("Values must be strictly increasing and non-negative");
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the number of values.
+	 * @return (int) the size
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of bytes the encoded values take.
+	 * @return (int) bytes in use
+	 */
+	public int byteSize() {
+		return this.length;
+	}
+
+	/**
+	 * Adds a value.
+	 * @param value - (int) the value, not negative
+	 * @return (boolean) false if the value was already there
+	 */
+	public boolean add(int value) {
+		if(value < 0)
+			throw new IllegalArgumentException("Negative value: " + value);
+		if(this.size == 0 || value > this.last)
+			return append(value);
+		int block = blockOf(value);
+		int[] values = blockValues(block);
+		int position = Arrays.binarySearch(values, value);
+		if(position >= 0)
+			return false;
+		position = -position - 1;
+		int[] merged = new int[values.length + 1];
+		System.arraycopy(values, 0, merged, 0, position);
+		merged[position] = value;
+		System.arraycopy(values, position, merged, position + 1, values.length - position);
+		rewriteBlocks(block, 1, merged, merged.length);
+		return true;
+	}
+
+	/**
+	 * Removes a value, rewriting the block it is in.
+	 * @param value - (int) the value
+	 * @return (boolean) false if the value wasn't there
+	 */
+	public boolean remove(int value) {
+		if(this.size == 0 || value < this.skipFirst[0] || value > this.last)
+			return false;
+		int block = blockOf(value);
+		int[] values = blockValues(block);
+		int position = Arrays.binarySearch(values, value);
+		if(position < 0)
+			return false;
+		int count = values.length - 1;
+		System.arraycopy(values, position + 1, values, position, count - position);
+		if(count < SKIP_INTERVAL / 2 && block + 1 < this.blocks) {
+			// Merge a small block with the next one while they fit in one block
+			int[] next = blockValues(block + 1);
+			if(count + next.length <= SKIP_INTERVAL) {
+				int[] merged = Arrays.copyOf(values, count + next.length);
+				System.arraycopy(next, 0, merged, count, next.length);
+				rewriteBlocks(block, 2, merged, merged.length);
+				return true;
+			}
+		}
+		rewriteBlocks(block, 1, values, count);
+		if(value == this.last) {
+			if(this.size == 0)
+				this.last = 0;
+			else {
+				int[] lastBlock = blockValues(this.blocks - 1);
+				this.last = lastBlock[lastBlock.length - 1];
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes every value.
+	 * @return (int[]) the values in increasing order
+	 */
+	public int[] toArray() {
+		int[] values = new int[this.size];
+		Cursor cursor = cursor();
+		for(int i = 0; i < values.length; i++) {
+			values[i] = cursor.value();
+			cursor.next();
+		}
+		return values;
+	}
+
+	/**
+	 * Returns a cursor on the first value.
+	 * @return (Cursor) a new cursor
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	private boolean append(int value) {
+		if(value < 0 || (this.size > 0 && value <= this.last))
+			return false;
+		int base = this.last;
+		if(this.blocks == 0 || this.size - this.skipIndex[this.blocks - 1] == SKIP_INTERVAL) {
+			growSkips(this.blocks + 1);
+			this.skipFirst[this.blocks] = value;
+			this.skipOffset[this.blocks] = this.length;
+			this.skipIndex[this.blocks] = this.size;
+			this.blocks++;
+			base = 0;
+		}
+		// A varint takes at most 5 bytes
+		if(this.length + 5 > this.data.length)
+			this.data = Arrays.copyOf(this.data, Math.max(this.length + 5, this.data.length * 2));
+		this.length = writeVarint(this.data, this.length, value - base);
+		this.size++;
+		this.last = value;
+		return true;
+	}
+
+	/**
+	 * Finds the last block whose first value is at most value, block 0 if there is none.
+	 */
+	private int blockOf(int value) {
+		int low = 1;
+		int high = this.blocks - 1;
+		int block = 0;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(this.skipFirst[middle] <= value) {
+				block = middle;
+				low = middle + 1;
+			}
+			else
+				high = middle - 1;
+		}
+		return block;
+	}
+
+	/**
+	 * Decodes the values of one block.
+	 */
+	private int[] blockValues(int block) {
+		int end = block + 1 < this.blocks ? this.skipIndex[block + 1] : this.size;
+		int[] values = new int[end - this.skipIndex[block]];
+		int offset = this.skipOffset[block];
+		int value = 0;
+		for(int i = 0; i < values.length; i++) {
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data[offset++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while(b < 0);
+			value += delta;
+			values[i] = value;
+		}
+		return values;
+	}
+
+	/**
+	 * Replaces the blocks first to first + count - 1 with the given values, split in as few blocks of
+	 * at most SKIP_INTERVAL values as possible. The bytes and skip entries after them are moved.
+	 */
+	private void rewriteBlocks(int first, int count, int[] values, int valueCount) {
+		int end = first + count;
+		int startOffset = this.skipOffset[first];
+		int endOffset = end < this.blocks ? this.skipOffset[end] : this.length;
+		int startIndex = this.skipIndex[first];
+		int endIndex = end < this.blocks ? this.skipIndex[end] : this.size;
+
+		int newBlocks = (valueCount + SKIP_INTERVAL - 1) / SKIP_INTERVAL;
+		byte[] encoded = new byte[valueCount * 5];
+		int[] firsts = new int[newBlocks];
+		int[] offsets = new int[newBlocks];
+		int[] indexes = new int[newBlocks];
+		int encodedLength = 0;
+		for(int j = 0; j < newBlocks; j++) {
+			// Split evenly, so a full block that gets one more value leaves room in both halves
+			int from = (int) ((long) valueCount * j / newBlocks);
+			int to = (int) ((long) valueCount * (j + 1) / newBlocks);
+			firsts[j] = values[from];
+			offsets[j] = startOffset + encodedLength;
+			indexes[j] = startIndex + from;
+			int previous = 0;
+			for(int i = from; i < to; i++) {
+				encodedLength = writeVarint(encoded, encodedLength, values[i] - previous);
+				previous = values[i];
+			}
+		}
+
+		int byteGrowth = encodedLength - (endOffset - startOffset);
+		if(this.length + byteGrowth > this.data.length)
+			this.data = Arrays.copyOf(this.data, Math.max(this.length + byteGrowth, this.data.length * 2));
+		System.arraycopy(this.data, endOffset, this.data, startOffset + encodedLength, this.length - endOffset);
+		System.arraycopy(encoded, 0, this.data, startOffset, encodedLength);
+		this.length += byteGrowth;
+
+		int blockGrowth = newBlocks - count;
+		int valueGrowth = valueCount - (endIndex - startIndex);
+		growSkips(this.blocks + blockGrowth);
+		int moved = this.blocks - end;
+		System.arraycopy(this.skipFirst, end, this.skipFirst, end + blockGrowth, moved);
+		System.arraycopy(this.skipOffset, end, this.skipOffset, end + blockGrowth, moved);
+		System.arraycopy(this.skipIndex, end, this.skipIndex, end + blockGrowth, moved);
+		for(int j = end + blockGrowth; j < this.blocks + blockGrowth; j++) {
+			this.skipOffset[j] += byteGrowth;
+			this.skipIndex[j] += valueGrowth;
+		}
+		System.arraycopy(firsts, 0, this.skipFirst, first, newBlocks);
+		System.arraycopy(offsets, 0, this.skipOffset, first, newBlocks);
+		System.arraycopy(indexes, 0, this.skipIndex, first, newBlocks);
+		this.blocks += blockGrowth;
+		this.size += valueGrowth;
+	}
+
+	private void growSkips(int blocks) {
+		if(blocks > this.skipFirst.length) {
+			int capacity = Math.max(blocks, this.skipFirst.length * 2);
+			this.skipFirst = Arrays.copyOf(this.skipFirst, capacity);
+			this.skipOffset = Arrays.copyOf(this.skipOffset, capacity);
+			this.skipIndex = Arrays.copyOf(this.skipIndex, capacity);
+		}
+	}
+
+	private static int writeVarint(byte[] data, int offset, int value) {
+		while((value & ~0x7F) != 0) {
+			data[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[offset++] = (byte) value;
+		return offset;
+	}
+
+	/**
+	 * Walks the values in increasing order. The list must not change while a cursor is in use.
+	 */
+	public class Cursor {
+		// Returned by value() once every value was passed
+		public static final int END = Integer.MAX_VALUE;
+
+		// Index of the current value
+		private int index;
+		// Where the value after the current one starts in data
+		private int offset;
+		private int value;
+		// Block of the current value, and the index where the next block starts
+		private int block;
+		private int nextBlockIndex;
+
+		private Cursor() {
+			this.index = -1;
+			this.block = -1;
+			this.nextBlockIndex = 0;
+			next();
+		}
+
+		/**
+		 * Returns the current value.
+		 * @return (int) the value, END if there are no more values
+		 */
+		public int value() {
+			return this.value;
+		}
+
+		/**
+		 * Moves to the next value.
+		 * @return (int) the new current value, END if there are no more values
+		 */
+		public int next() {
+			if(++this.index >= size) {
+				this.index = size;
+				return this.value = END;
+			}
+			if(this.index == this.nextBlockIndex) {
+				// The first value of a block is stored whole
+				this.block++;
+				this.nextBlockIndex = this.block + 1 < blocks ? skipIndex[this.block + 1] : size;
+				this.value = 0;
+			}
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[this.offset++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while(b < 0);
+			return this.value += delta;
+		}
+
+		/**
+		 * Moves to the first value that is at least target, skipping whole blocks when it can.
+		 * Never moves backwards.
+		 * @param target - (int) the value we want
+		 * @return (int) the new current value, END if every value is smaller than target
+		 */
+		public int advanceTo(int target) {
+			if(this.value >= target)
+				return this.value;
+			// Find the last block that starts at or before target, past the current block
+			int low = this.block + 1;
+			int high = blocks - 1;
+			int jump = -1;
+			while(low <= high) {
+				int middle = (low + high) >>> 1;
+				if(skipFirst[middle] <= target) {
+					jump = middle;
+					low = middle + 1;
+				}
+				else
+					high = middle - 1;
+			}
+			if(jump != -1) {
+				// Continue decoding right before the block, next() starts it from its first value
+				this.block = jump - 1;
+				this.nextBlockIndex = skipIndex[jump];
+				this.index = this.nextBlockIndex - 1;
+				this.offset = skipOffset[jump];
+			}
+			while(this.value < target)
+				next();
+			return this.value;
+		}
+	}
+}
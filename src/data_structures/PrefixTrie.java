@@ -0,0 +1,382 @@
+package data_structures;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import interfaces.List;
+
+/**
+ * Radix tree (compressed trie) of Strings with a count for each, for autocompletion.
+ *
+ * Every edge is labeled with a run of characters instead of a single one, so a key that shares no
+ * prefix with the others takes one node. Children are kept in an array sorted by the first character
+ * of their label and found by binary search.
+ *
+ * Keys are matched ignoring case (each char goes through Character.toLowerCase), and complete()
+ * returns them spelled the way they were first added. Each spelling is counted, so once every copy of
+ * that spelling is removed the key comes back with a spelling that is still in the tree.
+ *
+ * Each node also keeps the largest count in its subtree, so the most common completions are found best
+ * first: the search only opens the nodes that can still hold one of the n best keys, instead of the
+ * whole subtree of the prefix.
+ */
+public class PrefixTrie {
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private final Node root = new Node(new char[0]);
+	// Number of distinct keys
+	private int size;
+	// Number of nodes, including the root
+	private int nodeCount = 1;
+
+	/**
+	 * Returns the number of distinct keys.
+	 * @return (int) the size
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of nodes of the tree. Each node is one object plus its label and children arrays.
+	 * @return (int) the node count
+	 */
+	public int nodeCount() {
+		return this.nodeCount;
+	}
+
+	/**
+	 * Adds one to the count of key, adding it if it's new.
+	 * @param key - (String) the key, not null
+	 */
+	public void add(String key) {
+		char[] folded = fold(key);
+		Node node = this.root;
+		int position = 0;
+		// Nodes from the root down to the key, to update their maxCount afterwards
+		ArrayList<Node> path = new ArrayList<>();
+		path.add(node);
+		while(position < folded.length) {
+			int index = childIndex(node, folded[position]);
+			if(index < 0) {
+				Node leaf = new Node(slice(folded, position, folded.length));
+				insertChild(node, -index - 1, leaf);
+				node = leaf;
+				path.add(node);
+				break;
+			}
+			Node child = node.children[index];
+			int common = commonLength(child.label, folded, position);
+			if(common < child.label.length) {
+				// The key leaves (or ends) in the middle of the label: split the edge
+				Node middle = new Node(slice(child.label, 0, common));
+				child.label = slice(child.label, common, child.label.length);
+				middle.children = new Node[] { child, null };
+				middle.childCount = 1;
+				middle.maxCount = child.maxCount;
+				node.children[index] = middle;
+				this.nodeCount++;
+				child = middle;
+			}
+			node = child;
+			path.add(node);
+			position += common;
+		}
+		if(node.value == null) {
+			node.value = key;
+			this.size++;
+		}
+		else if(!node.value.equals(key)) {
+			addSpelling(node, key);
+		}
+		node.count++;
+		for(int i = path.size() - 1; i >= 0; i--) {
+			Node pathNode = path.get(i);
+			pathNode.maxCount = Math.max(pathNode.maxCount, node.count);
+		}
+	}
+
+	/**
+	 * Subtracts one from the count of key, removing it when it gets to 0.
+	 * @param key - (String) the key
+	 * @return (boolean) false if the key wasn't there
+	 */
+	public boolean remove(String key) {
+		return remove(this.root, key, fold(key), 0);
+	}
+
+	/**
+	 * Returns the count of key.
+	 * @param key - (String) the key
+	 * @return (int) the count, 0 if the key isn't there
+	 */
+	public int count(String key) {
+		char[] folded = fold(key);
+		Node node = this.root;
+		int position = 0;
+		while(position < folded.length) {
+			int index = childIndex(node, folded[position]);
+			if(index < 0)
+				return 0;
+			node = node.children[index];
+			if(commonLength(node.label, folded, position) < node.label.length)
+				return 0;
+			position += node.label.length;
+		}
+		return node.count;
+	}
+
+	/**
+	 * Returns the n keys that start with prefix and have the largest counts. Keys with the same count
+	 * come in alphabetical order (of their lower case form).
+	 *
+	 * The prefix is found in time proportional to its length. Then the search opens nodes best first,
+	 * by the largest count below them, so it stops after about n times the depth of the results.
+	 *
+	 * @param prefix - (String) the start of the keys, in any case. "" gives the n most common keys.
+	 * @param n - (int) maximum number of keys
+	 * @return (List<String>) the keys as first added, most common first
+	 */
+	public List<String> complete(String prefix, int n) {
+		List<String> result = new ArrayList<>(Math.max(0, Math.min(n, 16)));
+		if(n <= 0)
+			return result;
+		char[] folded = fold(prefix);
+		Node node = this.root;
+		int position = 0;
+		StringBuilder path = new StringBuilder();
+		while(position < folded.length) {
+			int index = childIndex(node, folded[position]);
+			if(index < 0)
+				return result;
+			node = node.children[index];
+			int common = commonLength(node.label, folded, position);
+			// The prefix must either cover the whole label or end inside it
+			if(common < node.label.length && position + common < folded.length)
+				return result;
+			path.append(node.label);
+			position += node.label.length;
+		}
+
+		PriorityQueue<Candidate> queue = new PriorityQueue<>();
+		queue.add(new Candidate(node, path.toString(), node.maxCount, false));
+		while(!queue.isEmpty() && result.size() < n) {
+			Candidate best = queue.poll();
+			if(best.isKey) {
+				result.add(best.node.value);
+				continue;
+			}
+			Node open = best.node;
+			if(open.value != null)
+				queue.add(new Candidate(open, best.path, open.count, true));
+			for(int i = 0; i < open.childCount; i++) {
+				Node child = open.children[i];
+				queue.add(new Candidate(child, best.path + new String(child.label), child.maxCount, false));
+			}
+		}
+		return result;
+	}
+
+	private boolean remove(Node node, String key, char[] folded, int position) {
+		if(position == folded.length) {
+			if(node.value == null)
+				return false;
+			removeSpelling(node, key);
+			if(--node.count == 0) {
+				node.value = null;
+				this.size--;
+			}
+			node.maxCount = maxCount(node);
+			return true;
+		}
+		int index = childIndex(node, folded[position]);
+		if(index < 0)
+			return false;
+		Node child = node.children[index];
+		if(commonLength(child.label, folded, position) < child.label.length)
+			return false;
+		if(!remove(child, key, folded, position + child.label.length))
+			return false;
+		if(child.value == null && child.childCount == 0) {
+			// Nothing ends below the child anymore
+			System.arraycopy(node.children, index + 1, node.children, index, node.childCount - index - 1);
+			node.children[--node.childCount] = null;
+			this.nodeCount--;
+		}
+		else if(child.value == null && child.childCount == 1) {
+			// A node with no key and one child is just part of an edge: merge it with its child
+			Node grandchild = child.children[0];
+			char[] label = new char[child.label.length + grandchild.label.length];
+			System.arraycopy(child.label, 0, label, 0, child.label.length);
+			System.arraycopy(grandchild.label, 0, label, child.label.length, grandchild.label.length);
+			grandchild.label = label;
+			node.children[index] = grandchild;
+			this.nodeCount--;
+		}
+		node.maxCount = maxCount(node);
+		return true;
+	}
+
+	/**
+	 * Counts one more copy of a spelling other than node.value.
+	 */
+	private static void addSpelling(Node node, String key) {
+		for(int i = 0; i < node.spellingCount; i++) {
+			if(node.spellings[i].equals(key)) {
+				node.spellingCounts[i]++;
+				return;
+			}
+		}
+		if(node.spellings == null) {
+			node.spellings = new String[1];
+			node.spellingCounts = new int[1];
+		}
+		else if(node.spellingCount == node.spellings.length) {
+			node.spellings = Arrays.copyOf(node.spellings, node.spellingCount * 2);
+			node.spellingCounts = Arrays.copyOf(node.spellingCounts, node.spellingCount * 2);
+		}
+		node.spellings[node.spellingCount] = key;
+		node.spellingCounts[node.spellingCount++] = 1;
+	}
+
+	/**
+	 * Counts one copy less of key's spelling, before node.count goes down. A spelling that was never
+	 * added is taken from node.value. When node.value has no copies left, the oldest other spelling
+	 * takes its place.
+	 */
+	private static void removeSpelling(Node node, String key) {
+		int valueCount = node.count;
+		for(int i = 0; i < node.spellingCount; i++) {
+			if(node.spellings[i].equals(key)) {
+				if(--node.spellingCounts[i] == 0)
+					removeSpellingAt(node, i);
+				return;
+			}
+			valueCount -= node.spellingCounts[i];
+		}
+		if(valueCount == 1 && node.spellingCount > 0) {
+			node.value = node.spellings[0];
+			removeSpellingAt(node, 0);
+		}
+	}
+
+	private static void removeSpellingAt(Node node, int index) {
+		System.arraycopy(node.spellings, index + 1, node.spellings, index, node.spellingCount - index - 1);
+		System.arraycopy(node.spellingCounts, index + 1, node.spellingCounts, index, node.spellingCount - index - 1);
+		node.spellings[--node.spellingCount] = null;
+	}
+
+	private static int maxCount(Node node) {
+		int max = node.count;
+		for(int i = 0; i < node.childCount; i++)
+			max = Math.max(max, node.children[i].maxCount);
+		return max;
+	}
+
+	/**
+	 * Binary search for the child whose label starts with c.
+	 * @return the index of the child, or (-(insertion point) - 1) if there is none
+	 */
+	private static int childIndex(Node node, char c) {
+		int low = 0;
+		int high = node.childCount - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			char first = node.children[middle].label[0];
+			if(first < c)
+				low = middle + 1;
+			else if(first > c)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -low - 1;
+	}
+
+	private void insertChild(Node node, int index, Node child) {
+		if(node.childCount == node.children.length)
+			node.children = Arrays.copyOf(node.children, Math.max(2, node.childCount * 2));
+		System.arraycopy(node.children, index, node.children, index + 1, node.childCount - index);
+		node.children[index] = child;
+		node.childCount++;
+		this.nodeCount++;
+	}
+
+	/**
+	 * Number of characters label and key (from position on) have in common at their start.
+	 */
+	private static int commonLength(char[] label, char[] key, int position) {
+		int length = Math.min(label.length, key.length - position);
+		int i = 0;
+		while(i < length && label[i] == key[position + i])
+			i++;
+		return i;
+	}
+
+	private static char[] fold(String key) {
+		char[] folded = new char[key.length()];
+		for(int i = 0; i < folded.length; i++)
+			folded[i] = Character.toLowerCase(key.charAt(i));
+		return folded;
+	}
+
+	private static char[] slice(char[] chars, int start, int end) {
+		char[] slice = new char[end - start];
+		System.arraycopy(chars, start, slice, 0, slice.length);
+		return slice;
+	}
+
+	private static class Node {
+		// Characters on the edge from the parent
+		char[] label;
+		// Sorted by the first character of their label, only the first childCount are used
+		Node[] children = NO_CHILDREN;
+		int childCount;
+		// The key that ends here as it was first added, null if no key ends here
+		String value;
+		int count;
+		// Other spellings of the key and how many of count each has, the rest belong to value.
+		// Null until a second spelling is added.
+		String[] spellings;
+		int[] spellingCounts;
+		int spellingCount;
+		// Largest count of a key in this subtree
+		int maxCount;
+
+		Node(char[] label) {
+			this.label = label;
+		}
+	}
+
+	/**
+	 * A node waiting to be opened, or a key waiting to be returned, in complete().
+	 * The queue gives the largest count first, then the smallest path: every key under a node starts with
+	 * the node's path, so a key that sorts before the path also sorts before all of them.
+	 */
+	private static class Candidate implements Comparable<Candidate> {
+		final Node node;
+		// Lower case characters from the root to the node
+		final String path;
+		final int count;
+		final boolean isKey;
+
+		Candidate(Node node, String path, int count, boolean isKey) {
+			this.node = node;
+			this.path = path;
+			this.count = count;
+			this.isKey = isKey;
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			if(this.count != other.count)
+				return Integer.compare(other.count, this.count);
+			int byPath = this.path.compareTo(other.path);
+			if(byPath != 0)
+				return byPath;
+			// The key of a node goes before the keys below it
+			return Boolean.compare(other.isKey, this.isKey);
+		}
+	}
+}
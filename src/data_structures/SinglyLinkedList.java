@@ -1,8 +1,10 @@
 package data_structures;
 
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+import interfaces.FilterFunction;
 import interfaces.List;
 
 /**
@@ -73,8 +75,12 @@ public class SinglyLinkedList<E> implements List<E>{
 	
 	// Represent the first node in the list
 	private Node<E> head;
+	// Represent the last node in the list, so we can append without walking the whole chain
+	private Node<E> tail;
 	// Tracks the current size of the list
 	private int size;
+	// Number of structural changes (adds and removes) so far, so iterators can notice changes made behind their back
+	private int modCount;
 	
 
 	/**
@@ -82,6 +88,7 @@ public class SinglyLinkedList<E> implements List<E>{
 	 */
 	public SinglyLinkedList() {
 		this.head = null;
+		this.tail = null;
 		this.size = 0;
 	}
 	
@@ -111,16 +118,14 @@ public class SinglyLinkedList<E> implements List<E>{
 		if(head == null)
 			head = newNode;
 		else {
-			// Lets search for the last node in the list
-			Node<E> temp = head;
-			while(temp.getNext() != null) {
-				temp = temp.getNext();
-			}
 			// Set the next of the last node to the new node.
-			// We now have a new last node
-			temp.setNext(newNode);
+			// No need to search for the last node, tail already points to it
+			tail.setNext(newNode);
 		}
+		// We now have a new last node
+		tail = newNode;
 		this.size++;
+		this.modCount++;
 		
 	}
 	/**
@@ -134,6 +139,9 @@ public class SinglyLinkedList<E> implements List<E>{
 		// Check the index is valid
 		if(index < 0 || index >=size)
 			throw new IndexOutOfBoundsException();
+		// The last node is the one we know without walking
+		if(index == size - 1)
+			return tail;
 		// We start at head
 		Node<E> temp = head;
 		// Move through the list until we find the node at position index
@@ -163,6 +171,14 @@ public class SinglyLinkedList<E> implements List<E>{
 			newNode.setNext(head);
 			// Make head point to the new node since it is now the first node
 			head = newNode;
+			// If the list was empty it is also the last node
+			if(tail == null)
+				tail = newNode;
+		}
+		// Adding at the end is the same as add(obj), which doesn't need to find the previous node
+		else if(index == size) {
+			tail.setNext(newNode);
+			tail = newNode;
 		}
 		// If index is any position other than 0
 		else {
@@ -204,6 +220,7 @@ public class SinglyLinkedList<E> implements List<E>{
 
 		}
 		this.size++;
+		this.modCount++;
 	}
 
 	/**
@@ -247,10 +264,13 @@ public class SinglyLinkedList<E> implements List<E>{
 	@Override
 	public boolean remove(int index) {
 		// Check index is valid
-		if(index < 0 || index > size)
+		if(index < 0 || index >= size)
 			throw new IndexOutOfBoundsException();
 		// If it's the first node
 		if(index == 0) {
+			// If it's also the last node the list becomes empty
+			if(this.head == this.tail)
+				this.tail = null;
 			// Get the node to be removed
 			Node<E> holdNode = this.head;
 			/* 
@@ -284,10 +304,14 @@ public class SinglyLinkedList<E> implements List<E>{
 			Node<E> nodeToRemove = previousNode.getNext();
 			// Update references
 			previousNode.setNext(nodeToRemove.getNext());
+			// If we removed the last node, the one before it is now last
+			if(nodeToRemove == this.tail)
+				this.tail = previousNode;
 			// Help GC
 			nodeToRemove.clear();
 		}
 		size--;
+		modCount++;
 		return true;
 	}
 
@@ -357,7 +381,8 @@ public class SinglyLinkedList<E> implements List<E>{
 		while(!isEmpty()) remove(0);
 		// Reset values for empty list
 		size = 0;
-		head = null;		
+		head = null;
+		tail = null;
 	}
 
 	/**
@@ -388,10 +413,13 @@ public class SinglyLinkedList<E> implements List<E>{
 					Node<E> holdNode = currentNode;
 					// Update references
 					previousNode.setNext(currentNode.getNext());
+					if(holdNode == tail)
+						tail = previousNode;
 					currentNode = currentNode.getNext();
 					holdNode.clear();
 					// Need to decrease size as we remove a node
 					size--;
+					modCount++;
 				}
 				count++;
 			}
@@ -403,6 +431,40 @@ public class SinglyLinkedList<E> implements List<E>{
 		return count;
 	}
 	
+	/**
+	 * Removes all nodes whose element passes the filter, relinking the chain in one pass
+	 * 
+	 * @param filter - decides which elements are removed
+	 * @return (int) how many nodes were removed
+	 */
+	@Override
+	public int removeIf(FilterFunction<E> filter) {
+		int count = 0;
+		// Last node we kept, null while we haven't kept any
+		Node<E> previousNode = null;
+		Node<E> currentNode = head;
+		while(currentNode != null) {
+			Node<E> nextNode = currentNode.getNext();
+			if(filter.filter(currentNode.getElement())) {
+				// Skip the node
+				if(previousNode == null)
+					head = nextNode;
+				else
+					previousNode.setNext(nextNode);
+				if(currentNode == tail)
+					tail = previousNode;
+				currentNode.clear();
+				size--;
+				modCount++;
+				count++;
+			}
+			else
+				previousNode = currentNode;
+			currentNode = nextNode;
+		}
+		return count;
+	}
+	
 	/**
 	 * Returns the first position where element obj appears
 	 * 
@@ -452,7 +514,7 @@ public class SinglyLinkedList<E> implements List<E>{
 	public E last() {
 		if(this.isEmpty())
 			throw new NoSuchElementException();
-		return this.get(size-1);
+		return this.tail.getElement();
 	}
 	/**
 	 * Returns a String version of the SinglyLinkedList. 
@@ -480,23 +542,31 @@ public class SinglyLinkedList<E> implements List<E>{
 	@Override
 	public Iterator<E> iterator() {
 		// TODO Auto-generated method stub
-		return new LinkedListIterator<E>();
+		return new LinkedListIterator();
 	}
 	/**
 	 * This class implements an Iterator for the LinkedList implemented here.
+	 * 
+	 * It is fail-fast: if the list is changed by anything other than this iterator's remove(), 
+	 * the next call throws ConcurrentModificationException.
+	 * remove() is O(1) because we remember the node before the one being removed.
 	 *  
 	 * @author Gretchen Bonilla
-	 *
-	 * @param <E>
 	 */
-	private class LinkedListIterator<E> implements Iterator<E> {
+	private class LinkedListIterator implements Iterator<E> {
 		// For keeping track of the current node of the list
 		private Node<E> currentNode;
+		// Node returned by the last next(), null if there was none or it was removed
+		private Node<E> lastReturned;
+		// Node before lastReturned, null if lastReturned is head. We need it to unlink lastReturned.
+		private Node<E> beforeLast;
+		// The modCount we expect the list to have. If it's different someone else changed the list.
+		private int expectedModCount;
 		
-		@SuppressWarnings("unchecked")
 		public LinkedListIterator() {
 			// We start at the head node
-			currentNode = (Node<E>) head;
+			currentNode = head;
+			expectedModCount = modCount;
 		}
 
 		/**
@@ -513,12 +583,47 @@ public class SinglyLinkedList<E> implements List<E>{
 		 */
 		@Override
 		public E next() {
+			checkForComodification();
+			if(currentNode == null)
+				throw new NoSuchElementException();
+			// The node we returned last is now the one before the node we return
+			// If it was removed, the one before it still is
+			if(lastReturned != null)
+				beforeLast = lastReturned;
+			lastReturned = currentNode;
 			// Get the current value
 			E value = currentNode.getElement();
 			// Move to next node
 			currentNode = currentNode.getNext();
 			return value;
 		}
+
+		/**
+		 * Removes the node returned by the last call to next().
+		 */
+		@Override
+		public void remove() {
+			if(lastReturned == null)
+				throw new IllegalStateException();
+			checkForComodification();
+			// Skip over the node, same as remove(int) but we already have the previous node
+			if(beforeLast == null)
+				head = currentNode;
+			else
+				beforeLast.setNext(currentNode);
+			if(lastReturned == tail)
+				tail = beforeLast;
+			lastReturned.clear();
+			lastReturned = null;
+			size--;
+			modCount++;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
 		
 	}
 
@@ -0,0 +1,255 @@
+package data_structures;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Dictionary encoding for Strings: every distinct String gets a small int code, given in the order
+ * the Strings are first added (0, 1, 2...).
+ *
+ * A column of repeated values (genres, authors) can then be stored as an int[] of codes, and two
+ * values can be compared by comparing their codes. Each distinct String is kept only once.
+ *
+ * Codes are found with an open-addressing hash table (linear probing, power of two length, like
+ * IntObjectHashMap) whose slots hold code + 1, so 0 marks an empty slot.
+ *
+ * Values are never dropped one by one, since the dictionary doesn't know who still holds a code.
+ * The owner of the codes calls compact() once many of them are unused, and renumbers what it stored.
+ */
+public class StringDictionary {
+
+	// Grow the table when it is this full, so probe sequences stay short
+	private static final float LOAD_FACTOR = 0.5f;
+
+	// The distinct Strings, by code
+	private String[] values;
+	// Hash of values[code], compared before calling equals()
+	private int[] hashes;
+	// Number of distinct Strings
+	private int size;
+	// code + 1 of the String that hashes to each slot, 0 if the slot is empty
+	private int[] slots;
+
+	/**
+	 * Creates an empty dictionary.
+	 */
+	public StringDictionary() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty dictionary with room for expectedSize Strings before it has to grow.
+	 * @param expectedSize - (int) number of distinct Strings we expect
+	 */
+	public StringDictionary(int expectedSize) {
+		if(expectedSize < 0)
+			throw new IllegalArgumentException("Negative size: " + expectedSize);
+		int capacity = Math.max(4, expectedSize);
+		this.values = new String[capacity];
+		this.hashes = new int[capacity];
+		this.slots = new int[tableSize(capacity)];
+	}
+
+	/**
+	 * Returns the number of distinct Strings in the dictionary.
+	 * @return (int) the size, codes go from 0 to size() - 1
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the code of value, adding it to the dictionary if it's new.
+	 * @param value - (String) the value to encode, not null
+	 * @return (int) the code of value
+	 */
+	public int encode(String value) {
+		int hash = mix(value.hashCode());
+		int mask = this.slots.length - 1;
+		for(int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int code = this.slots[slot] - 1;
+			if(code < 0)
+				return insert(value, hash, slot);
+			if(this.hashes[code] == hash && this.values[code].equals(value))
+				return code;
+		}
+	}
+
+	/**
+	 * Returns the code of the String made of chars[start] to chars[end - 1], adding it if it's new.
+	 * A String is only created the first time a value is seen, so a file parser can call this for
+	 * every field without allocating anything for the values it has seen before.
+	 * @param chars - (char[]) holds the value
+	 * @param start - (int) position of the first character
+	 * @param end - (int) position after the last character
+	 * @return (int) the code of the value
+	 */
+	public int encode(char[] chars, int start, int end) {
+		int hash = hash(chars, start, end);
+		int mask = this.slots.length - 1;
+		for(int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int code = this.slots[slot] - 1;
+			if(code < 0)
+				return insert(new String(chars, start, end - start), hash, slot);
+			if(this.hashes[code] == hash && matches(this.values[code], chars, start, end))
+				return code;
+		}
+	}
+
+	/**
+	 * Returns the code of the String made of chars[start] to chars[end - 1] without adding it.
+	 * @param chars - (char[]) holds the value
+	 * @param start - (int) position of the first character
+	 * @param end - (int) position after the last character
+	 * @return (int) the code of the value, -1 if it's not in the dictionary
+	 */
+	public int code(char[] chars, int start, int end) {
+		int hash = hash(chars, start, end);
+		int mask = this.slots.length - 1;
+		for(int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int code = this.slots[slot] - 1;
+			if(code < 0)
+				return -1;
+			if(this.hashes[code] == hash && matches(this.values[code], chars, start, end))
+				return code;
+		}
+	}
+
+	/**
+	 * Returns the instance of value kept by the dictionary, adding value if it's new.
+	 * Like String.intern(), but only shared by the users of this dictionary.
+	 * @param value - (String) the value, not null
+	 * @return (String) a String equal to value, the same instance every time
+	 */
+	public String intern(String value) {
+		// encode() may replace the array, so read it after
+		int code = encode(value);
+		return this.values[code];
+	}
+
+	/**
+	 * Returns the code of value without adding it.
+	 * @param value - (String) the value to look for
+	 * @return (int) the code of value, -1 if it's not in the dictionary
+	 */
+	public int code(String value) {
+		if(value == null)
+			return -1;
+		int hash = mix(value.hashCode());
+		int mask = this.slots.length - 1;
+		for(int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int code = this.slots[slot] - 1;
+			if(code < 0)
+				return -1;
+			if(this.hashes[code] == hash && this.values[code].equals(value))
+				return code;
+		}
+	}
+
+	/**
+	 * Returns the String with the given code.
+	 * @param code - (int) a code returned by encode()
+	 * @return (String) the value
+	 * @throws IndexOutOfBoundsException if the code is not valid
+	 */
+	public String get(int code) {
+		if(code < 0 || code >= this.size)
+			throw new IndexOutOfBoundsException();
+		return this.values[code];
+	}
+
+	/**
+	 * Drops the values for which keep is false and renumbers the others 0, 1, 2... keeping their order.
+	 * Codes stored anywhere must be translated with the returned array, they are not valid anymore.
+	 * @param keep - (IntPredicate) called with every code, true to keep its value
+	 * @return (int[]) the new code of each old code, -1 for the dropped values
+	 */
+	public int[] compact(IntPredicate keep) {
+		int[] newCodes = new int[this.size];
+		int kept = 0;
+		for(int code = 0; code < this.size; code++) {
+			if(keep.test(code)) {
+				this.values[kept] = this.values[code];
+				this.hashes[kept] = this.hashes[code];
+				newCodes[code] = kept++;
+			}
+			else
+				newCodes[code] = -1;
+		}
+		// Let the dropped Strings be collected
+		Arrays.fill(this.values, kept, this.size, null);
+		this.size = kept;
+		rehash(tableSize(kept));
+		return newCodes;
+	}
+
+	/**
+	 * The hash encode(String) would use for the same characters: String.hashCode(), then mix().
+	 */
+	private static int hash(char[] chars, int start, int end) {
+		int hash = 0;
+		for(int i = start; i < end; i++)
+			hash = 31 * hash + chars[i];
+		return mix(hash);
+	}
+
+	private static boolean matches(String value, char[] chars, int start, int end) {
+		if(value.length() != end - start)
+			return false;
+		for(int i = 0; i < value.length(); i++) {
+			if(value.charAt(i) != chars[start + i])
+				return false;
+		}
+		return true;
+	}
+
+	private int insert(String value, int hash, int slot) {
+		int code = this.size;
+		if(code == this.values.length) {
+			if(code == Integer.MAX_VALUE - 8)
+				throw new OutOfMemoryError("StringDictionary can't hold more values");
+			int newCapacity = (int) Math.min(2L * code, Integer.MAX_VALUE - 8);
+			this.values = Arrays.copyOf(this.values, newCapacity);
+			this.hashes = Arrays.copyOf(this.hashes, newCapacity);
+		}
+		this.values[code] = value;
+		this.hashes[code] = hash;
+		this.size++;
+		if(this.size > this.slots.length * LOAD_FACTOR)
+			rehash(this.slots.length * 2);
+		else
+			this.slots[slot] = code + 1;
+		return code;
+	}
+
+	/**
+	 * Rebuilds the table with the given length, putting every code back in.
+	 */
+	private void rehash(int length) {
+		int[] newSlots = new int[length];
+		int mask = length - 1;
+		for(int code = 0; code < this.size; code++) {
+			int slot = this.hashes[code] & mask;
+			while(newSlots[slot] != 0)
+				slot = (slot + 1) & mask;
+			newSlots[slot] = code + 1;
+		}
+		this.slots = newSlots;
+	}
+
+	/**
+	 * Smallest power of two that keeps capacity entries under the load factor.
+	 */
+	private static int tableSize(int capacity) {
+		int needed = (int) Math.min(1 << 30, (long) Math.ceil(capacity / LOAD_FACTOR) + 1);
+		return Integer.highestOneBit(needed - 1) << 1;
+	}
+
+	/**
+	 * Spreads the bits of String.hashCode(), which are poor in the low bits for short similar Strings.
+	 */
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
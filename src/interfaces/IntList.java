@@ -0,0 +1,130 @@
+package interfaces;
+
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Interface that describes the behavior of a List of int values.
+ *
+ * Same idea as List<Integer>, but the values are stored and returned as int,
+ * so no Integer object is created for each value.
+ * Since values and positions are both int, removing by value is called removeValue.
+ */
+public interface IntList {
+	/**
+	 * Returns the size of the List.
+	 * @return (int) size of the list
+	 */
+	public int size();
+
+	/**
+	 * Returns whether the List is empty of not.
+	 * True if empty, false otherwise.
+	 * @return (boolean) whether the list is empty
+	 */
+	public boolean isEmpty();
+
+	/**
+	 * Adds a value to the end of the List
+	 * @param value - The value we wish to add to the List
+	 */
+	public void add(int value);
+
+	/**
+	 * Adds a value to the position given by index.
+	 * @param index - position we want to add the value to.
+	 * @param value - the value we wish to add
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 */
+	public void add(int index, int value);
+
+	/**
+	 * Returns the value at the given position
+	 * @param index - position of the value we want
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 * @return (int) value at position index
+	 */
+	public int get(int index);
+
+	/**
+	 * Replaces the value at the position given by index.
+	 * @param index - position we want to replace
+	 * @param value - the new value we want to place
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 * @return (int) the old value at position index (the replaced value)
+	 */
+	public int set(int index, int value);
+
+	/**
+	 * Removes the value at position index
+	 * @param index - The position of the value we want to remove
+	 * @return (int) The value that was removed.
+	 * @throws IndexOutOfBoundsException if the index is not valid
+	 */
+	public int remove(int index);
+
+	/**
+	 * Removes the first instance of value.
+	 * @param value - the value we want to remove
+	 * @return (boolean) Whether the value was found and removed. True if removed, false otherwise.
+	 */
+	public boolean removeValue(int value);
+
+	/**
+	 * Checks whether value is present in the List
+	 * @param value - the value we want to verify its existance
+	 * @return (boolean) whether value is present or not. True if present, false otherwise
+	 */
+	public boolean contains(int value);
+
+	/**
+	 * Empties the List.
+	 */
+	public void clear();
+
+	/**
+	 * Returns the position where value first appears.
+	 * @param value - value we want to search for
+	 * @return (int) position where value first appears in the List, -1 if it's not present
+	 */
+	public int firstIndex(int value);
+
+	/**
+	 * Returns the position where value last appears.
+	 * @param value - value we want to search for
+	 * @return (int) position where value last appears in the List, -1 if it's not present
+	 */
+	public int lastIndex(int value);
+
+	/**
+	 * Sorts the values in ascending order.
+	 */
+	public void sort();
+
+	/**
+	 * Finds value in a List sorted with sort(), in O(log n).
+	 * @param value - value we want to search for
+	 * @return (int) a position of value if present. Otherwise (-(insertion point) - 1),
+	 * where the insertion point is where value would have to be added to keep the List sorted.
+	 * The result is undefined if the List is not sorted.
+	 */
+	public int binarySearch(int value);
+
+	/**
+	 * Returns an iterator over the values that doesn't box them: use nextInt() instead of next().
+	 * @return (PrimitiveIterator.OfInt) iterator over the values in order
+	 */
+	public PrimitiveIterator.OfInt iterator();
+
+	/**
+	 * Calls action with every value, in order.
+	 * @param action - what to do with each value
+	 */
+	public void forEach(IntConsumer action);
+
+	/**
+	 * Returns the values in a new array.
+	 * @return (int[]) array of length size() with the values in order
+	 */
+	public int[] toArray();
+}
@@ -88,6 +88,23 @@ public interface List<E> extends Iterable<E> {
 	 */
 	public int removeAll(E obj);
 	
+	/**
+	 * Removes every element for which the filter returns true, in a single pass over the List.
+	 * The filter is called once per element, in order.
+	 * @param filter - decides which elements are removed
+	 * @return (int) number of elements that were removed.
+	 */
+	public int removeIf(FilterFunction<E> filter);
+	
+	/**
+	 * Keeps only the elements for which the filter returns true, in a single pass over the List.
+	 * @param filter - decides which elements are kept
+	 * @return (int) number of elements that were removed.
+	 */
+	public default int retainIf(FilterFunction<E> filter) {
+		return removeIf(e -> !filter.filter(e));
+	}
+	
 	/**
 	 * Returns the position where an instance of obj first appears.
 	 * @param obj - obj we want to search for
@@ -0,0 +1,142 @@
+package main;
+
+import java.util.function.Function;
+
+import data_structures.ArrayList;
+import data_structures.IntArrayList;
+import data_structures.StringDictionary;
+import interfaces.IntList;
+import interfaces.List;
+
+/**
+ * Hash index over one String attribute of the books (title, author or genre): for each value, the list
+ * of books that have it. Lookups cost one hash of the value plus the size of the result.
+ *
+ * The value is turned into its code in the catalog's StringDictionary for that attribute, and the books
+ * of each value are kept in an ArrayList, found by code. Appending keeps them in the order they were
+ * indexed, which is the catalog order. Removing one book is linear in the books of its value, which is
+ * never more than the scan removeBook already does over the catalog. For bulk removals, clear the
+ * index and add the remaining books again.
+ *
+ * Like CatalogStatistics, only changes made through LibraryCatalog are tracked: changing a Book's
+ * attribute with its setter leaves the book under its old value.
+ *
+ * Values whose books were all removed keep their code in the dictionary. compactIfSparse() drops
+ * them once they outnumber the values still in use.
+ */
+class AttributeIndex {
+
+	private final StringDictionary dictionary;
+	// Reads the indexed attribute of a book
+	private final Function<Book, String> attribute;
+	// Books with each value, by the value's code. null for codes that never had a book.
+	private List<List<Book>> books = new ArrayList<>();
+	// Number of values that have at least one book
+	private int valuesInUse;
+
+	/**
+	 * @param dictionary Dictionary of the attribute's values, shared with the catalog.
+	 * @param attribute Reads the attribute of a book, for example Book::getGenre.
+	 */
+	AttributeIndex(StringDictionary dictionary, Function<Book, String> attribute) {
+		this.dictionary = dictionary;
+		this.attribute = attribute;
+	}
+
+	void add(Book book) {
+		int code = this.dictionary.encode(this.attribute.apply(book));
+		while(this.books.size() <= code)
+			this.books.add(null);
+		List<Book> list = this.books.get(code);
+		if(list == null) {
+			list = new ArrayList<>(1);
+			this.books.set(code, list);
+		}
+		if(list.isEmpty())
+			this.valuesInUse++;
+		list.add(book);
+	}
+
+	void remove(Book book) {
+		List<Book> list = booksWith(this.attribute.apply(book));
+		if(list != null && list.remove(book) && list.isEmpty())
+			this.valuesInUse--;
+	}
+
+	/**
+	 * Removes every book. The dictionary keeps its codes.
+	 */
+	void clear() {
+		this.books.clear();
+		this.valuesInUse = 0;
+	}
+
+	/**
+	 * Drops the values that have no books from the dictionary, if there are more of them than values
+	 * in use, and renumbers the lists. Called after removals, it costs O(values) but runs at most once
+	 * for every that many values left unused, so the dictionary stays within twice what is in use.
+	 *
+	 * Only for dictionaries whose values all come from this index's books (not for the genres, whose
+	 * codes are kept for good).
+	 */
+	void compactIfSparse() {
+		if(this.dictionary.size() <= 2 * this.valuesInUse + 64)
+			return;
+		List<List<Book>> old = this.books;
+		int[] newCodes = this.dictionary.compact(code -> code < old.size() && old.get(code) != null && !old.get(code).isEmpty());
+		this.books = new ArrayList<>(this.valuesInUse);
+		for(int code = 0; code < newCodes.length; code++) {
+			if(newCodes[code] != -1)
+				this.books.add(old.get(code));
+		}
+	}
+
+	/**
+	 * Returns the books whose attribute equals value, in catalog order.
+	 *
+	 * @param value The value to look for.
+	 * @return A new list with the books, empty if there are none.
+	 */
+	List<Book> find(String value) {
+		List<Book> list = booksWith(value);
+		ArrayList<Book> result = new ArrayList<>(list == null ? 0 : list.size());
+		if(list != null)
+			result.addAll(list);
+		return result;
+	}
+
+	/**
+	 * Returns how many books have value as their attribute, in O(1).
+	 *
+	 * @param value The value to look for.
+	 * @return The number of books.
+	 */
+	int count(String value) {
+		List<Book> list = booksWith(value);
+		return list == null ? 0 : list.size();
+	}
+
+	/**
+	 * Returns the ids of the books whose attribute equals value.
+	 *
+	 * @param value The value to look for.
+	 * @return The ids, in increasing order.
+	 */
+	IntList ids(String value) {
+		List<Book> list = booksWith(value);
+		IntArrayList ids = new IntArrayList(list == null ? 0 : list.size());
+		if(list != null) {
+			for(Book book: list)
+				ids.add(book.getId());
+		}
+		ids.sort();
+		return ids;
+	}
+
+	private List<Book> booksWith(String value) {
+		int code = this.dictionary.code(value);
+		if(code == -1 || code >= this.books.size())
+			return null;
+		return this.books.get(code);
+	}
+}
@@ -7,6 +7,8 @@ import java.time.temporal.ChronoUnit;
  */
 public class Book {
 	
+	// The library's current day. Fees are measured up to it, and books checked out or added get it as their last check out.
+	static final LocalDate FEE_DATE = LocalDate.of(2023, 9, 15);
 	
 	private String title;
 	private String author;
@@ -75,8 +77,8 @@ public class Book {
 		 * 
 		 * Both the title and author are in uppercase.
 		 */
-		String capitalizedTitle = title.toUpperCase();
-		String capitalizedAuthor = author.toUpperCase();
+		String capitalizedTitle = getTitle().toUpperCase();
+		String capitalizedAuthor = getAuthor().toUpperCase();
 		
 		return capitalizedTitle + " BY " + capitalizedAuthor;
 		// Return the capitalized title and author in the specified format
@@ -92,15 +94,24 @@ public class Book {
 		float fee = 0;	
 		if(this.isCheckedOut()) {		// Check if the book is checked out
 			
-			float days = ChronoUnit.DAYS.between(this.lastCheckOut, LocalDate.of(2023, 9, 15));		 // Calculate the number of days the book has been checked out
+			float days = ChronoUnit.DAYS.between(this.getLastCheckOut(), FEE_DATE);		 // Calculate the number of days the book has been checked out
 				
-			if(days == 31) {
-				fee = 10;  
-			} else if(days > 31) {
-				fee =  (float) (10 + (1.5 * (days - 31.0)));
-			}
+			fee = feeForDays(days);
 		}
 			
 		return fee;		 // Return the calculated fee for the checked-out book
 	}
+	/**
+	 * The fee of a book that has been checked out for the given number of days.
+	 * Shared with ColumnarBookStore, which computes fees without building a Book.
+	 */
+	static float feeForDays(float days) {
+		float fee = 0;
+		if(days == 31) {
+			fee = 10;  
+		} else if(days > 31) {
+			fee =  (float) (10 + (1.5 * (days - 31.0)));
+		}
+		return fee;
+	}
 }
@@ -0,0 +1,341 @@
+package main;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+import data_structures.IntArrayList;
+import interfaces.FilterFunction;
+import interfaces.IntList;
+
+/**
+ * A search over the books built from terms the catalog understands, so LibraryCatalog.search() can
+ * answer it with its indexes instead of scanning every book.
+ *
+ * Terms:
+ *  - genre(g), author(a), title(t): the attribute equals the value. Answered by the secondary indexes.
+ *  - titleContains(text): the title contains the text, in any case. The whole words of the text (the
+ *    ones that don't touch its start or end, which could be part of a longer word) are looked up in the
+ *    keyword index.
+ *  - checkedOut(b), lastCheckOutBetween(from, to): no index, checked book by book.
+ *  - matching(filter): any FilterFunction, checked book by book.
+ * and combine them with and(), or() and not().
+ *
+ * The plan: for an and, the term whose index gives the fewest books is looked up first, and the book id
+ * sets of the other indexed terms are intersected with it while they aren't bigger than the books found
+ * so far (past that, checking the found books one by one is cheaper than reading the bigger set). An or
+ * is the union of its terms' sets, so it needs an index on every one of them. Whatever the indexes give,
+ * the whole query is then checked on each book, so the other terms only ever look at those books. A
+ * query with no usable index is a scan.
+ *
+ * A BookQuery is also a FilterFunction<Book>, so it can be given to searchForBook() or removeBooks().
+ */
+public abstract class BookQuery implements FilterFunction<Book> {
+
+	/**
+	 * Books of this genre.
+	 * @param genre The genre, compared with equals().
+	 * @return The query.
+	 */
+	public static BookQuery genre(String genre) {
+		return new Equals("genre", genre, Book::getGenre) {
+			@Override
+			AttributeIndex index(LibraryCatalog catalog) {
+				return catalog.genreIndex;
+			}
+		};
+	}
+	/**
+	 * Books by this author.
+	 * @param author The author, compared with equals().
+	 * @return The query.
+	 */
+	public static BookQuery author(String author) {
+		return new Equals("author", author, Book::getAuthor) {
+			@Override
+			AttributeIndex index(LibraryCatalog catalog) {
+				return catalog.authorIndex;
+			}
+		};
+	}
+	/**
+	 * Books with exactly this title.
+	 * @param title The title, compared with equals().
+	 * @return The query.
+	 */
+	public static BookQuery title(String title) {
+		return new Equals("title", title, Book::getTitle) {
+			@Override
+			AttributeIndex index(LibraryCatalog catalog) {
+				return catalog.titleIndex;
+			}
+		};
+	}
+	/**
+	 * Books whose title contains the text, in any case.
+	 * @param text The text to look for.
+	 * @return The query.
+	 */
+	public static BookQuery titleContains(String text) {
+		return new TitleContains(text);
+	}
+	/**
+	 * Books that are (or aren't) checked out.
+	 * @param checkedOut true for the checked out books.
+	 * @return The query.
+	 */
+	public static BookQuery checkedOut(boolean checkedOut) {
+		return matching(book -> book.isCheckedOut() == checkedOut);
+	}
+	/**
+	 * Books last checked out between two dates, both included.
+	 * @param from The first date.
+	 * @param to The last date.
+	 * @return The query.
+	 */
+	public static BookQuery lastCheckOutBetween(LocalDate from, LocalDate to) {
+		return matching(book -> book.getLastCheckOut() != null && !book.getLastCheckOut().isBefore(from)
+				&& !book.getLastCheckOut().isAfter(to));
+	}
+	/**
+	 * Books accepted by a filter. The planner can't look inside it, so it's checked book by book.
+	 * @param filter The filter.
+	 * @return The query.
+	 */
+	public static BookQuery matching(FilterFunction<Book> filter) {
+		return new BookQuery() {
+			@Override
+			public boolean filter(Book book) {
+				return filter.filter(book);
+			}
+		};
+	}
+
+	/**
+	 * Books that match this query and the other one.
+	 * @param other The other query.
+	 * @return The query.
+	 */
+	public BookQuery and(BookQuery other) {
+		return new And(this, other);
+	}
+	/**
+	 * Books that match this query or the other one.
+	 * @param other The other query.
+	 * @return The query.
+	 */
+	public BookQuery or(BookQuery other) {
+		return new Or(this, other);
+	}
+	/**
+	 * Books that don't match this query.
+	 * @return The query.
+	 */
+	public BookQuery not() {
+		BookQuery query = this;
+		return matching(book -> !query.filter(book));
+	}
+
+	/**
+	 * Largest number of book ids candidates() can return, -1 if the indexes can't answer this query.
+	 * The caller holds the catalog's read lock.
+	 */
+	int estimate(LibraryCatalog catalog) {
+		return -1;
+	}
+	/**
+	 * Ids of every book that can match (and maybe some that don't), in increasing order, or null if
+	 * the indexes can't answer this query (estimate() is -1) and the catalog has to be scanned.
+	 * The caller holds the catalog's read lock.
+	 */
+	IntList candidates(LibraryCatalog catalog) {
+		return null;
+	}
+
+	/**
+	 * An attribute equal to a value, looked up in the attribute's index.
+	 */
+	private abstract static class Equals extends BookQuery {
+		private final String name;
+		private final String value;
+		private final Function<Book, String> attribute;
+
+		Equals(String name, String value, Function<Book, String> attribute) {
+			this.name = name;
+			this.value = value;
+			this.attribute = attribute;
+		}
+
+		abstract AttributeIndex index(LibraryCatalog catalog);
+
+		@Override
+		public boolean filter(Book book) {
+			return this.value.equals(this.attribute.apply(book));
+		}
+		@Override
+		int estimate(LibraryCatalog catalog) {
+			return index(catalog).count(this.value);
+		}
+		@Override
+		IntList candidates(LibraryCatalog catalog) {
+			return index(catalog).ids(this.value);
+		}
+		@Override
+		public String toString() {
+			return this.name + " = " + this.value;
+		}
+	}
+
+	private static class TitleContains extends BookQuery {
+		private final String text;
+		// The words of text that can't be part of a longer word of the title, separated by spaces
+		private final String wholeWords;
+
+		TitleContains(String text) {
+			this.text = text;
+			StringBuilder words = new StringBuilder();
+			int start = 0;
+			for(int i = 0; i <= text.length(); i++) {
+				if(i < text.length() && Character.isLetterOrDigit(text.charAt(i)))
+					continue;
+				// A word is whole if there is a separator before it and after it inside the text
+				if(start > 0 && i > start && i < text.length())
+					words.append(text, start, i).append(' ');
+				start = i + 1;
+			}
+			this.wholeWords = words.toString();
+		}
+
+		@Override
+		public boolean filter(Book book) {
+			String title = book.getTitle();
+			for(int i = 0; i + this.text.length() <= title.length(); i++) {
+				if(title.regionMatches(true, i, this.text, 0, this.text.length()))
+					return true;
+			}
+			return false;
+		}
+		@Override
+		int estimate(LibraryCatalog catalog) {
+			if(this.wholeWords.isEmpty())
+				return -1;
+			return catalog.keywordIndex().estimate(this.wholeWords);
+		}
+		@Override
+		IntList candidates(LibraryCatalog catalog) {
+			if(this.wholeWords.isEmpty())
+				return null;
+			// Books with every word in the title or the author, filter() leaves out the ones that only have them in the author
+			return catalog.keywordIndex().matchAll(this.wholeWords);
+		}
+		@Override
+		public String toString() {
+			return "title contains " + this.text;
+		}
+	}
+
+	private static class And extends BookQuery {
+		private final BookQuery left;
+		private final BookQuery right;
+
+		And(BookQuery left, BookQuery right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public boolean filter(Book book) {
+			return this.left.filter(book) && this.right.filter(book);
+		}
+		@Override
+		int estimate(LibraryCatalog catalog) {
+			int left = this.left.estimate(catalog);
+			int right = this.right.estimate(catalog);
+			if(left == -1 || right == -1)
+				return Math.max(left, right);
+			return Math.min(left, right);
+		}
+		@Override
+		IntList candidates(LibraryCatalog catalog) {
+			int left = this.left.estimate(catalog);
+			int right = this.right.estimate(catalog);
+			BookQuery first = right == -1 || (left != -1 && left <= right) ? this.left : this.right;
+			BookQuery second = first == this.left ? this.right : this.left;
+			IntList ids = first.candidates(catalog);
+			int secondEstimate = first == this.left ? right : left;
+			if(ids == null || secondEstimate == -1 || secondEstimate > ids.size())
+				return ids;
+			return intersect(ids, second.candidates(catalog));
+		}
+		@Override
+		public String toString() {
+			return "(" + this.left + " and " + this.right + ")";
+		}
+	}
+
+	private static class Or extends BookQuery {
+		private final BookQuery left;
+		private final BookQuery right;
+
+		Or(BookQuery left, BookQuery right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public boolean filter(Book book) {
+			return this.left.filter(book) || this.right.filter(book);
+		}
+		@Override
+		int estimate(LibraryCatalog catalog) {
+			int left = this.left.estimate(catalog);
+			int right = this.right.estimate(catalog);
+			if(left == -1 || right == -1)
+				return -1;
+			return (int) Math.min(Integer.MAX_VALUE, (long) left + right);
+		}
+		@Override
+		IntList candidates(LibraryCatalog catalog) {
+			// A term with no index can match any book, so the union would be every book
+			IntList left = this.left.candidates(catalog);
+			IntList right = left == null ? null : this.right.candidates(catalog);
+			return right == null ? null : union(left, right);
+		}
+		@Override
+		public String toString() {
+			return "(" + this.left + " or " + this.right + ")";
+		}
+	}
+
+	private static IntList intersect(IntList a, IntList b) {
+		IntArrayList result = new IntArrayList(Math.min(a.size(), b.size()));
+		int i = 0;
+		int j = 0;
+		while(i < a.size() && j < b.size()) {
+			int x = a.get(i);
+			int y = b.get(j);
+			if(x == y)
+				result.add(x);
+			if(x <= y)
+				i++;
+			if(y <= x)
+				j++;
+		}
+		return result;
+	}
+
+	private static IntList union(IntList a, IntList b) {
+		IntArrayList result = new IntArrayList(a.size() + b.size());
+		int i = 0;
+		int j = 0;
+		while(i < a.size() || j < b.size()) {
+			int x = i < a.size() ? a.get(i) : Integer.MAX_VALUE;
+			int y = j < b.size() ? b.get(j) : Integer.MAX_VALUE;
+			result.add(Math.min(x, y));
+			if(x <= y)
+				i++;
+			if(y <= x)
+				j++;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,86 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the catalog report, one row at a time, for any store that can list its genre counts,
+ * checked out books and user fees. LibraryCatalog and ColumnarBookStore both go through it, so
+ * the format is only written down here.
+ *
+ * The sections come in a fixed order: genres, then checked out books, then users. Each one is
+ * opened by a start method, gets its rows and is closed by an end method with its total.
+ */
+class CatalogReportWriter {
+
+	private final Writer output;
+	// Sum of the fees written so far, for the TOTAL DUE line
+	private float totalDue;
+
+	/**
+	 * @param output Where the report is written. The caller buffers and closes it.
+	 */
+	CatalogReportWriter(Writer output) {
+		this.output = output;
+	}
+
+	void startGenres() throws IOException {
+		this.output.write("\t\t\t\tREPORT\n\n");
+		this.output.write("\t\tSUMMARY OF BOOKS\n");
+		this.output.write("GENRE\t\t\t\t\t\tAMOUNT\n");
+	}
+
+	void genre(String genre, int count) throws IOException {
+		this.output.write(genre);
+		// Line the amounts up with the AMOUNT column (6 tab stops of 8 characters)
+		for(int tabs = Math.max(1, 6 - genre.length() / 8); tabs > 0; tabs--) {
+			this.output.write('\t');
+		}
+		this.output.write(count + "\n");
+	}
+
+	void endGenres(int totalBooks) throws IOException {
+		this.output.write("====================================================\n");
+		this.output.write("\t\t\tTOTAL AMOUNT OF BOOKS\t" + totalBooks + "\n\n");
+	}
+
+	void startCheckedOut() throws IOException {
+		this.output.write("\t\t\tBOOKS CURRENTLY CHECKED OUT\n\n");
+	}
+
+	/**
+	 * Writes a checked out book the way Book.toString does: {TITLE} BY {AUTHOR}.
+	 */
+	void checkedOutBook(String title, String author) throws IOException {
+		this.output.write(title.toUpperCase());
+		this.output.write(" BY ");
+		this.output.write(author.toUpperCase());
+		this.output.write('\n');
+	}
+
+	void endCheckedOut(int checkedOutCount) throws IOException {
+		this.output.write("====================================================\n");
+		this.output.write("\t\t\tTOTAL AMOUNT OF BOOKS\t" + checkedOutCount + "\n\n");
+	}
+
+	void startUsers() throws IOException {
+		this.output.write("\n\n\t\tUSERS THAT OWE BOOK FEES\n\n");
+	}
+
+	/**
+	 * Writes a user's name and fee with two decimal places, and adds the fee to the total due.
+	 */
+	void userFee(String name, float fee) throws IOException {
+		this.totalDue += fee;
+		this.output.write(name);
+		this.output.write("\t\t\t\t\t$");
+		this.output.write(String.format("%.2f", fee));
+		this.output.write('\n');
+	}
+
+	void endUsers() throws IOException {
+		this.output.write("====================================================\n");
+		this.output.write("\t\t\t\tTOTAL DUE\t$" + String.format("%.2f", this.totalDue) + "\n\n\n");
+		this.output.write("\n\n");
+	}
+}
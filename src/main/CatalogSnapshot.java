@@ -0,0 +1,391 @@
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import data_structures.ArrayList;
+import data_structures.IntArrayList;
+import data_structures.IntObjectHashMap;
+import data_structures.SinglyLinkedList;
+import interfaces.IntList;
+import interfaces.List;
+
+/**
+ * Binary snapshot of the books and users of a catalog, so it can be restored without parsing the CSVs.
+ *
+ * Layout (all numbers are big endian):
+ *  - Header: magic "LCAT" (int), format version (int), id of the next book the catalog adds (int)
+ *  - String table: count (int), then for each string its UTF-8 length (int) and bytes.
+ *    Titles, authors, genres and user names are stored once here and referenced by position.
+ *  - Books: count (int), then per book 21 bytes: id (int), title, author and genre string
+ *    references (int each), last checkout as epoch day (int), checked out (byte, 0 or 1).
+ *  - Held books: books removed from the catalog that users still have in their checked out list,
+ *    stored like the books above.
+ *  - Users: count (int), then per user: id (int), name reference (int), compact (byte, 0 or 1),
+ *    number of checked out books (int) and the id of each of those books (int each). Compact users
+ *    keep every id they had, even the ids of removed books they can't find anymore.
+ *  - Trailer: CRC32 of every byte before it (int).
+ */
+class CatalogSnapshot {
+
+	// "LCAT" in ASCII
+	static final int MAGIC = 0x4C434154;
+	// Bump when the layout changes. Older versions are rejected.
+	static final int VERSION = 2;
+
+	private final List<Book> books;
+	private final List<User> users;
+	private final IntObjectHashMap<Book> bookIndex;
+	private final int nextId;
+
+	private CatalogSnapshot(List<Book> books, List<User> users, IntObjectHashMap<Book> bookIndex, int nextId) {
+		this.books = books;
+		this.users = users;
+		this.bookIndex = bookIndex;
+		this.nextId = nextId;
+	}
+
+	List<Book> getBooks() {
+		return this.books;
+	}
+
+	List<User> getUsers() {
+		return this.users;
+	}
+
+	IntObjectHashMap<Book> getBookIndex() {
+		return this.bookIndex;
+	}
+
+	int getNextId() {
+		return this.nextId;
+	}
+
+	/**
+	 * Writes the books and users to a snapshot file, replacing it if it exists.
+	 * The file is written next to the target first and then moved over it, so a crash while saving
+	 * leaves the previous snapshot as it was.
+	 *
+	 * @param path Path of the snapshot file.
+	 * @param books Books to save, in catalog order.
+	 * @param bookIndex The catalog's id index over books.
+	 * @param users Users to save, in catalog order.
+	 * @param nextId Id of the next book the catalog adds.
+	 * @throws IOException If an IO error occurs.
+	 */
+	static void write(String path, List<Book> books, IntObjectHashMap<Book> bookIndex, List<User> users, int nextId) throws IOException {
+		// Removed books that users still hold, once each
+		List<Book> heldBooks = new ArrayList<>();
+		IntObjectHashMap<Book> held = new IntObjectHashMap<>();
+		for(User user: users) {
+			if(user.isCompact())
+				continue;
+			for(Book book: user.getCheckedOutList()) {
+				if(bookIndex.get(book.getId()) == null && held.putIfAbsent(book.getId(), book) == null)
+					heldBooks.add(book);
+			}
+		}
+
+		// Assign every distinct string a position in the table
+		HashMap<String, Integer> positions = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		for(Book book: books) {
+			intern(book.getTitle(), positions, strings);
+			intern(book.getAuthor(), positions, strings);
+			intern(book.getGenre(), positions, strings);
+		}
+		for(Book book: heldBooks) {
+			intern(book.getTitle(), positions, strings);
+			intern(book.getAuthor(), positions, strings);
+			intern(book.getGenre(), positions, strings);
+		}
+		for(User user: users)
+			intern(user.getName(), positions, strings);
+
+		Path target = Paths.get(path).toAbsolutePath();
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			CRC32 crc = new CRC32();
+			// The buffer sits above the checksum so the CRC is updated in bulk, not one byte at a time
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new CheckedOutputStream(Files.newOutputStream(temporary), crc), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(nextId);
+
+				out.writeInt(strings.size());
+				for(String s: strings) {
+					byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+
+				writeBooks(out, books, positions);
+				writeBooks(out, heldBooks, positions);
+
+				out.writeInt(users.size());
+				for(User user: users) {
+					IntList checkedOut = user.getCheckedOutIds();
+					out.writeInt(user.getId());
+					out.writeInt(positions.get(user.getName()));
+					out.writeByte(user.isCompact() ? 1 : 0);
+					out.writeInt(checkedOut.size());
+					for(int i = 0; i < checkedOut.size(); i++)
+						out.writeInt(checkedOut.get(i));
+				}
+
+				// The checksum covers everything written so far
+				out.flush();
+				out.writeInt((int) crc.getValue());
+			}
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			// Only left behind if something failed
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static void writeBooks(DataOutputStream out, List<Book> books, HashMap<String, Integer> positions) throws IOException {
+		out.writeInt(books.size());
+		for(Book book: books) {
+			out.writeInt(book.getId());
+			out.writeInt(positions.get(book.getTitle()));
+			out.writeInt(positions.get(book.getAuthor()));
+			out.writeInt(positions.get(book.getGenre()));
+			out.writeInt((int) book.getLastCheckOut().toEpochDay());
+			out.writeByte(book.isCheckedOut() ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Reads a snapshot file written by write().
+	 *
+	 * @param path Path of the snapshot file.
+	 * @param bookLookup How the compact users of the file find their books (see User).
+	 * @return The books, users and id index stored in the file.
+	 * @throws IOException If an IO error occurs, or the file is not a valid snapshot of this version.
+	 */
+	static CatalogSnapshot read(String path, IntFunction<Book> bookLookup) throws IOException {
+		try(SnapshotInput in = new SnapshotInput(path)) {
+			if(in.readInt() != MAGIC)
+				throw new IOException(path + " is not a catalog snapshot");
+			int version = in.readInt();
+			if(version != VERSION)
+				throw new IOException(path + " has snapshot version " + version + ", expected " + VERSION);
+			int nextId = in.readInt();
+
+			String[] strings = new String[in.readCount(4)];
+			for(int i = 0; i < strings.length; i++)
+				strings[i] = in.readString(in.readCount(1));
+
+			int bookCount = in.readCount(21);
+			List<Book> books = new ArrayList<>(bookCount);
+			IntObjectHashMap<Book> bookIndex = new IntObjectHashMap<>(bookCount);
+			for(int i = 0; i < bookCount; i++)
+				books.add(readBook(in, strings, bookIndex, path));
+			int heldCount = in.readCount(21);
+			IntObjectHashMap<Book> held = new IntObjectHashMap<>(heldCount);
+			for(int i = 0; i < heldCount; i++)
+				readBook(in, strings, held, path);
+
+			int userCount = in.readCount(13);
+			int[] userIds = new int[userCount];
+			String[] names = new String[userCount];
+			boolean[] compact = new boolean[userCount];
+			int[][] bookIds = new int[userCount][];
+			for(int i = 0; i < userCount; i++) {
+				userIds[i] = in.readInt();
+				names[i] = string(strings, in.readInt(), path);
+				compact[i] = in.readByte() != 0;
+				bookIds[i] = new int[in.readCount(4)];
+				for(int j = 0; j < bookIds[i].length; j++)
+					bookIds[i][j] = in.readInt();
+			}
+
+			int expected = in.checksum();
+			if(in.readInt() != expected)
+				throw new IOException(path + " is corrupted (checksum mismatch)");
+
+			// The checksum passed, so anything wrong from here on was written that way
+			for(Book book: books) {
+				if(book.getId() >= nextId || held.containsKey(book.getId()))
+					throw new IOException(path + " is corrupted (book ID " + book.getId() + " doesn't fit next ID " + nextId + ")");
+			}
+			for(Book book: held) {
+				if(book.getId() >= nextId)
+					throw new IOException(path + " is corrupted (book ID " + book.getId() + " doesn't fit next ID " + nextId + ")");
+			}
+			List<User> users = new ArrayList<>(userCount);
+			for(int i = 0; i < userCount; i++) {
+				if(compact[i]) {
+					users.add(new User(userIds[i], names[i], IntArrayList.of(bookIds[i]), bookLookup));
+					continue;
+				}
+				List<Book> checkedOut = new SinglyLinkedList<>();
+				for(int bookID: bookIds[i]) {
+					Book book = bookIndex.get(bookID);
+					if(book == null)
+						book = held.get(bookID);
+					if(book == null)
+						throw new IOException(path + " is corrupted (user " + userIds[i] + " references unknown book ID " + bookID + ")");
+					checkedOut.add(book);
+				}
+				users.add(new User(userIds[i], names[i], checkedOut));
+			}
+			return new CatalogSnapshot(books, users, bookIndex, nextId);
+		}
+	}
+
+	private static Book readBook(SnapshotInput in, String[] strings, IntObjectHashMap<Book> index, String path) throws IOException {
+		int id = in.readInt();
+		String title = string(strings, in.readInt(), path);
+		String author = string(strings, in.readInt(), path);
+		String genre = string(strings, in.readInt(), path);
+		LocalDate lastCheckOut = epochDay(in.readInt(), path);
+		boolean checkedOut = in.readByte() != 0;
+		Book book = new Book(id, title, author, genre, lastCheckOut, checkedOut);
+		if(index.putIfAbsent(id, book) != null)
+			throw new IOException(path + " is corrupted (book ID " + id + " appears twice)");
+		return book;
+	}
+
+	private static void intern(String s, HashMap<String, Integer> positions, List<String> strings) {
+		if(!positions.containsKey(s)) {
+			positions.put(s, strings.size());
+			strings.add(s);
+		}
+	}
+
+	private static LocalDate epochDay(int day, String path) throws IOException {
+		try {
+			return LocalDate.ofEpochDay(day);
+		} catch(DateTimeException e) {
+			throw new IOException(path + " is corrupted (date " + day + " out of range)", e);
+		}
+	}
+
+	private static String string(String[] strings, int position, String path) throws IOException {
+		if(position < 0 || position >= strings.length)
+			throw new IOException(path + " is corrupted (string reference " + position + " out of range)");
+		return strings[position];
+	}
+
+	/**
+	 * Reads big endian values from a file through a reusable ByteBuffer.
+	 * The CRC32 is updated in bulk with every byte that has been consumed, right before the buffer
+	 * is refilled or when checksum() is called.
+	 */
+	private static class SnapshotInput implements Closeable {
+		private final String path;
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+		private final CRC32 crc = new CRC32();
+		// Bytes of the file that haven't been read into the buffer yet
+		private long unread;
+		// Position in buffer up to which the bytes were already added to the CRC
+		private int checked;
+
+		SnapshotInput(String path) throws IOException {
+			this.path = path;
+			this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+			this.unread = this.channel.size();
+			// Start empty, the first read fills it
+			this.buffer.limit(0);
+		}
+
+		int readInt() throws IOException {
+			require(4);
+			return this.buffer.getInt();
+		}
+
+		/**
+		 * Reads a count of items that take at least bytesPerItem bytes each, and checks that many items
+		 * can fit in what is left of the file. This way a corrupted count fails here instead of
+		 * making us allocate a huge array.
+		 */
+		int readCount(int bytesPerItem) throws IOException {
+			int count = readInt();
+			long left = this.unread + this.buffer.remaining();
+			if(count < 0 || (long) count * bytesPerItem > left)
+				throw new IOException(this.path + " is corrupted (invalid count " + count + ")");
+			return count;
+		}
+
+		byte readByte() throws IOException {
+			require(1);
+			return this.buffer.get();
+		}
+
+		String readString(int length) throws IOException {
+			if(length <= this.buffer.capacity()) {
+				require(length);
+				String s = new String(this.buffer.array(), this.buffer.position(), length, StandardCharsets.UTF_8);
+				this.buffer.position(this.buffer.position() + length);
+				return s;
+			}
+			// Longer than the whole buffer, copy it in pieces
+			byte[] bytes = new byte[length];
+			int copied = 0;
+			while(copied < length) {
+				require(1);
+				int n = Math.min(length - copied, this.buffer.remaining());
+				this.buffer.get(bytes, copied, n);
+				copied += n;
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Returns the CRC32 of every byte consumed so far.
+		 */
+		int checksum() {
+			updateCrc();
+			return (int) this.crc.getValue();
+		}
+
+		/**
+		 * Makes sure at least n bytes are left in the buffer.
+		 */
+		private void require(int n) throws IOException {
+			if(this.buffer.remaining() >= n)
+				return;
+			updateCrc();
+			this.buffer.compact();
+			this.checked = 0;
+			while(this.buffer.position() < n) {
+				int read = this.channel.read(this.buffer);
+				if(read < 0)
+					throw new IOException(this.path + " is truncated");
+				this.unread -= read;
+			}
+			this.buffer.flip();
+		}
+
+		private void updateCrc() {
+			int position = this.buffer.position();
+			this.crc.update(this.buffer.array(), this.checked, position - this.checked);
+			this.checked = position;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package main;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import data_structures.ArrayList;
+import data_structures.IntObjectHashMap;
+import interfaces.List;
+
+/**
+ * Live aggregates of a LibraryCatalog: books per genre, the set of checked out books and the fees
+ * each user owes. They are computed once when the catalog is built and then updated by addBook,
+ * removeBook, checkOutBook and returnBook, so reading them never scans the catalog.
+ *
+ * Only changes made through LibraryCatalog are tracked. Changing a Book directly with its setters
+ * leaves these numbers stale.
+ *
+ * The genre counts only change while the catalog's write lock is held, and their methods are
+ * synchronized. Check outs and returns run on many threads at once under different stripe locks, so
+ * what they update takes no lock: the checked out books are a concurrent set, the count is a LongAdder
+ * and each user's fees are an atomic float. Two check outs of books on different stripes never wait
+ * for each other here.
+ */
+public class CatalogStatistics {
+
+	// Genres in the order they were first seen
+	private final List<String> genres = new ArrayList<>();
+	// Number of books per genre. int[1] so we can increment it without boxing.
+	private final HashMap<String, int[]> genreCounts = new HashMap<>();
+	// Position of each book in the catalog, by identity so a Book shared with another catalog keeps its own
+	// order in each. Only changed with the catalog's write lock held, so check outs can read it without a lock.
+	private final IdentityHashMap<Book, Integer> catalogOrder = new IdentityHashMap<>();
+	// Checked out books, in catalog order
+	private final ConcurrentSkipListSet<Book> checkedOut = new ConcurrentSkipListSet<>(Comparator.comparingInt(this.catalogOrder::get));
+	// Size of checkedOut, which ConcurrentSkipListSet can only count by walking it
+	private final LongAdder checkedOutCount = new LongAdder();
+	// Fees owed by each user for the books in their checked out list, as Float.floatToIntBits.
+	// Built by the constructor and never changed after, so it can be read without a lock.
+	private final IdentityHashMap<User, AtomicInteger> userFees = new IdentityHashMap<>();
+	// Users that have each book (by id) in their checked out list. Also never changed after the constructor.
+	private final IntObjectHashMap<List<User>> holders = new IntObjectHashMap<>();
+	// Sum of every user's fees
+	private final DoubleAdder totalFees = new DoubleAdder();
+	// Catalog order of the next book added
+	private int nextOrder;
+
+	/**
+	 * Computes the statistics of a catalog from scratch.
+	 *
+	 * @param books Books of the catalog.
+	 * @param users Users of the catalog.
+	 */
+	CatalogStatistics(List<Book> books, List<User> users) {
+		for(Book book: books)
+			this.catalogOrder.put(book, this.nextOrder++);
+		CatalogSummary summary = CatalogSummary.of(books);
+		for(String genre: summary.genres()) {
+			this.genres.add(genre);
+			this.genreCounts.put(genre, new int[] { summary.count(genre) });
+		}
+		for(Book book: summary.checkedOut()) {
+			this.checkedOut.add(book);
+			this.checkedOutCount.increment();
+		}
+
+		float total = 0;
+		for(User user: users) {
+			float fee = 0;
+			for(Book book: user.getCheckedOutList()) {
+				fee += book.calculateFees();
+				List<User> bookHolders = this.holders.get(book.getId());
+				if(bookHolders == null) {
+					bookHolders = new ArrayList<>(1);
+					this.holders.put(book.getId(), bookHolders);
+				}
+				bookHolders.add(user);
+			}
+			this.userFees.put(user, new AtomicInteger(Float.floatToIntBits(fee)));
+			total += fee;
+		}
+		this.totalFees.add(total);
+	}
+
+	/**
+	 * Returns the genres in report order: first CatalogSummary.REPORT_GENRES, then every other genre
+	 * that has books, in the order it first appeared.
+	 *
+	 * @return The genres to list in the report.
+	 */
+	public synchronized List<String> reportGenres() {
+		List<String> result = new ArrayList<>(CatalogSummary.REPORT_GENRES.length + this.genres.size());
+		for(String genre: CatalogSummary.REPORT_GENRES)
+			result.add(genre);
+		for(String genre: this.genres) {
+			if(!CatalogSummary.isReportGenre(genre) && genreCount(genre) > 0)
+				result.add(genre);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns how many books of the given genre are in the catalog.
+	 *
+	 * @param genre The genre, compared with equals().
+	 * @return The number of books, 0 if there are none.
+	 */
+	public synchronized int genreCount(String genre) {
+		int[] count = this.genreCounts.get(genre);
+		return count == null ? 0 : count[0];
+	}
+
+	/**
+	 * Returns the checked out books, in catalog order.
+	 * Books checked out or returned by other threads while the copy is made may or may not be in it.
+	 *
+	 * @return A copy of the checked out books.
+	 */
+	public List<Book> checkedOutBooks() {
+		List<Book> books = new ArrayList<>(checkedOutCount());
+		for(Book book: this.checkedOut)
+			books.add(book);
+		return books;
+	}
+
+	/**
+	 * Returns how many books are checked out.
+	 *
+	 * @return The number of checked out books.
+	 */
+	public int checkedOutCount() {
+		return this.checkedOutCount.intValue();
+	}
+
+	/**
+	 * Returns the fees the user owes for the books in their checked out list.
+	 *
+	 * @param user One of the users of the catalog.
+	 * @return The fees, 0 if the user is unknown.
+	 */
+	public float userFees(User user) {
+		AtomicInteger fee = this.userFees.get(user);
+		return fee == null ? 0 : Float.intBitsToFloat(fee.get());
+	}
+
+	/**
+	 * Returns the fees owed by all users together.
+	 *
+	 * @return The total fees.
+	 */
+	public float totalFees() {
+		return (float) this.totalFees.sum();
+	}
+
+	/**
+	 * Called with the catalog's write lock held.
+	 */
+	synchronized void bookAdded(Book book) {
+		this.catalogOrder.put(book, this.nextOrder++);
+		int[] count = this.genreCounts.get(book.getGenre());
+		if(count == null) {
+			count = new int[1];
+			this.genreCounts.put(book.getGenre(), count);
+			this.genres.add(book.getGenre());
+		}
+		count[0]++;
+		if(book.isCheckedOut() && this.checkedOut.add(book))
+			this.checkedOutCount.increment();
+	}
+
+	/**
+	 * Called with the catalog's write lock held.
+	 * Users keep the removed book in their checked out list, so their fees don't change. Compact users
+	 * are the exception: they can't look the book up anymore, so it leaves their list and their fees.
+	 */
+	synchronized void bookRemoved(Book book) {
+		int[] count = this.genreCounts.get(book.getGenre());
+		if(count != null)
+			count[0]--;
+		if(this.checkedOut.remove(book))
+			this.checkedOutCount.decrement();
+		this.catalogOrder.remove(book);
+
+		List<User> bookHolders = this.holders.get(book.getId());
+		float fee = book.calculateFees();
+		if(bookHolders == null || fee == 0)
+			return;
+		for(User user: bookHolders) {
+			if(!user.isCompact())
+				continue;
+			// No check out can run while the write lock is held, a plain set is enough
+			AtomicInteger userFee = this.userFees.get(user);
+			userFee.set(Float.floatToIntBits(Float.intBitsToFloat(userFee.get()) - fee));
+			this.totalFees.add(-fee);
+		}
+	}
+
+	/**
+	 * Called after a book was checked out or returned, with the book's stripe lock held.
+	 * Takes no lock of its own.
+	 *
+	 * @param book The book that changed.
+	 * @param oldFee What book.calculateFees() returned before the change.
+	 */
+	void checkOutChanged(Book book, float oldFee) {
+		if(book.isCheckedOut()) {
+			if(this.checkedOut.add(book))
+				this.checkedOutCount.increment();
+		} else if(this.checkedOut.remove(book)) {
+			this.checkedOutCount.decrement();
+		}
+
+		float difference = book.calculateFees() - oldFee;
+		List<User> bookHolders = this.holders.get(book.getId());
+		if(difference == 0 || bookHolders == null)
+			return;
+		for(User user: bookHolders) {
+			// The user can also have books on other stripes, so the fee is updated with compare-and-set
+			AtomicInteger fee = this.userFees.get(user);
+			int bits;
+			do {
+				bits = fee.get();
+			} while(!fee.compareAndSet(bits, Float.floatToIntBits(Float.intBitsToFloat(bits) + difference)));
+			this.totalFees.add(difference);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package main;
+
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import data_structures.ArrayList;
+import interfaces.List;
+
+/**
+ * Genre counts and checked out books of a catalog, computed in a single pass over it.
+ * CatalogStatistics starts from this and keeps it up to date afterwards.
+ *
+ * Big catalogs are split into ranges that are summarized in parallel on the common fork-join pool.
+ * Partial results are merged left to right, so the result is the same as a sequential pass.
+ */
+class CatalogSummary {
+
+	// Genres the report always lists first, in this order, even if there are no books of them
+	static final String[] REPORT_GENRES = { "Adventure", "Fiction", "Classics", "Mystery", "Science Fiction" };
+	// Catalogs smaller than this are summarized on the calling thread
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	// Genres in the order they were first seen in the catalog
+	private final List<String> genres = new ArrayList<>();
+	// Number of books per genre. int[1] so we can increment it without boxing.
+	private final HashMap<String, int[]> counts = new HashMap<>();
+	// Checked out books in catalog order
+	private final List<Book> checkedOut = new ArrayList<>();
+
+	private CatalogSummary() {
+	}
+
+	/**
+	 * Summarizes the given books.
+	 *
+	 * @param books The catalog.
+	 * @return The genre counts and checked out books of the catalog.
+	 */
+	static CatalogSummary of(List<Book> books) {
+		// Splitting by index is only cheap for the array backed list
+		if(books.size() >= PARALLEL_THRESHOLD && books instanceof ArrayList)
+			return ForkJoinPool.commonPool().invoke(new RangeTask(books, 0, books.size()));
+		CatalogSummary summary = new CatalogSummary();
+		for(Book book: books)
+			summary.add(book);
+		return summary;
+	}
+
+	/**
+	 * Returns every genre of the catalog in the order it first appears.
+	 *
+	 * @return The genres.
+	 */
+	List<String> genres() {
+		return this.genres;
+	}
+
+	/**
+	 * Returns how many books of the given genre there are.
+	 *
+	 * @param genre The genre, compared with equals().
+	 * @return The number of books, 0 if the genre doesn't appear.
+	 */
+	int count(String genre) {
+		int[] count = this.counts.get(genre);
+		return count == null ? 0 : count[0];
+	}
+
+	/**
+	 * Returns the checked out books in catalog order.
+	 *
+	 * @return The checked out books.
+	 */
+	List<Book> checkedOut() {
+		return this.checkedOut;
+	}
+
+	private void add(Book book) {
+		int[] count = this.counts.get(book.getGenre());
+		if(count == null) {
+			count = new int[1];
+			this.counts.put(book.getGenre(), count);
+			this.genres.add(book.getGenre());
+		}
+		count[0]++;
+		if(book.isCheckedOut())
+			this.checkedOut.add(book);
+	}
+
+	/**
+	 * Adds the summary of the books that come right after the ones summarized here.
+	 */
+	private void append(CatalogSummary next) {
+		for(String genre: next.genres) {
+			int[] count = this.counts.get(genre);
+			if(count == null) {
+				this.counts.put(genre, next.counts.get(genre));
+				this.genres.add(genre);
+			}
+			else
+				count[0] += next.counts.get(genre)[0];
+		}
+		for(Book book: next.checkedOut)
+			this.checkedOut.add(book);
+	}
+
+	/**
+	 * Checks if the genre is one of REPORT_GENRES.
+	 */
+	static boolean isReportGenre(String genre) {
+		for(String reportGenre: REPORT_GENRES) {
+			if(reportGenre.equals(genre))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Summarizes books [start, end), splitting the range in halves until it's small enough.
+	 */
+	private static class RangeTask extends RecursiveTask<CatalogSummary> {
+		private static final long serialVersionUID = 1L;
+
+		private final List<Book> books;
+		private final int start;
+		private final int end;
+
+		RangeTask(List<Book> books, int start, int end) {
+			this.books = books;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected CatalogSummary compute() {
+			if(this.end - this.start <= PARALLEL_THRESHOLD) {
+				CatalogSummary summary = new CatalogSummary();
+				for(int i = this.start; i < this.end; i++)
+					summary.add(this.books.get(i));
+				return summary;
+			}
+			int middle = (this.start + this.end) >>> 1;
+			RangeTask right = new RangeTask(this.books, middle, this.end);
+			right.fork();
+			CatalogSummary summary = new RangeTask(this.books, this.start, middle).compute();
+			summary.append(right.join());
+			return summary;
+		}
+	}
+}
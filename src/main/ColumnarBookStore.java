@@ -0,0 +1,579 @@
+package main;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import data_structures.ArrayList;
+import data_structures.StringDictionary;
+import interfaces.FilterFunction;
+import interfaces.IntList;
+import interfaces.List;
+
+/**
+ * A book catalog stored by columns (structure of arrays) instead of one Book object per book.
+ *
+ * Every attribute has its own array, indexed by row:
+ *  - ids in an int[]
+ *  - titles, authors and genres as int[] codes of a StringDictionary, so each distinct String is kept once
+ *  - last check out dates as epoch days in an int[]
+ *  - checked out flags in a BitSet
+ *
+ * Scanning one attribute (counting genres, adding up fees, finding the checked out books) then reads
+ * one dense array from start to end, instead of following a pointer to a Book, then to its String
+ * or LocalDate, for every book. At 10 million books this is also a few hundred MB smaller.
+ *
+ * get() and getById() still give a Book: a view of the row that reads and writes the columns.
+ * Views are created on demand, so two views of the same row are different objects.
+ * Books can't be removed, and the store is not thread safe.
+ */
+public class ColumnarBookStore {
+
+	// Book.FEE_DATE as an epoch day, like the date column
+	private static final int FEE_DAY = (int) Book.FEE_DATE.toEpochDay();
+
+	private int[] ids;
+	private int[] titles;
+	private int[] authors;
+	private int[] genres;
+	private int[] lastCheckOuts;
+	private final BitSet checkedOut = new BitSet();
+	// Number of books (rows)
+	private int size;
+
+	private final StringDictionary titleDictionary = new StringDictionary();
+	private final StringDictionary authorDictionary = new StringDictionary();
+	private final StringDictionary genreDictionary = new StringDictionary();
+
+	// Open-addressing table from id to row. Each slot holds row + 1 (0 is empty), the id is ids[row].
+	private int[] idSlots;
+
+	/**
+	 * Creates an empty store.
+	 */
+	public ColumnarBookStore() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty store with room for capacity books before it has to grow.
+	 *
+	 * @param capacity Number of books we expect.
+	 */
+	public ColumnarBookStore(int capacity) {
+		if(capacity < 0)
+			throw new IllegalArgumentException("Negative capacity: " + capacity);
+		this.ids = new int[capacity];
+		this.titles = new int[capacity];
+		this.authors = new int[capacity];
+		this.genres = new int[capacity];
+		this.lastCheckOuts = new int[capacity];
+		this.idSlots = new int[tableSize(capacity)];
+	}
+
+	/**
+	 * Reads a catalog CSV file (same format as data/catalog.csv) straight into columns,
+	 * without building a Book for each record.
+	 *
+	 * @param path Path of the CSV file.
+	 * @return The store with every book of the file.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public static ColumnarBookStore load(String path) throws IOException {
+		ColumnarBookStore store = new ColumnarBookStore();
+		try(CsvReader reader = new CsvReader(new FileReader(path, StandardCharsets.UTF_8))) {
+			reader.next();		// Skip the header line
+			while(reader.next()) {
+				// Values go through the store's dictionaries, so repeated ones allocate nothing
+				store.add(reader.getInt(0), reader.getString(1, store.titleDictionary), reader.getString(2, store.authorDictionary),
+						reader.getString(3, store.genreDictionary), reader.getDate(4), reader.getBoolean(5));
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Copies a list of books into a new store, in the same order.
+	 *
+	 * @param books The books.
+	 * @return The store.
+	 */
+	public static ColumnarBookStore of(List<Book> books) {
+		ColumnarBookStore store = new ColumnarBookStore(books.size());
+		for(Book book: books)
+			store.add(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), book.getLastCheckOut(), book.isCheckedOut());
+		return store;
+	}
+
+	/**
+	 * Adds a book at the end of the store.
+	 *
+	 * @return The row of the new book.
+	 * @throws IllegalArgumentException If there already is a book with this id.
+	 */
+	public int add(int id, String title, String author, String genre, LocalDate lastCheckOut, boolean checkedOut) {
+		if(rowOf(id) != -1)
+			throw new IllegalArgumentException("Duplicate book id " + id);
+		int row = this.size;
+		if(row == this.ids.length)
+			grow(row + 1);
+		this.ids[row] = id;
+		this.titles[row] = this.titleDictionary.encode(title);
+		this.authors[row] = this.authorDictionary.encode(author);
+		this.genres[row] = this.genreDictionary.encode(genre);
+		this.lastCheckOuts[row] = (int) lastCheckOut.toEpochDay();
+		this.checkedOut.set(row, checkedOut);
+		this.size++;
+		if(this.size > this.idSlots.length / 2)
+			rehash(this.idSlots.length * 2);
+		else
+			insertSlot(row);
+		return row;
+	}
+
+	/**
+	 * Returns the number of books.
+	 *
+	 * @return The number of rows.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Finds the row of the book with the given id.
+	 *
+	 * @param id The book id.
+	 * @return The row, -1 if there is no such book.
+	 */
+	public int rowOf(int id) {
+		int mask = this.idSlots.length - 1;
+		for(int slot = mix(id) & mask; ; slot = (slot + 1) & mask) {
+			int row = this.idSlots[slot] - 1;
+			if(row < 0)
+				return -1;
+			if(this.ids[row] == id)
+				return row;
+		}
+	}
+
+	/**
+	 * Returns a view of the book in the given row.
+	 *
+	 * @param row The row, from 0 to size() - 1.
+	 * @return A Book that reads and writes this row.
+	 */
+	public Book get(int row) {
+		checkRow(row);
+		return new BookView(row);
+	}
+
+	/**
+	 * Returns a view of the book with the given id.
+	 *
+	 * @param id The book id.
+	 * @return A Book that reads and writes the book's row, null if there is no such book.
+	 */
+	public Book getById(int id) {
+		int row = rowOf(id);
+		return row == -1 ? null : new BookView(row);
+	}
+
+	public int id(int row) {
+		checkRow(row);
+		return this.ids[row];
+	}
+
+	/**
+	 * Gives the book of a row a new id, moving it in the id table.
+	 *
+	 * @param row The row of the book.
+	 * @param id The new id.
+	 * @throws IllegalArgumentException If another book already has this id.
+	 */
+	public void setId(int row, int id) {
+		checkRow(row);
+		if(this.ids[row] == id)
+			return;
+		if(rowOf(id) != -1)
+			throw new IllegalArgumentException("Duplicate book id " + id);
+		removeSlot(row);
+		this.ids[row] = id;
+		insertSlot(row);
+	}
+
+	public String title(int row) {
+		checkRow(row);
+		return this.titleDictionary.get(this.titles[row]);
+	}
+
+	public String author(int row) {
+		checkRow(row);
+		return this.authorDictionary.get(this.authors[row]);
+	}
+
+	public String genre(int row) {
+		checkRow(row);
+		return this.genreDictionary.get(this.genres[row]);
+	}
+
+	public LocalDate lastCheckOut(int row) {
+		checkRow(row);
+		return LocalDate.ofEpochDay(this.lastCheckOuts[row]);
+	}
+
+	public boolean isCheckedOut(int row) {
+		checkRow(row);
+		return this.checkedOut.get(row);
+	}
+
+	/**
+	 * Checks out the book with the given id, like LibraryCatalog.checkOutBook.
+	 *
+	 * @param id The book id.
+	 * @return False if there is no such book or it is already checked out.
+	 */
+	public boolean checkOutBook(int id) {
+		int row = rowOf(id);
+		if(row == -1 || this.checkedOut.get(row))
+			return false;
+		this.checkedOut.set(row);
+		this.lastCheckOuts[row] = FEE_DAY;
+		return true;
+	}
+
+	/**
+	 * Returns the book with the given id, like LibraryCatalog.returnBook.
+	 *
+	 * @param id The book id.
+	 * @return False if there is no such book or it isn't checked out.
+	 */
+	public boolean returnBook(int id) {
+		int row = rowOf(id);
+		if(row == -1 || !this.checkedOut.get(row))
+			return false;
+		this.checkedOut.clear(row);
+		return true;
+	}
+
+	/**
+	 * Returns the fee of the book in the given row, same as Book.calculateFees.
+	 *
+	 * @param row The row.
+	 * @return The fee, 0 if the book isn't checked out.
+	 */
+	public float fee(int row) {
+		checkRow(row);
+		if(!this.checkedOut.get(row))
+			return 0;
+		return Book.feeForDays(FEE_DAY - this.lastCheckOuts[row]);
+	}
+
+	/**
+	 * Adds up the fees of every checked out book. Only the checked out rows of the date column are read.
+	 *
+	 * @return The total of the fees.
+	 */
+	public float totalFees() {
+		float total = 0;
+		for(int row = this.checkedOut.nextSetBit(0); row >= 0 && row < this.size; row = this.checkedOut.nextSetBit(row + 1))
+			total += Book.feeForDays(FEE_DAY - this.lastCheckOuts[row]);
+		return total;
+	}
+
+	/**
+	 * Counts the books of every genre in one pass over the genre column.
+	 *
+	 * @return The count of each genre, indexed by its dictionary code.
+	 */
+	private int[] genreCounts() {
+		int[] counts = new int[this.genreDictionary.size()];
+		int[] genres = this.genres;
+		for(int row = 0; row < this.size; row++)
+			counts[genres[row]]++;
+		return counts;
+	}
+
+	/**
+	 * Returns how many books of the given genre there are.
+	 *
+	 * @param genre The genre, compared with equals().
+	 * @return The number of books, 0 if there are none.
+	 */
+	public int genreCount(String genre) {
+		int code = this.genreDictionary.code(genre);
+		if(code == -1)
+			return 0;
+		int count = 0;
+		for(int row = 0; row < this.size; row++) {
+			if(this.genres[row] == code)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns how many books are checked out.
+	 *
+	 * @return The number of checked out books.
+	 */
+	public int checkedOutCount() {
+		return this.checkedOut.cardinality();
+	}
+
+	/**
+	 * Returns the books of the given genre. The genre is compared once against the dictionary,
+	 * then only int codes are compared.
+	 *
+	 * @param genre The genre.
+	 * @return Views of the matching books, in row order.
+	 */
+	public List<Book> searchByGenre(String genre) {
+		return searchByCode(this.genres, this.genreDictionary.code(genre));
+	}
+
+	/**
+	 * Returns the books by the given author.
+	 *
+	 * @param author The author.
+	 * @return Views of the matching books, in row order.
+	 */
+	public List<Book> searchByAuthor(String author) {
+		return searchByCode(this.authors, this.authorDictionary.code(author));
+	}
+
+	private List<Book> searchByCode(int[] column, int code) {
+		List<Book> result = new ArrayList<>();
+		if(code == -1)
+			return result;
+		for(int row = 0; row < this.size; row++) {
+			if(column[row] == code)
+				result.add(new BookView(row));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the books that pass the filter, like LibraryCatalog.searchForBook.
+	 *
+	 * The filter is given a single view that is moved from row to row, so no object is created for
+	 * books that don't pass. The filter must not keep the Book it's given, the result holds new views.
+	 *
+	 * @param func The filter.
+	 * @return Views of the matching books, in row order.
+	 */
+	public List<Book> searchForBook(FilterFunction<Book> func) {
+		List<Book> result = new ArrayList<>();
+		BookView cursor = new BookView(0);
+		for(int row = 0; row < this.size; row++) {
+			cursor.row = row;
+			if(func.filter(cursor))
+				result.add(new BookView(row));
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the same report as LibraryCatalog.writeReport, scanning the columns instead of keeping
+	 * statistics: one pass over the genres, one over the checked out bits, and the fees of each
+	 * user's books looked up by id.
+	 *
+	 * @param output Where the report is written. The caller buffers and closes it.
+	 * @param users The users, their books are looked up in this store by id.
+	 * @throws IOException If output fails.
+	 */
+	public void writeReport(Writer output, List<User> users) throws IOException {
+		CatalogReportWriter report = new CatalogReportWriter(output);
+		report.startGenres();
+		// The five usual genres come first and any other genre with books follows in the order it first appeared
+		int[] counts = genreCounts();
+		for(String genre: CatalogSummary.REPORT_GENRES) {
+			int code = this.genreDictionary.code(genre);
+			report.genre(genre, code == -1 ? 0 : counts[code]);
+		}
+		for(int code = 0; code < counts.length; code++) {
+			String genre = this.genreDictionary.get(code);
+			if(counts[code] > 0 && !CatalogSummary.isReportGenre(genre))
+				report.genre(genre, counts[code]);
+		}
+		report.endGenres(this.size);
+
+		report.startCheckedOut();
+		int checkedOutCount = 0;
+		for(int row = this.checkedOut.nextSetBit(0); row >= 0 && row < this.size; row = this.checkedOut.nextSetBit(row + 1)) {
+			report.checkedOutBook(this.titleDictionary.get(this.titles[row]), this.authorDictionary.get(this.authors[row]));
+			checkedOutCount++;
+		}
+		report.endCheckedOut(checkedOutCount);
+
+		report.startUsers();
+		for(User user: users) {
+			IntList bookIDs = user.getCheckedOutIds();
+			float fee = 0;
+			boolean holdsBooks = false;
+			for(int i = 0; i < bookIDs.size(); i++) {
+				int row = rowOf(bookIDs.get(i));
+				if(row != -1) {
+					holdsBooks = true;
+					fee += fee(row);
+				}
+			}
+			if(holdsBooks)
+				report.userFee(user.getName(), fee);
+		}
+		report.endUsers();
+	}
+
+	private void checkRow(int row) {
+		if(row < 0 || row >= this.size)
+			throw new IndexOutOfBoundsException("No row " + row + " in a store of " + this.size + " books");
+	}
+
+	/**
+	 * Grows every column to at least minCapacity rows, usually doubling them.
+	 */
+	private void grow(int minCapacity) {
+		if(minCapacity < 0 || minCapacity > Integer.MAX_VALUE - 8)
+			throw new OutOfMemoryError("ColumnarBookStore can't hold more books");
+		int newCapacity = (int) Math.min(Math.max(2L * this.ids.length, Math.max(minCapacity, 16)), Integer.MAX_VALUE - 8);
+		this.ids = Arrays.copyOf(this.ids, newCapacity);
+		this.titles = Arrays.copyOf(this.titles, newCapacity);
+		this.authors = Arrays.copyOf(this.authors, newCapacity);
+		this.genres = Arrays.copyOf(this.genres, newCapacity);
+		this.lastCheckOuts = Arrays.copyOf(this.lastCheckOuts, newCapacity);
+	}
+
+	private void insertSlot(int row) {
+		int mask = this.idSlots.length - 1;
+		int slot = mix(this.ids[row]) & mask;
+		while(this.idSlots[slot] != 0)
+			slot = (slot + 1) & mask;
+		this.idSlots[slot] = row + 1;
+	}
+
+	/**
+	 * Empties the slot of a row, moving later slots of the same run back so lookups don't stop at the hole.
+	 */
+	private void removeSlot(int row) {
+		int mask = this.idSlots.length - 1;
+		int hole = mix(this.ids[row]) & mask;
+		while(this.idSlots[hole] != row + 1)
+			hole = (hole + 1) & mask;
+		for(int slot = (hole + 1) & mask; this.idSlots[slot] != 0; slot = (slot + 1) & mask) {
+			int home = mix(this.ids[this.idSlots[slot] - 1]) & mask;
+			// The entry can fill the hole if the hole is between its home slot and where it is now
+			if(((slot - home) & mask) >= ((slot - hole) & mask)) {
+				this.idSlots[hole] = this.idSlots[slot];
+				hole = slot;
+			}
+		}
+		this.idSlots[hole] = 0;
+	}
+
+	private void rehash(int length) {
+		this.idSlots = new int[length];
+		for(int row = 0; row < this.size; row++)
+			insertSlot(row);
+	}
+
+	/**
+	 * Smallest power of two that keeps capacity ids at most half full.
+	 */
+	private static int tableSize(int capacity) {
+		return Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) << 1;
+	}
+
+	/**
+	 * Ids are usually consecutive, mixing them keeps them from filling runs of neighbouring slots.
+	 */
+	private static int mix(int id) {
+		int hash = id * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * A Book whose getters and setters go to one row of the store.
+	 */
+	private class BookView extends Book {
+		private int row;
+
+		BookView(int row) {
+			super(0, null, null, null, null, false);
+			this.row = row;
+		}
+
+		@Override
+		public int getId() {
+			return ids[this.row];
+		}
+
+		/**
+		 * The id is the key of the store, so it must not be taken by another book.
+		 *
+		 * @throws IllegalArgumentException If another book already has this id.
+		 */
+		@Override
+		public void setId(int id) {
+			ColumnarBookStore.this.setId(this.row, id);
+		}
+
+		@Override
+		public String getTitle() {
+			return titleDictionary.get(titles[this.row]);
+		}
+
+		@Override
+		public void setTitle(String title) {
+			titles[this.row] = titleDictionary.encode(title);
+		}
+
+		@Override
+		public String getAuthor() {
+			return authorDictionary.get(authors[this.row]);
+		}
+
+		@Override
+		public void setAuthor(String author) {
+			authors[this.row] = authorDictionary.encode(author);
+		}
+
+		@Override
+		public String getGenre() {
+			return genreDictionary.get(genres[this.row]);
+		}
+
+		@Override
+		public void setGenre(String genre) {
+			genres[this.row] = genreDictionary.encode(genre);
+		}
+
+		@Override
+		public LocalDate getLastCheckOut() {
+			return LocalDate.ofEpochDay(lastCheckOuts[this.row]);
+		}
+
+		@Override
+		public void setLastCheckOut(LocalDate lastCheckOut) {
+			lastCheckOuts[this.row] = (int) lastCheckOut.toEpochDay();
+		}
+
+		@Override
+		public boolean isCheckedOut() {
+			return checkedOut.get(this.row);
+		}
+
+		@Override
+		public void setCheckedOut(boolean checkedOut) {
+			ColumnarBookStore.this.checkedOut.set(this.row, checkedOut);
+		}
+
+		@Override
+		public float calculateFees() {
+			return fee(this.row);
+		}
+	}
+}
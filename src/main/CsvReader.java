@@ -0,0 +1,460 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import data_structures.StringDictionary;
+
+/**
+ * Streaming tokenizer for the CSV files used by the catalog.
+ *
+ * Records are read straight into a reusable char buffer and each field is only remembered as a range
+ * of that buffer. Numbers, booleans and dates are parsed directly from those ranges, so the only
+ * Strings we create are the ones a Book or User actually keeps.
+ *
+ * Supported syntax:
+ *  - Fields are separated by commas, spaces around unquoted fields are trimmed.
+ *  - A field can be wrapped in double quotes to contain commas or line breaks. A quote inside a
+ *    quoted field is written twice ("").
+ *  - Lines end with \n or \r\n. Empty lines are skipped.
+ */
+public class CsvReader implements Closeable {
+
+	// Initial size of the buffer when reading from a Reader. It grows if a single record doesn't fit.
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// Source of the data. null when we were given all the data up front.
+	private Reader in;
+	// Holds the raw characters of the current record (and whatever comes after it)
+	private char[] buf;
+	// Position of the next character to read in buf
+	private int pos;
+	// First position of buf that holds no data
+	private int limit;
+	// Where the current record starts in buf. Everything before it can be discarded when refilling.
+	private int recordStart;
+
+	// Start and end (exclusive) of each field of the current record in buf
+	private int[] fieldStart = new int[8];
+	private int[] fieldEnd = new int[8];
+	// Whether each field is quoted and contains "" escapes that have to be removed
+	private boolean[] fieldEscaped = new boolean[8];
+	// How many fields the current record has
+	private int fieldCount;
+	// Line number where the current record starts (1 based)
+	private long lineNumber;
+	// Line number of the next character to read
+	private long nextLine = 1;
+
+	/**
+	 * Creates a tokenizer that reads the records from in.
+	 * @param in - (Reader) source of the CSV data. It is closed by close().
+	 */
+	public CsvReader(Reader in) {
+		this.in = in;
+		this.buf = new char[BUFFER_SIZE];
+	}
+
+	/**
+	 * Creates a tokenizer over characters that are already in memory. Nothing gets copied.
+	 * @param data - (char[]) the CSV data
+	 * @param offset - (int) position of the first character to read
+	 * @param length - (int) how many characters to read
+	 */
+	public CsvReader(char[] data, int offset, int length) {
+		if(offset < 0 || length < 0 || offset + length > data.length)
+			throw new IndexOutOfBoundsException();
+		this.in = null;
+		this.buf = data;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.recordStart = offset;
+	}
+
+	/**
+	 * Creates a tokenizer over the remaining characters of a CharBuffer, for example one decoded from a
+	 * ByteBuffer. The backing array is used directly when there is one.
+	 * @param data - (CharBuffer) the CSV data
+	 */
+	public CsvReader(CharBuffer data) {
+		this(data, 1);
+	}
+
+	/**
+	 * Creates a tokenizer over the remaining characters of a CharBuffer that starts at the given line of a
+	 * bigger file, so lineNumber() and the error messages give lines of the whole file.
+	 * @param data - (CharBuffer) the CSV data
+	 * @param firstLine - (long) line number of the first character of data (1 based)
+	 */
+	public CsvReader(CharBuffer data, long firstLine) {
+		this.in = null;
+		this.nextLine = firstLine;
+		if(data.hasArray()) {
+			this.buf = data.array();
+			this.pos = data.arrayOffset() + data.position();
+			this.limit = data.arrayOffset() + data.limit();
+		}
+		else {
+			this.buf = new char[data.remaining()];
+			data.duplicate().get(this.buf);
+			this.pos = 0;
+			this.limit = this.buf.length;
+		}
+		this.recordStart = this.pos;
+	}
+
+	/**
+	 * Moves to the next record.
+	 * @return (boolean) True if a record was read, false if there are no more records
+	 * @throws IOException if reading fails or a quoted field is never closed
+	 */
+	public boolean next() throws IOException {
+		// Skip empty lines
+		int c;
+		while((c = peek()) == '\n' || c == '\r') {
+			if(c == '\n')
+				this.nextLine++;
+			this.pos++;
+		}
+		if(c == -1) {
+			this.fieldCount = 0;
+			return false;
+		}
+		this.recordStart = this.pos;
+		this.lineNumber = this.nextLine;
+		this.fieldCount = 0;
+		while(true) {
+			readField();
+			c = peek();
+			if(c == ',') {
+				this.pos++;
+				continue;
+			}
+			// End of the record
+			if(c == '\r') {
+				this.pos++;
+				c = peek();
+			}
+			if(c == '\n') {
+				this.pos++;
+				this.nextLine++;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Returns how many fields the current record has.
+	 * @return (int) number of fields
+	 */
+	public int fieldCount() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * Returns the line number where the current record starts. Useful for error messages.
+	 * @return (long) line number, starting at 1
+	 */
+	public long lineNumber() {
+		return this.lineNumber;
+	}
+
+	/**
+	 * Checks if a field of the current record is empty.
+	 * @param field - (int) position of the field
+	 * @return (boolean) True if the field has no characters
+	 */
+	public boolean isEmpty(int field) {
+		checkField(field);
+		return this.fieldStart[field] == this.fieldEnd[field];
+	}
+
+	/**
+	 * Returns the field as a String. This is the only accessor that always allocates,
+	 * use getString(int, StringDictionary) for fields that repeat.
+	 * @param field - (int) position of the field
+	 * @return (String) the content of the field without the quotes
+	 */
+	public String getString(int field) {
+		checkField(field);
+		int start = this.fieldStart[field];
+		int end = this.fieldEnd[field];
+		if(!this.fieldEscaped[field])
+			return new String(this.buf, start, end - start);
+		// Turn every "" into "
+		StringBuilder sb = new StringBuilder(end - start);
+		for(int i = start; i < end; i++) {
+			sb.append(this.buf[i]);
+			if(this.buf[i] == '"')
+				i++;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the code of the field's value in the dictionary, adding it if it's new.
+	 * Nothing is allocated when the value is already in the dictionary.
+	 * @param field - (int) position of the field
+	 * @param dictionary - (StringDictionary) where the value is looked up
+	 * @return (int) the code of the field without the quotes
+	 */
+	public int getCode(int field, StringDictionary dictionary) {
+		checkField(field);
+		if(this.fieldEscaped[field])
+			return dictionary.encode(getString(field));
+		return dictionary.encode(this.buf, this.fieldStart[field], this.fieldEnd[field]);
+	}
+
+	/**
+	 * Returns the field as a String shared with every other field of the same value that went through
+	 * the dictionary. Only allocates the first time a value is seen.
+	 * @param field - (int) position of the field
+	 * @param dictionary - (StringDictionary) where the value is looked up
+	 * @return (String) the content of the field without the quotes
+	 */
+	public String getString(int field, StringDictionary dictionary) {
+		return dictionary.get(getCode(field, dictionary));
+	}
+
+	/**
+	 * Parses the field as an int.
+	 * @param field - (int) position of the field
+	 * @return (int) value of the field
+	 * @throws NumberFormatException if the field is not a valid int
+	 */
+	public int getInt(int field) {
+		checkField(field);
+		return parseInt(this.fieldStart[field], this.fieldEnd[field], field);
+	}
+
+	/**
+	 * Parses the field as a boolean, the same way Boolean.parseBoolean does.
+	 * @param field - (int) position of the field
+	 * @return (boolean) True if the field is "true" ignoring case, false otherwise
+	 */
+	public boolean getBoolean(int field) {
+		checkField(field);
+		int start = this.fieldStart[field];
+		if(this.fieldEnd[field] - start != 4)
+			return false;
+		return (this.buf[start] | 0x20) == 't' && (this.buf[start + 1] | 0x20) == 'r'
+				&& (this.buf[start + 2] | 0x20) == 'u' && (this.buf[start + 3] | 0x20) == 'e';
+	}
+
+	/**
+	 * Parses the field as a date written year-month-day, for example 2023-07-15 or 2023-7-5.
+	 * @param field - (int) position of the field
+	 * @return (LocalDate) the date
+	 * @throws NumberFormatException if the field doesn't have the expected shape
+	 * @throws java.time.DateTimeException if the date does not exist
+	 */
+	public LocalDate getDate(int field) {
+		checkField(field);
+		int start = this.fieldStart[field];
+		int end = this.fieldEnd[field];
+		int firstDash = indexOf('-', start + 1, end);
+		int secondDash = firstDash == -1 ? -1 : indexOf('-', firstDash + 1, end);
+		if(secondDash == -1)
+			throw error("Expected a date (yyyy-MM-d)", field);
+		int year = parseInt(start, firstDash, field);
+		int month = parseInt(firstDash + 1, secondDash, field);
+		int day = parseInt(secondDash + 1, end, field);
+		return LocalDate.of(year, month, day);
+	}
+
+	/**
+	 * Parses a list of ints separated by spaces, optionally wrapped in braces. For example {2 4 6}.
+	 * Each value is given to action as soon as it's parsed.
+	 * @param field - (int) position of the field
+	 * @param action - (IntConsumer) receives each value in order
+	 * @return (int) how many values were found
+	 * @throws NumberFormatException if one of the values is not a valid int
+	 */
+	public int getInts(int field, IntConsumer action) {
+		checkField(field);
+		int start = this.fieldStart[field];
+		int end = this.fieldEnd[field];
+		if(start < end && this.buf[start] == '{')
+			start++;
+		if(end > start && this.buf[end - 1] == '}')
+			end--;
+		int count = 0;
+		int i = start;
+		while(i < end) {
+			// Skip separators
+			while(i < end && this.buf[i] == ' ')
+				i++;
+			if(i == end)
+				break;
+			int valueStart = i;
+			while(i < end && this.buf[i] != ' ')
+				i++;
+			action.accept(parseInt(valueStart, i, field));
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Closes the underlying Reader, if any.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.in != null)
+			this.in.close();
+	}
+
+	/**
+	 * Reads one field starting at pos and stores its range. Stops at the comma or line break after it.
+	 */
+	private void readField() throws IOException {
+		int c;
+		while((c = peek()) == ' ' || c == '\t')
+			this.pos++;
+		// peek() can slide the record to the front of the buffer, so we remember the start
+		// relative to recordStart, which slides with it
+		int startOffset;
+		int end;
+		boolean escaped = false;
+		if(c == '"') {
+			this.pos++;
+			startOffset = this.pos - this.recordStart;
+			while(true) {
+				c = peek();
+				if(c == -1)
+					throw new IOException("Line " + this.lineNumber + ": quoted field is never closed");
+				if(c == '"') {
+					this.pos++;
+					// A second quote means a literal quote, otherwise the field is over
+					if(peek() != '"')
+						break;
+					escaped = true;
+				}
+				else if(c == '\n')
+					this.nextLine++;
+				this.pos++;
+			}
+			// pos - 1 is the closing quote
+			int endOffset = this.pos - 1 - this.recordStart;
+			// Ignore anything between the closing quote and the separator
+			while((c = peek()) != -1 && c != ',' && c != '\n' && c != '\r')
+				this.pos++;
+			end = this.recordStart + endOffset;
+		}
+		else {
+			startOffset = this.pos - this.recordStart;
+			while((c = peek()) != -1 && c != ',' && c != '\n' && c != '\r')
+				this.pos++;
+			end = this.pos;
+			while(end > this.recordStart + startOffset && (this.buf[end - 1] == ' ' || this.buf[end - 1] == '\t'))
+				end--;
+		}
+		int start = this.recordStart + startOffset;
+		addField(start, end, escaped);
+	}
+
+	/**
+	 * Remembers the range of the next field, growing the arrays if needed.
+	 */
+	private void addField(int start, int end, boolean escaped) {
+		if(this.fieldCount == this.fieldStart.length) {
+			int newLength = this.fieldStart.length * 2;
+			this.fieldStart = Arrays.copyOf(this.fieldStart, newLength);
+			this.fieldEnd = Arrays.copyOf(this.fieldEnd, newLength);
+			this.fieldEscaped = Arrays.copyOf(this.fieldEscaped, newLength);
+		}
+		this.fieldStart[this.fieldCount] = start;
+		this.fieldEnd[this.fieldCount] = end;
+		this.fieldEscaped[this.fieldCount] = escaped;
+		this.fieldCount++;
+	}
+
+	/**
+	 * Returns the character at pos without consuming it, reading more data if needed.
+	 * Note that reading more data can move the current record to the start of the buffer,
+	 * so positions taken before calling this are only valid relative to recordStart.
+	 * @return (int) the character, or -1 at the end of the data
+	 */
+	private int peek() throws IOException {
+		if(this.pos < this.limit)
+			return this.buf[this.pos];
+		return fill() ? this.buf[this.pos] : -1;
+	}
+
+	/**
+	 * Reads more characters into the buffer, first discarding everything before the current record.
+	 * @return (boolean) True if at least one character was read
+	 */
+	private boolean fill() throws IOException {
+		if(this.in == null)
+			return false;
+		if(this.recordStart > 0) {
+			// Slide the current record to the front of the buffer and fix every stored position
+			int shift = this.recordStart;
+			System.arraycopy(this.buf, shift, this.buf, 0, this.limit - shift);
+			for(int i = 0; i < this.fieldCount; i++) {
+				this.fieldStart[i] -= shift;
+				this.fieldEnd[i] -= shift;
+			}
+			this.limit -= shift;
+			this.pos -= shift;
+			this.recordStart = 0;
+		}
+		// The record takes the whole buffer, we need a bigger one
+		if(this.limit == this.buf.length)
+			this.buf = Arrays.copyOf(this.buf, this.buf.length * 2);
+		int read;
+		do {
+			read = this.in.read(this.buf, this.limit, this.buf.length - this.limit);
+		} while(read == 0);
+		if(read < 0)
+			return false;
+		this.limit += read;
+		return true;
+	}
+
+	private int parseInt(int start, int end, int field) {
+		if(start == end)
+			throw error("Expected a number", field);
+		boolean negative = this.buf[start] == '-';
+		int i = negative || this.buf[start] == '+' ? start + 1 : start;
+		if(i == end)
+			throw error("Expected a number", field);
+		// Accumulate as a negative number so Integer.MIN_VALUE fits
+		int result = 0;
+		for(; i < end; i++) {
+			int digit = this.buf[i] - '0';
+			if(digit < 0 || digit > 9)
+				throw error("Expected a number", field);
+			if(result < (Integer.MIN_VALUE + digit) / 10)
+				throw error("Number out of range", field);
+			result = result * 10 - digit;
+		}
+		if(!negative && result == Integer.MIN_VALUE)
+			throw error("Number out of range", field);
+		return negative ? result : -result;
+	}
+
+	private int indexOf(char c, int start, int end) {
+		for(int i = start; i < end; i++) {
+			if(this.buf[i] == c)
+				return i;
+		}
+		return -1;
+	}
+
+	private void checkField(int field) {
+		if(field < 0 || field >= this.fieldCount)
+			throw new IndexOutOfBoundsException("Line " + this.lineNumber + " has no field " + field);
+	}
+
+	private NumberFormatException error(String message, int field) {
+		return new NumberFormatException("Line " + this.lineNumber + ", field " + field + ": " + message
+				+ " but found \"" + getString(field) + "\"");
+	}
+}
@@ -0,0 +1,397 @@
+package main;
+
+import java.util.Arrays;
+
+import data_structures.ArrayList;
+import data_structures.IntArrayList;
+import data_structures.PostingList;
+import data_structures.StringDictionary;
+import interfaces.IntList;
+import interfaces.List;
+
+/**
+ * Inverted index from the words of the books' titles and authors to the ids of the books that use them.
+ *
+ * Titles and authors are split into words at every character that is not a letter or a digit, and
+ * the words are lower cased, so "The Lord of the Rings" gives the, lord, of, rings. Each word gets a
+ * code in a StringDictionary and its book ids are kept in a PostingList (sorted, delta + varint
+ * compressed, with skip blocks).
+ *
+ * Queries:
+ *  - matchAll: books that have every word. The lists are intersected from the shortest one, jumping
+ *    through the longer ones with PostingList.Cursor.advanceTo.
+ *  - topK: books that have any of the words, ranked by the sum of log(books / books with the word)
+ *    over the words they have, so rare words count more. The lists are merged with the MaxScore
+ *    method: once k books are found, lists whose words can't lift a book over the k-th score on
+ *    their own are only used to score books found in the other lists.
+ *
+ * Not thread safe. LibraryCatalog changes it under its write lock and queries it under its read lock.
+ */
+class KeywordIndex {
+
+	// Slack for rounding when comparing partial scores, which add the weights in a different order
+	private static final double EPSILON = 1e-9;
+
+	private final StringDictionary words = new StringDictionary();
+	// Books with each word, by the word's code
+	private List<PostingList> postings = new ArrayList<>();
+	// Number of words that have at least one book. Removing books leaves words with none, which are
+	// dropped from the dictionary once they outnumber these.
+	private int wordsInUse;
+	// Number of indexed books, for the ranking
+	private int bookCount;
+	// Scratch space for lower casing the words of the book being indexed
+	private char[] buffer = new char[64];
+
+	/**
+	 * Indexes a whole catalog at once. Each list is sorted and compressed once instead of growing one id at a time.
+	 *
+	 * @param books The books of the catalog, in any order.
+	 */
+	void build(List<Book> books) {
+		List<IntArrayList> ids = new ArrayList<>();
+		for(Book book: books) {
+			IntList codes = wordCodes(book, true);
+			for(int i = 0; i < codes.size(); i++) {
+				int code = codes.get(i);
+				while(ids.size() <= code)
+					ids.add(new IntArrayList(4));
+				ids.get(code).add(book.getId());
+			}
+			this.bookCount++;
+		}
+		for(int code = 0; code < ids.size(); code++) {
+			IntArrayList list = ids.get(code);
+			list.sort();
+			int[] values = list.toArray();
+			// Two copies of a book id would mean two books share it, keep one
+			int count = 0;
+			for(int i = 0; i < values.length; i++) {
+				if(count == 0 || values[i] != values[count - 1])
+					values[count++] = values[i];
+			}
+			this.postings.add(PostingList.of(values, count));
+			ids.set(code, null);
+		}
+		this.wordsInUse = this.postings.size();
+	}
+
+	void add(Book book) {
+		IntList codes = wordCodes(book, true);
+		for(int i = 0; i < codes.size(); i++) {
+			int code = codes.get(i);
+			while(this.postings.size() <= code)
+				this.postings.add(new PostingList());
+			PostingList list = this.postings.get(code);
+			if(list.add(book.getId()) && list.size() == 1)
+				this.wordsInUse++;
+		}
+		this.bookCount++;
+	}
+
+	/**
+	 * Removes the book from the lists of the words of its current title and author.
+	 */
+	void remove(Book book) {
+		IntList codes = wordCodes(book, false);
+		for(int i = 0; i < codes.size(); i++) {
+			int code = codes.get(i);
+			if(code < this.postings.size()) {
+				PostingList list = this.postings.get(code);
+				if(list.remove(book.getId()) && list.size() == 0)
+					this.wordsInUse--;
+			}
+		}
+		this.bookCount--;
+		if(this.words.size() > 2 * this.wordsInUse + 64) {
+			// Drop the words no book has anymore, at most once for every that many words left unused
+			List<PostingList> old = this.postings;
+			int[] newCodes = this.words.compact(code -> code < old.size() && old.get(code).size() > 0);
+			this.postings = new ArrayList<>(this.wordsInUse);
+			for(int code = 0; code < newCodes.length; code++) {
+				if(newCodes[code] != -1)
+					this.postings.add(old.get(code));
+			}
+		}
+	}
+
+	/**
+	 * Finds the books that have every word of the query.
+	 *
+	 * @param query Words separated by spaces or punctuation, in any case.
+	 * @return The ids of the books, in increasing order. Empty if the query has no words.
+	 */
+	IntList matchAll(String query) {
+		List<PostingList> lists = queryLists(query, true);
+		IntArrayList result = new IntArrayList(0);
+		if(lists == null || lists.isEmpty())
+			return result;
+		// Walk the shortest list and look each id up in the others
+		PostingList.Cursor[] cursors = new PostingList.Cursor[lists.size()];
+		for(int i = 0; i < cursors.length; i++)
+			cursors[i] = lists.get(i).cursor();
+		sortBySize(cursors, lists);
+		PostingList.Cursor shortest = cursors[0];
+		for(int id = shortest.value(); id != PostingList.Cursor.END; id = shortest.next()) {
+			boolean everywhere = true;
+			for(int i = 1; i < cursors.length && everywhere; i++) {
+				int found = cursors[i].advanceTo(id);
+				if(found == PostingList.Cursor.END)
+					return result;
+				everywhere = found == id;
+			}
+			if(everywhere)
+				result.add(id);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an upper bound on the number of books matchAll(query) finds, without intersecting anything:
+	 * the size of the shortest list.
+	 *
+	 * @param query Words separated by spaces or punctuation, in any case.
+	 * @return The bound, -1 if the query has no words (matchAll finds nothing, but no word rules anything out).
+	 */
+	int estimate(String query) {
+		List<PostingList> lists = queryLists(query, true);
+		if(lists == null)
+			return 0;
+		if(lists.isEmpty())
+			return -1;
+		int smallest = Integer.MAX_VALUE;
+		for(PostingList list: lists)
+			smallest = Math.min(smallest, list.size());
+		return smallest;
+	}
+
+	/**
+	 * Finds the k best books that have at least one word of the query.
+	 *
+	 * @param query Words separated by spaces or punctuation, in any case.
+	 * @param k Maximum number of books to return.
+	 * @return The ids of the books, best first. Books with the same score are in increasing id order.
+	 */
+	IntList topK(String query, int k) {
+		List<PostingList> lists = queryLists(query, false);
+		IntArrayList result = new IntArrayList(0);
+		// k can be huge (every match), but no more books than the index has can be found.
+		// The heap below is k long, so bound it first.
+		k = Math.min(k, this.bookCount);
+		if(k <= 0 || lists.isEmpty())
+			return result;
+
+		// Cursors by increasing weight, with upTo[i] = sum of the weights of cursors 0 to i
+		int n = lists.size();
+		PostingList.Cursor[] cursors = new PostingList.Cursor[n];
+		double[] weights = new double[n];
+		Integer[] order = new Integer[n];
+		for(int i = 0; i < n; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> Double.compare(weight(lists.get(a)), weight(lists.get(b))));
+		double[] upTo = new double[n];
+		for(int i = 0; i < n; i++) {
+			cursors[i] = lists.get(order[i]).cursor();
+			weights[i] = weight(lists.get(order[i]));
+			upTo[i] = weights[i] + (i > 0 ? upTo[i - 1] : 0);
+		}
+
+		// Min-heap of the best books so far: the worst one (lowest score, then highest id) on top
+		int[] heapIds = new int[k];
+		double[] heapScores = new double[k];
+		int heapSize = 0;
+		double threshold = Double.NEGATIVE_INFINITY;
+		// Cursors before this one are non-essential: they alone can't beat the threshold
+		int firstEssential = 0;
+		boolean[] matched = new boolean[n];
+
+		while(firstEssential < n) {
+			int id = PostingList.Cursor.END;
+			for(int i = firstEssential; i < n; i++)
+				id = Math.min(id, cursors[i].value());
+			if(id == PostingList.Cursor.END)
+				break;
+			Arrays.fill(matched, false);
+			double partial = 0;
+			for(int i = firstEssential; i < n; i++) {
+				if(cursors[i].value() == id) {
+					matched[i] = true;
+					partial += weights[i];
+					cursors[i].next();
+				}
+			}
+			// Only look the id up in the non-essential lists while it could still make it
+			for(int i = firstEssential - 1; i >= 0 && partial + upTo[i] >= threshold - EPSILON; i--) {
+				if(cursors[i].advanceTo(id) == id) {
+					matched[i] = true;
+					partial += weights[i];
+				}
+			}
+			// Add the weights in a fixed order, so books with the same words get exactly the same score
+			double score = 0;
+			for(int i = 0; i < n; i++) {
+				if(matched[i])
+					score += weights[i];
+			}
+			// Ids come in increasing order, so a tie with the worst book loses
+			if(heapSize < k) {
+				heapIds[heapSize] = id;
+				heapScores[heapSize] = score;
+				siftUp(heapIds, heapScores, heapSize++);
+			}
+			else if(score > threshold) {
+				heapIds[0] = id;
+				heapScores[0] = score;
+				siftDown(heapIds, heapScores, heapSize);
+			}
+			else
+				continue;
+			if(heapSize == k) {
+				threshold = heapScores[0];
+				// upTo[i] is exactly the score of a book with the words of cursors 0 to i, and books with
+				// fewer of them score less, so these can be compared without slack. A tie with the threshold
+				// loses. Once every cursor is non-essential no book can make it and we stop.
+				while(firstEssential < n && upTo[firstEssential] <= threshold)
+					firstEssential++;
+			}
+		}
+
+		// Empty the heap worst first and reverse it
+		int[] ranked = new int[heapSize];
+		for(int i = heapSize - 1; i >= 0; i--) {
+			ranked[i] = heapIds[0];
+			heapIds[0] = heapIds[i];
+			heapScores[0] = heapScores[i];
+			siftDown(heapIds, heapScores, i);
+		}
+		for(int id: ranked)
+			result.add(id);
+		return result;
+	}
+
+	/**
+	 * Weight of a word in the ranking: rare words weigh more.
+	 */
+	private double weight(PostingList list) {
+		return Math.log((this.bookCount + 1.0) / list.size());
+	}
+
+	/**
+	 * Returns the posting lists of the distinct words of the query.
+	 * With all, returns null if a word has no books (so nothing can match), otherwise skips those words.
+	 */
+	private List<PostingList> queryLists(String query, boolean all) {
+		List<PostingList> lists = new ArrayList<>();
+		char[] chars = new char[query.length()];
+		IntArrayList seen = new IntArrayList(4);
+		int length = 0;
+		for(int i = 0; i <= query.length(); i++) {
+			if(i < query.length() && Character.isLetterOrDigit(query.charAt(i))) {
+				chars[length++] = Character.toLowerCase(query.charAt(i));
+				continue;
+			}
+			if(length == 0)
+				continue;
+			int code = this.words.code(chars, 0, length);
+			length = 0;
+			PostingList list = code == -1 || code >= this.postings.size() ? null : this.postings.get(code);
+			if(list == null || list.size() == 0) {
+				if(all)
+					return null;
+				continue;
+			}
+			if(!seen.contains(code)) {
+				seen.add(code);
+				lists.add(list);
+			}
+		}
+		return lists;
+	}
+
+	/**
+	 * Returns the codes of the distinct words of the book's title and author.
+	 * With add, new words are added to the dictionary, otherwise unknown words are left out.
+	 */
+	private IntList wordCodes(Book book, boolean add) {
+		IntArrayList codes = new IntArrayList(8);
+		wordCodes(book.getTitle(), add, codes);
+		wordCodes(book.getAuthor(), add, codes);
+		return codes;
+	}
+
+	private void wordCodes(String text, boolean add, IntArrayList codes) {
+		if(this.buffer.length < text.length())
+			this.buffer = new char[text.length()];
+		int length = 0;
+		for(int i = 0; i <= text.length(); i++) {
+			if(i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+				this.buffer[length++] = Character.toLowerCase(text.charAt(i));
+				continue;
+			}
+			if(length == 0)
+				continue;
+			int code = add ? this.words.encode(this.buffer, 0, length) : this.words.code(this.buffer, 0, length);
+			length = 0;
+			if(code != -1 && !codes.contains(code))
+				codes.add(code);
+		}
+	}
+
+	private static void sortBySize(PostingList.Cursor[] cursors, List<PostingList> lists) {
+		// Few words per query, insertion sort is enough
+		int[] sizes = new int[cursors.length];
+		for(int i = 0; i < sizes.length; i++)
+			sizes[i] = lists.get(i).size();
+		for(int i = 1; i < cursors.length; i++) {
+			for(int j = i; j > 0 && sizes[j] < sizes[j - 1]; j--) {
+				int size = sizes[j];
+				sizes[j] = sizes[j - 1];
+				sizes[j - 1] = size;
+				PostingList.Cursor cursor = cursors[j];
+				cursors[j] = cursors[j - 1];
+				cursors[j - 1] = cursor;
+			}
+		}
+	}
+
+	/**
+	 * Checks if book a is worse than book b: lower score, or same score and higher id.
+	 */
+	private static boolean worse(int[] ids, double[] scores, int a, int b) {
+		return scores[a] < scores[b] || (scores[a] == scores[b] && ids[a] > ids[b]);
+	}
+
+	private static void siftUp(int[] ids, double[] scores, int i) {
+		while(i > 0) {
+			int parent = (i - 1) / 2;
+			if(!worse(ids, scores, i, parent))
+				return;
+			swap(ids, scores, i, parent);
+			i = parent;
+		}
+	}
+
+	private static void siftDown(int[] ids, double[] scores, int size) {
+		int i = 0;
+		while(true) {
+			int child = 2 * i + 1;
+			if(child >= size)
+				return;
+			if(child + 1 < size && worse(ids, scores, child + 1, child))
+				child++;
+			if(!worse(ids, scores, child, i))
+				return;
+			swap(ids, scores, i, child);
+			i = child;
+		}
+	}
+
+	private static void swap(int[] ids, double[] scores, int a, int b) {
+		int id = ids[a];
+		ids[a] = ids[b];
+		ids[b] = id;
+		double score = scores[a];
+		scores[a] = scores[b];
+		scores[b] = score;
+	}
+}
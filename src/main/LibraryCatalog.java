@@ -1,174 +1,530 @@
 package main;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
 
 import data_structures.ArrayList;
 import data_structures.DoublyLinkedList;
+import data_structures.IntObjectHashMap;
+import data_structures.IntArrayList;
+import data_structures.PrefixTrie;
 import data_structures.SinglyLinkedList;
+import data_structures.StringDictionary;
 import interfaces.FilterFunction;
+import interfaces.IntList;
 import interfaces.List;
 /**
  * This class represents a library catalog responsible for managing books and users efficiently. 
  * It utilizes ArrayLists to store book and user data. Thanks to this we have efficient access and usage.
+ * 
+ * The catalog can be shared between threads (for example several desk terminals).
+ * Adding or removing books takes the write side of structureLock. Checking out and returning books only
+ * take the read side plus the lock of the book's stripe, so operations on different books run in parallel
+ * while two operations on the same book are serialized.
  */
 public class LibraryCatalog{
 	
 	List<Book> libraryBooks;
 	List<User> users;
+	// Primary key index over libraryBooks. Maps each book id to its Book so we don't scan the list.
+	IntObjectHashMap<Book> bookIndex;
+	// Id for the next book added with addBook. Always above every id in the catalog, and never goes back,
+	// so an id freed by removeBook isn't given to another book.
+	private int nextId;
+	// Genre counts, checked out books and user fees, kept up to date by the methods that change the catalog
+	CatalogStatistics statistics;
+	// Canonical title, author and genre Strings. Every Book of the catalog shares the instances kept here,
+	// so a title repeated by a thousand copies is stored once. The genre codes are the genre's code here.
+	final StringDictionary titleDictionary = new StringDictionary();
+	final StringDictionary authorDictionary = new StringDictionary();
+	final StringDictionary genreDictionary = new StringDictionary();
+	// Secondary indexes: the books with each title, author and genre. Kept in sync with libraryBooks.
+	final AttributeIndex titleIndex = new AttributeIndex(titleDictionary, Book::getTitle);
+	final AttributeIndex authorIndex = new AttributeIndex(authorDictionary, Book::getAuthor);
+	final AttributeIndex genreIndex = new AttributeIndex(genreDictionary, Book::getGenre);
+	// Words of the titles and authors. Built by the first keyword search, null until then (see keywordIndex()).
+	private volatile KeywordIndex keywordIndex;
+	// Titles and authors for autocompletion, counted once per book. Built by the first completion, null until then.
+	// authorTrie is set before titleTrie, so a non-null titleTrie means both are ready.
+	private PrefixTrie authorTrie;
+	private volatile PrefixTrie titleTrie;
+	// Guards the structure of libraryBooks and bookIndex. Readers may run together, changes run alone.
+	final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+	// Lock stripes for checking out and returning books. A book uses stripe (id & (CHECK_OUT_STRIPES - 1)).
+	static final int CHECK_OUT_STRIPES = 64;
+	final Object[] checkOutLocks = newLocks(CHECK_OUT_STRIPES);
 	
 	public LibraryCatalog() throws IOException {
-		libraryBooks = this.getBooksFromFiles();
-		users = this.getUsersFromFiles();
+		this("data/catalog.csv", "data/user.csv");
+	}
+	/**
+	 * Builds the catalog from the given book and user CSV files instead of the default ones in data/.
+	 *
+	 * @param catalogPath Path of the CSV file with the books.
+	 * @param userPath Path of the CSV file with the users.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public LibraryCatalog(String catalogPath, String userPath) throws IOException {
+		this(catalogPath, userPath, false);
+	}
+	/**
+	 * Builds the catalog from the given book and user CSV files.
+	 * 
+	 * With parallelLoad the book file is memory mapped and parsed in chunks on the common fork-join pool
+	 * (see ParallelCatalogLoader). The resulting catalog is the same as the sequential one, but the file
+	 * can't have quoted fields that span several lines.
+	 *
+	 * @param catalogPath Path of the CSV file with the books.
+	 * @param userPath Path of the CSV file with the users.
+	 * @param parallelLoad Whether to parse the book file in parallel.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public LibraryCatalog(String catalogPath, String userPath, boolean parallelLoad) throws IOException {
+		this(catalogPath, userPath, parallelLoad, false);
+	}
+	/**
+	 * Builds the catalog from the given book and user CSV files.
+	 * 
+	 * With compactUsers every user keeps only the ids of its checked out books in an IntArrayList
+	 * and looks them up in the id index when asked for the books (see User). That saves a list node
+	 * per loan, at the cost of building the list again on each getCheckedOutList() call.
+	 *
+	 * @param catalogPath Path of the CSV file with the books.
+	 * @param userPath Path of the CSV file with the users.
+	 * @param parallelLoad Whether to parse the book file in parallel.
+	 * @param compactUsers Whether users store book ids instead of book lists.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public LibraryCatalog(String catalogPath, String userPath, boolean parallelLoad, boolean compactUsers) throws IOException {
+		if(parallelLoad) {
+			libraryBooks = ParallelCatalogLoader.load(catalogPath, ForkJoinPool.commonPool());
+			bookIndex = new IntObjectHashMap<>(libraryBooks.size());
+			for(Book book: libraryBooks) {
+				// Each chunk was interned on its own, this makes the instances shared by the whole catalog
+				internStrings(book);
+				indexLoadedBook(book, catalogPath);
+			}
+		}
+		else {
+			libraryBooks = this.getBooksFromFiles(catalogPath);
+		}
+		users = this.getUsersFromFiles(userPath, compactUsers);
+		statistics = new CatalogStatistics(libraryBooks, users);
+		nextId = nextIdAfter(libraryBooks);
 	}
 	/**
 	 * Reads the book information from a CSV file and gets the list of books.
+	 * The id index (bookIndex) is filled in the same pass so users can resolve their books right after.
 	 *
+	 * @param pathBooks Path of the CSV file containing book information.
 	 * @return A list of Book objects read from the CSV file.
 	 * @throws IOException If an IO error occurs.
 	 */
-	private List<Book> getBooksFromFiles() throws IOException {
+	private List<Book> getBooksFromFiles(String pathBooks) throws IOException {
 		List<Book> BooksFromFiles = new ArrayList<>();	// Using arrayList for efficiency and being able to check if the data added is correct handling objects is easier
+		bookIndex = new IntObjectHashMap<>();
 		
-		String pathBooks = "data/catalog.csv";		// Define the path to the CSV file containing book information
-		BufferedReader BReader = new BufferedReader(new FileReader(pathBooks));		// Initialize a buffered reader to read from the file
-		String currLine = BReader.readLine();		// Read the first line of the CSV file (header)
-		boolean skipsFirstLineCsv = true;
-
-		while(currLine != null) {		// Loop to read each line of the CSV file
-			String[] bookInfo = currLine.split("\\s*,\\s*");
-			if(!skipsFirstLineCsv) {		// Check if this is not the first line (skip the header line) (Because it gives an error if we don't check this)
-				int id = Integer.parseInt(bookInfo[0]);
-				String title = bookInfo[1];
-				String author = bookInfo[2];
-				String genre = bookInfo[3];
+		try(CsvReader reader = new CsvReader(new FileReader(pathBooks, StandardCharsets.UTF_8))) {		// The reader parses each field in place, no split() or substrings per line
+			reader.next();		// Skip the header line
 
-				LocalDate lastCheckOut = LocalDate.parse(bookInfo[4], DateTimeFormatter.ofPattern("yyyy-MM-d"));
-				boolean checkedOut = Boolean.parseBoolean(bookInfo[5]);
-
-				BooksFromFiles.add(new Book(id, title, author, genre, lastCheckOut, checkedOut));
+			while(reader.next()) {		// Loop to read each record of the CSV file
+				Book book = readBook(reader, titleDictionary, authorDictionary, genreDictionary);
+				BooksFromFiles.add(book);
+				indexLoadedBook(book, pathBooks);
 			}
-			skipsFirstLineCsv = false;		// Set skipFirstLine to false after processing the first non-header line
-			currLine = BReader.readLine();		// Read the next line from the file
-			
 		}
-
-		BReader.close();		// Close the buffered reader to avoid errors
 		return BooksFromFiles;		// Return the list of books read from the file
 	}
+	/**
+	 * Builds a Book from the current record of a catalog CSV file.
+	 * The columns are: ID, Title, Author, Genre, Last Checkout Date, Checked Out.
+	 * Titles, authors and genres come from the dictionaries, so repeated values share one String
+	 * and only new values are allocated.
+	 *
+	 * @param reader Reader positioned on a book record.
+	 * @param titles Dictionary of the titles.
+	 * @param authors Dictionary of the authors.
+	 * @param genres Dictionary of the genres.
+	 * @return The book described by the record.
+	 */
+	static Book readBook(CsvReader reader, StringDictionary titles, StringDictionary authors, StringDictionary genres) {
+		int id = reader.getInt(0);
+		String title = reader.getString(1, titles);
+		String author = reader.getString(2, authors);
+		String genre = reader.getString(3, genres);
+
+		LocalDate lastCheckOut = reader.getDate(4);
+		boolean checkedOut = reader.getBoolean(5);
+
+		return new Book(id, title, author, genre, lastCheckOut, checkedOut);
+	}
 	/**
 	 * Reads the user information from a CSV file and gets the list of users.
 	 *
+	 * @param pathUsers Path of the CSV file containing user information.
 	 * @return A list of User objects read from the CSV file.
 	 * @throws IOException If an IO error occurs.
 	 */
-	private List<User> getUsersFromFiles() throws IOException {
+	private List<User> getUsersFromFiles(String pathUsers, boolean compact) throws IOException {
 		List<User> UserFromFiles = new ArrayList<>();	// Using arrayList for efficiency and being able to check if the data added is correct handling objects is easier
 		
-		String pathUsers = "data/user.csv";
-		BufferedReader UReader = new BufferedReader(new FileReader(pathUsers));
-		String userLines = UReader.readLine();
-		boolean skipFirstLine = true;
+		// Compact users look their books up when asked, one resolver shared by all of them
+		IntFunction<Book> bookLookup = compact ? this::lookUpBook : null;
+		try(CsvReader reader = new CsvReader(new FileReader(pathUsers, StandardCharsets.UTF_8))) {
+			reader.next();		// Skip the header line
 
-		while(userLines != null) {
-			// Split the CSV line into an array of user information using comma as the delimiter.
-			String[] userInfo = userLines.split(",");
-			// Check if the user info contains 2 elements (id and name), and it's not the first line (skip the header line).
-			if(userInfo.length == 2 && !skipFirstLine) {
-				
-				String id = userInfo[0].trim();
-				String name = userInfo[1].trim();
-				List<Book> checkedOutBooks = new SinglyLinkedList<Book>(); 
-				// Create a new User object and add it to the list of users
-				User user = new User(Integer.parseInt(id), name, checkedOutBooks);
-				UserFromFiles.add(user);
-			
-			} 
-			// Check if the user info contains 3 elements (id, name, and book IDs), and it's not the first line (skip the header line)
-			else if(userInfo.length == 3 && !skipFirstLine) {
-				// Parse user information from the CSV array
-				String id = userInfo[0].trim();
-				String name = userInfo[1].trim();
-				String listIds = userInfo[2].replace("{", "").replace("}", "");
-				String[] ids = listIds.split(" ");
-				List<Book> checkedOutBooks = new SinglyLinkedList<Book>(); 
-				// Iterate through book IDs and find corresponding books from libraryBooks
-				for(String bookID: ids) {
-					int numberID = Integer.parseInt(bookID);
-					for(Book book: libraryBooks) {
-						if(book.getId() == numberID) {
+			while(reader.next()) {
+				// Records need at least the id and the name, the third field (book IDs) is optional
+				if(reader.fieldCount() < 2) {
+					continue;
+				}
+				int id = reader.getInt(0);
+				String name = reader.getString(1);
+				List<Book> checkedOutBooks = compact ? null : new SinglyLinkedList<Book>(); 
+				IntArrayList checkedOutIds = compact ? new IntArrayList(0) : null;
+				if(reader.fieldCount() > 2) {
+					// Resolve each book ID of {2 4 6} through the index built from the catalog
+					reader.getInts(2, bookID -> {
+						Book book = bookIndex.get(bookID);
+						if(book == null) {
+							// Don't drop unknown IDs silently, the data files are out of sync
+							System.err.println(pathUsers + ": user " + id + " references unknown book ID " + bookID);
+						}
+						else if(compact) {
+							checkedOutIds.add(bookID);
+						}
+						else {
 							checkedOutBooks.add(book);
 						}
-					}
+					});
 				}
-				
 				// Create a new User object with checked-out books and add it to the list of users.
-				User user = new User(Integer.parseInt(id), name, checkedOutBooks);
+				User user;
+				if(compact) {
+					checkedOutIds.trimToSize();
+					user = new User(id, name, checkedOutIds, bookLookup);
+				}
+				else {
+					user = new User(id, name, checkedOutBooks);
+				}
 				UserFromFiles.add(user);
 			}
-			userLines = UReader.readLine();
-			skipFirstLine = false;
 		}
-		UReader.close();
 		return UserFromFiles;
 	}
+	/**
+	 * Finds a book for a compact User. Users can be read from any thread while books are added or
+	 * removed, so the index is read under the read lock.
+	 * 
+	 * tryLock() first: it doesn't wait behind a queued writer. A parallel searchForUsers holds the read
+	 * lock on its calling thread while its filter runs on pool threads, and if those waited for a writer
+	 * that waits for the search, nobody would move.
+	 */
+	private Book lookUpBook(int id) {
+		if(!this.structureLock.readLock().tryLock()) {
+			this.structureLock.readLock().lock();
+		}
+		try {
+			return this.bookIndex.get(id);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Builds the catalog from a snapshot file. Compact users of the snapshot look their books up in
+	 * this catalog, which is why the file is read here and not by loadSnapshot().
+	 */
+	private LibraryCatalog(Path snapshotPath) throws IOException {
+		CatalogSnapshot snapshot = CatalogSnapshot.read(snapshotPath.toString(), this::lookUpBook);
+		libraryBooks = snapshot.getBooks();
+		for(Book book: libraryBooks) {
+			// The snapshot already shares its Strings, this only fills the dictionaries
+			internStrings(book);
+			addToIndexes(book);
+		}
+		bookIndex = snapshot.getBookIndex();
+		users = snapshot.getUsers();
+		statistics = new CatalogStatistics(libraryBooks, users);
+		// Not recomputed from the books: the largest id may belong to a book that was removed
+		nextId = snapshot.getNextId();
+	}
+	/**
+	 * Restores a catalog from a binary snapshot written by saveSnapshot().
+	 * This skips all the CSV parsing, so it's much faster than the constructors for big catalogs.
+	 *
+	 * @param path Path of the snapshot file.
+	 * @return The restored catalog.
+	 * @throws IOException If an IO error occurs or the file is not a valid snapshot.
+	 */
+	public static LibraryCatalog loadSnapshot(String path) throws IOException {
+		return new LibraryCatalog(Paths.get(path));
+	}
+	/**
+	 * Saves the current books and users (with their checked out books) to a binary snapshot file.
+	 * See CatalogSnapshot for the format.
+	 *
+	 * Like writeReport(), the catalog is locked while the file is written, so the snapshot is a single
+	 * moment and never sees a book half checked out.
+	 *
+	 * @param path Path of the snapshot file. It is replaced if it exists.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void saveSnapshot(String path) throws IOException {
+		this.structureLock.writeLock().lock();
+		try {
+			CatalogSnapshot.write(path, libraryBooks, bookIndex, users, nextId);
+		} finally {
+			this.structureLock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Adds a book read from a file to the id index and the secondary indexes.
+	 *
+	 * @throws IOException If another book of the file has the same id.
+	 */
+	private void indexLoadedBook(Book book, String path) throws IOException {
+		if(bookIndex.putIfAbsent(book.getId(), book) != null) {
+			throw new IOException(path + ": book ID " + book.getId() + " appears twice");
+		}
+		addToIndexes(book);
+	}
+	/**
+	 * Returns the id after the largest one of the books, 1 for an empty catalog.
+	 */
+	private static int nextIdAfter(List<Book> books) {
+		int max = 0;
+		for(Book book: books) {
+			max = Math.max(max, book.getId());
+		}
+		return max + 1;
+	}
+	/**
+	 * Replaces the title, author and genre of the book by the catalog's canonical instances.
+	 */
+	private void internStrings(Book book) {
+		book.setTitle(titleDictionary.intern(book.getTitle()));
+		book.setAuthor(authorDictionary.intern(book.getAuthor()));
+		book.setGenre(genreDictionary.intern(book.getGenre()));
+	}
+	private void addToIndexes(Book book) {
+		titleIndex.add(book);
+		authorIndex.add(book);
+		genreIndex.add(book);
+	}
+	private void removeFromIndexes(Book book) {
+		titleIndex.remove(book);
+		authorIndex.remove(book);
+		genreIndex.remove(book);
+	}
+	/**
+	 * Lets the title and author dictionaries forget the values no book has anymore, once there are
+	 * many of them. Genres keep their codes (see genreCode).
+	 */
+	private void compactDictionaries() {
+		titleIndex.compactIfSparse();
+		authorIndex.compactIfSparse();
+	}
+	/**
+	 * Returns the code of a genre. Genres are numbered 0, 1, 2... in the order they first appear in the
+	 * catalog, and keep their code even if all their books are removed.
+	 *
+	 * @param genre The genre.
+	 * @return The code of the genre, -1 if no book of the catalog ever had it.
+	 */
+	public int genreCode(String genre) {
+		this.structureLock.readLock().lock();
+		try {
+			return genreDictionary.code(genre);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Returns the genre with the given code.
+	 *
+	 * @param code A code returned by genreCode.
+	 * @return The genre.
+	 * @throws IndexOutOfBoundsException If no genre has this code.
+	 */
+	public String genreName(int code) {
+		this.structureLock.readLock().lock();
+		try {
+			return genreDictionary.get(code);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
 	public List<Book> getBookCatalog()    {
 		return this.libraryBooks;		//returns the list of books
 	}
 	public List<User> getUsers()  {
 		return this.users;		//returns the list of users
 	}
+	/**
+	 * Returns the live statistics of the catalog. They are cheap to read, nothing gets recomputed.
+	 * 
+	 * @return The statistics of this catalog.
+	 */
+	public CatalogStatistics getStatistics() {
+		return this.statistics;
+	}
+	private static Object[] newLocks(int count) {
+		Object[] locks = new Object[count];
+		for(int i = 0; i < count; i++) {
+			locks[i] = new Object();
+		}
+		return locks;
+	}
+	/**
+	 * Returns the lock that serializes check outs and returns of the book with the given id.
+	 */
+	private Object checkOutLock(int id) {
+		return this.checkOutLocks[id & (CHECK_OUT_STRIPES - 1)];
+	}
 	/**
 	 * 
 	 * // Create a new Book object with the parameters and publication date of September 15, 2023
 	 * // Add the new Book to the library list
 	 * 
+	 * The id is one more than the largest id the catalog ever had, so ids of removed books are not reused.
 	 */
 	public void addBook(String title, String author, String genre)  {		
-		int bookID = this.libraryBooks.size()+1;
-		
-		Book newBook = new Book(bookID, title, author, genre, LocalDate.of(2023, 9, 15), false);		
-		
-		this.libraryBooks.add(newBook);		
-		
+		this.structureLock.writeLock().lock();
+		try {
+			if(this.nextId == Integer.MAX_VALUE) {
+				throw new IllegalStateException("No book IDs left");
+			}
+			int bookID = this.nextId;
+			
+			Book newBook = new Book(bookID, titleDictionary.intern(title), authorDictionary.intern(author), genreDictionary.intern(genre), Book.FEE_DATE, false);		
+			
+			if(this.bookIndex.putIfAbsent(bookID, newBook) != null) {		// Keep the index in sync with the list, never replacing another book
+				throw new IllegalStateException("Book ID " + bookID + " is already in use");
+			}
+			this.nextId++;
+			this.libraryBooks.add(newBook);		
+			addToIndexes(newBook);
+			if(this.keywordIndex != null) {
+				this.keywordIndex.add(newBook);
+			}
+			if(this.titleTrie != null) {
+				this.titleTrie.add(newBook.getTitle());
+				this.authorTrie.add(newBook.getAuthor());
+			}
+			this.statistics.bookAdded(newBook);
+		} finally {
+			this.structureLock.writeLock().unlock();
+		}
 	}
 	/**
-	 * // Iterate through each book in the libraryBooks list
+	 * // Look up the book by id in the index
 	 * 
-	 * // Check if the current book's ID matches the provided ID
-	 * //Removes book from list after checking if Id's matched
+	 * //Removes book from list and from the index if it was found
 	 */
 	public void removeBook(int id) {
-		
-		for(Book book: libraryBooks) {		
-			if(book.getId() == id) {		
+		this.structureLock.writeLock().lock();
+		try {
+			Book book = this.bookIndex.remove(id);		
+			if(book != null) {		
 				this.libraryBooks.remove(book);		
+				removeFromIndexes(book);
+				compactDictionaries();
+				if(this.keywordIndex != null) {
+					this.keywordIndex.remove(book);
+				}
+				if(this.titleTrie != null) {
+					this.titleTrie.remove(book.getTitle());
+					this.authorTrie.remove(book.getAuthor());
+				}
+				this.statistics.bookRemoved(book);
+			}
+		} finally {
+			this.structureLock.writeLock().unlock();
+		}
+	}
+	/**
+	 * Removes every book that passes the filter, in one pass over the catalog.
+	 * Meant for weeding out many books at once, where calling removeBook for each would rescan the list every time.
+	 * 
+	 * @param filter Decides which books are removed.
+	 * @return The number of books removed.
+	 */
+	public int removeBooks(FilterFunction<Book> filter) {
+		this.structureLock.writeLock().lock();
+		// Books taken out of the list so far. If the filter throws, removeIf still drops the books it
+		// matched before, so the indexes below are rebuilt either way.
+		int[] removed = new int[1];
+		try {
+			this.libraryBooks.removeIf(book -> {
+				if(!filter.filter(book))
+					return false;
+				this.bookIndex.remove(book.getId());
+				this.statistics.bookRemoved(book);
+				removed[0]++;
+				return true;
+			});
+			return removed[0];
+		} finally {
+			try {
+				if(removed[0] > 0) {
+					// Rebuilding the secondary indexes is one pass, removing each book from them could be one pass per book
+					titleIndex.clear();
+					authorIndex.clear();
+					genreIndex.clear();
+					for(Book book: this.libraryBooks) {
+						addToIndexes(book);
+					}
+					compactDictionaries();
+					// The next keyword search and completion build them again
+					this.keywordIndex = null;
+					this.titleTrie = null;
+				}
+			} finally {
+				this.structureLock.writeLock().unlock();
 			}
 		}
-		
 	}
 	/**
 	 * // Check if the book ID matches and the book is not already checked out
 	 * 
 	 * // Return false if the book is not found or if it's already checked out
 	 * 
+	 * The check and the update happen while holding the book's stripe lock, so two threads
+	 * can never both check out the same book.
 	 */
 	public boolean checkOutBook(int id)  {
-		
-		for(Book book: libraryBooks) {
-			if(book.getId() == id && !book.isCheckedOut()) {		
+		this.structureLock.readLock().lock();
+		try {
+			Book book = this.bookIndex.get(id);
+			if(book == null) {
+				return false;
+			}
+			synchronized(checkOutLock(id)) {
+				if(book.isCheckedOut()) {
+					return false;
+				}
+				float oldFee = book.calculateFees();
 				book.setCheckedOut(true);
-				 book.setLastCheckOut(LocalDate.of(2023, 9, 15));
-				 return true;
+				book.setLastCheckOut(Book.FEE_DATE);
+				this.statistics.checkOutChanged(book, oldFee);
+				return true;
 			}
+		} finally {
+			this.structureLock.readLock().unlock();
 		}
-		return false;		
 	}
 	/*
 	 * If the book is CheckedOut I set it to false so it basically gets returned or marked as not checkedOut
@@ -176,13 +532,24 @@ public class LibraryCatalog{
 	 * Also return false if the book was never checkedOut
 	 */
 	public boolean returnBook(int id) {
-		for(Book book: libraryBooks) {
-			if(book.getId() == id && book.isCheckedOut()) {
+		this.structureLock.readLock().lock();
+		try {
+			Book book = this.bookIndex.get(id);
+			if(book == null) {
+				return false;
+			}
+			synchronized(checkOutLock(id)) {
+				if(!book.isCheckedOut()) {
+					return false;
+				}
+				float oldFee = book.calculateFees();
 				book.setCheckedOut(false);
-				 return true;
+				this.statistics.checkOutChanged(book, oldFee);
+				return true;
 			}
+		} finally {
+			this.structureLock.readLock().unlock();
 		}
-		return false;
 	}
 		
 	/*
@@ -190,131 +557,299 @@ public class LibraryCatalog{
 	 * Return true if the book is available (not checked out)
 	 */
 	public boolean getBookAvailability(int id) {
-		for (Book book : libraryBooks) {
-		     if (book.getId() == id) {
-		            return !book.isCheckedOut();  
-		        }
-		    }
-		    return false;
+		this.structureLock.readLock().lock();
+		try {
+			Book book = this.bookIndex.get(id);
+			if(book == null) {
+				return false;
+			}
+			synchronized(checkOutLock(id)) {
+				return !book.isCheckedOut();
+			}
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
 	}
 	/*
-	 * We iterate and compare titles to determine if it should count it
-	 * If it matches the given title then we count it and return the count of books
+	 * Returns how many books have the given title
+	 * The title index keeps the books of each title, so this doesn't iterate the catalog anymore
 	 */
 	public int bookCount(String title) {
-		int count = 0;
-		for(Book book: libraryBooks) {
-			if(book.getTitle().equals(title)) { 
-				count++;
+		return countByTitle(title);
+	}
+	/**
+	 * Finds the books with exactly this title, using the title index instead of scanning the catalog.
+	 * The time depends on the number of books found, not on the size of the catalog.
+	 * 
+	 * @param title The title, compared with equals().
+	 * @return The books with that title, in catalog order.
+	 */
+	public List<Book> findByTitle(String title) {
+		this.structureLock.readLock().lock();
+		try {
+			return titleIndex.find(title);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the books by exactly this author, using the author index.
+	 * 
+	 * @param author The author, compared with equals().
+	 * @return The books by that author, in catalog order.
+	 */
+	public List<Book> findByAuthor(String author) {
+		this.structureLock.readLock().lock();
+		try {
+			return authorIndex.find(author);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the books of exactly this genre, using the genre index.
+	 * 
+	 * @param genre The genre, compared with equals().
+	 * @return The books of that genre, in catalog order.
+	 */
+	public List<Book> findByGenre(String genre) {
+		this.structureLock.readLock().lock();
+		try {
+			return genreIndex.find(genre);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the books whose title or author has every word of the query, in any case.
+	 * "lord rings" finds "The Lord of the Rings". Words are whole: "ring" doesn't find it.
+	 * 
+	 * The first keyword search builds the keyword index, which takes about as long as a few scans.
+	 * After that, searches take time proportional to the shortest word list, not to the catalog.
+	 * 
+	 * @param query Words separated by spaces or punctuation.
+	 * @return The matching books, by increasing id.
+	 */
+	public List<Book> searchAllKeywords(String query) {
+		this.structureLock.readLock().lock();
+		try {
+			return booksOf(keywordIndex().matchAll(query));
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Finds the k books that best match any word of the query, looking at titles and authors.
+	 * Books that have more of the words come first, and rare words count more than common ones
+	 * ("tolkien" more than "the").
+	 * 
+	 * @param query Words separated by spaces or punctuation.
+	 * @param k Maximum number of books to return.
+	 * @return The best books, best first.
+	 */
+	public List<Book> searchAnyKeywords(String query, int k) {
+		this.structureLock.readLock().lock();
+		try {
+			return booksOf(keywordIndex().topK(query, k));
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Returns the keyword index, building it if this is the first keyword search.
+	 * The caller holds the read or write lock, so the catalog doesn't change while it's built.
+	 */
+	KeywordIndex keywordIndex() {
+		KeywordIndex index = this.keywordIndex;
+		if(index == null) {
+			// Several readers may get here at once, only one of them builds it
+			synchronized(this.structureLock) {
+				index = this.keywordIndex;
+				if(index == null) {
+					index = new KeywordIndex();
+					index.build(this.libraryBooks);
+					this.keywordIndex = index;
+				}
 			}
-			
 		}
-		return count; //returns the amount of books
-		
+		return index;
+	}
+	/**
+	 * Autocompletes a title: returns the titles that start with prefix (in any case), the ones with the
+	 * most copies first. Titles with the same number of copies are in alphabetical order.
+	 * 
+	 * The first completion builds the prefix tree of titles and authors. After that the time depends on
+	 * the length of the prefix and on n, not on the size of the catalog.
+	 * 
+	 * @param prefix What the user has typed so far.
+	 * @param n Maximum number of titles.
+	 * @return The titles, most copies first.
+	 */
+	public List<String> completeTitle(String prefix, int n) {
+		this.structureLock.readLock().lock();
+		try {
+			titleTrie();
+			return this.titleTrie.complete(prefix, n);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Autocompletes an author: returns the authors that start with prefix (in any case), the ones with
+	 * the most books first.
+	 * 
+	 * @param prefix What the user has typed so far.
+	 * @param n Maximum number of authors.
+	 * @return The authors, most books first.
+	 */
+	public List<String> completeAuthor(String prefix, int n) {
+		this.structureLock.readLock().lock();
+		try {
+			titleTrie();
+			return this.authorTrie.complete(prefix, n);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Builds the title and author prefix trees if this is the first completion.
+	 * The caller holds the read or write lock, so the catalog doesn't change while they're built.
+	 */
+	private void titleTrie() {
+		if(this.titleTrie != null) {
+			return;
+		}
+		synchronized(this.structureLock) {
+			if(this.titleTrie == null) {
+				PrefixTrie titles = new PrefixTrie();
+				PrefixTrie authors = new PrefixTrie();
+				for(Book book: this.libraryBooks) {
+					titles.add(book.getTitle());
+					authors.add(book.getAuthor());
+				}
+				this.authorTrie = authors;
+				this.titleTrie = titles;
+			}
+		}
+	}
+	private List<Book> booksOf(IntList ids) {
+		List<Book> books = new ArrayList<>(ids.size());
+		for(int i = 0; i < ids.size(); i++) {
+			Book book = this.bookIndex.get(ids.get(i));
+			if(book != null) {
+				books.add(book);
+			}
+		}
+		return books;
 	}
+	/**
+	 * Counts the books with exactly this title in O(1), using the title index.
+	 * 
+	 * @param title The title, compared with equals().
+	 * @return The number of books with that title.
+	 */
+	public int countByTitle(String title) {
+		this.structureLock.readLock().lock();
+		try {
+			return titleIndex.count(title);
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
+	/**
+	 * Writes the report to ./report/report.txt.
+	 * 
+	 * The report is streamed section by section through a buffered writer (see writeReport), so it is
+	 * never held in memory as a whole.
+	 */
 	public void generateReport() throws IOException {
+		/*
+		 * THIS IS THE REPORT WRITER 
+		 */
+		try {
+			String pathN = "report.txt";
+			File reportF = new File("./report/"+pathN);
+			
+			//Use this below instead of a reader to actually write the file
+			BufferedWriter bufferedReportWriter = new BufferedWriter(new FileWriter(reportF, StandardCharsets.UTF_8));
+			//This writes the report on the text file
+			writeReport(bufferedReportWriter);
+			//Closes the writer to avoid errors
+			bufferedReportWriter.close();
 		
-		String output = "\t\t\t\tREPORT\n\n";
-		output += "\t\tSUMMARY OF BOOKS\n";
-		output += "GENRE\t\t\t\t\t\tAMOUNT\n";
+		}catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	/**
+	 * In-memory version of generateReport. Useful for testing or for showing the report somewhere else.
+	 * 
+	 * @return The whole report.
+	 */
+	public String generateReportString() {
+		StringWriter output = new StringWriter();
+		try {
+			writeReport(output);
+		} catch (IOException e) {
+			// A StringWriter never throws
+			throw new UncheckedIOException(e);
+		}
+		return output.toString();
+	}
+	/**
+	 * Writes the report to output, one line at a time.
+	 * The caller is responsible for buffering and closing output.
+	 * 
+	 * The catalog is locked while the report is written so it describes a single moment:
+	 * check outs and returns from other threads wait until it's done.
+	 * 
+	 * @param output Where the report is written.
+	 * @throws IOException If output fails.
+	 */
+	public void writeReport(Writer output) throws IOException {
+		this.structureLock.writeLock().lock();
+		try {
+			writeReportSections(output);
+		} finally {
+			this.structureLock.writeLock().unlock();
+		}
+	}
+	private void writeReportSections(Writer output) throws IOException {
+		CatalogReportWriter report = new CatalogReportWriter(output);
+		report.startGenres();
 		/*
 		 * In this section you will print the amount of books per category.
 		 * 
-		 * Place in each parenthesis the specified count. 
-		 * 
 		 * Note this is NOT a fixed number, you have to calculate it because depending on the 
 		 * input data we use the numbers will differ.
-		 * 
-		 * How you do the count is up to you. You can make a method, use the searchForBooks()
-		 * function or just do the count right here.
 		 */
-		/**
-		 * //each loop gets each book of each genre and returns a count of the amount of books of that genre
-		 * 
+		/*
+		 * The counts come from the live statistics, so the catalog isn't scanned here.
+		 * The five usual genres come first and any other genre is listed after them.
 		 */
-		
-		int countAdv = 0;
-		for(Book books: libraryBooks) {
-			if(books.getGenre().equals("Adventure")) {
-				countAdv++;
-			}
-		}
-		int countFi = 0;
-		for(Book books: libraryBooks) {
-			if(books.getGenre().equals("Fiction")) {
-				countFi++;
-			}
-		}
-		int countCl = 0;
-		for(Book books: libraryBooks) {
-			if(books.getGenre().equals("Classics")) {
-				countCl++;
-			}
-		}
-		int countMys = 0;
-		for(Book books: libraryBooks) {
-			if(books.getGenre().equals("Mystery")) {
-				countMys++;
-			}
-		}
-		int countSF = 0;
-		for(Book books: libraryBooks) {
-			if(books.getGenre().equals("Science Fiction")) {
-				countSF++;
-			}
+		for(String genre: statistics.reportGenres()) {
+			report.genre(genre, statistics.genreCount(genre));
 		}
-		
-		
-		output += "Adventure\t\t\t\t\t" + countAdv + "\n";
-		output += "Fiction\t\t\t\t\t\t" + countFi + "\n";
-		output += "Classics\t\t\t\t\t" + countCl + "\n";
-		output += "Mystery\t\t\t\t\t\t" + countMys + "\n";
-		output += "Science Fiction\t\t\t\t\t" + countSF + "\n";
-		output += "====================================================\n";
-		output += "\t\t\tTOTAL AMOUNT OF BOOKS\t" + libraryBooks.size() + "\n\n";
+		report.endGenres(libraryBooks.size());
 		
 		/*
 		 * This part prints the books that are currently checked out
 		 */
-		output += "\t\t\tBOOKS CURRENTLY CHECKED OUT\n\n";
-		/*
-		 * Here you will print each individual book that is checked out.
-		 * 
-		 * Remember that the book has a toString() method. 
-		 * Notice if it was implemented correctly it should print the books in the 
-		 * expected format.
-		 * 
-		 * PLACE CODE HERE
-		 */
+		report.startCheckedOut();
 
 		/*
-		 *  Check if the book is checked out
-		 *  Append the book information to the output and increment the counter
+		 *  Write the information of each checked out book
 		 */
-		int counter = 0;
-		for(Book books: libraryBooks) { 
-			
-			if(books.isCheckedOut()) {		
-				
-				output+= books + "\n";      
-				counter++;
-				
-			}
-			
+		for(Book books: statistics.checkedOutBooks()) { 
+			report.checkedOutBook(books.getTitle(), books.getAuthor());
 		}
-		
-		
-		
-		
-		
-		output += "====================================================\n";
-		output += "\t\t\tTOTAL AMOUNT OF BOOKS\t" + counter  + "\n\n";
+		report.endCheckedOut(statistics.checkedOutCount());
 		
 		
 		/*
 		 * Here we will print the users the owe money.
 		 */
-		output += "\n\n\t\tUSERS THAT OWE BOOK FEES\n\n";
+		report.startUsers();
 		/*
 		 * Here you will print all the users that owe money.
 		 * The amount will be calculating taking into account 
@@ -327,69 +862,18 @@ public class LibraryCatalog{
 		 * 
 		 * Notice that we place 5 tabs between the name and fee and 
 		 * the fee should have 2 decimal places.
-		 * 
-		 * PLACE CODE HERE!
 		 */
 		
 		/*
-		 *  Calculate the fee for each book and add up the total fee
-		 *  Add the total due based on the fees for the user checked-out books
-		 *  Format the fee to two decimal places
-		 *  Add the user's name and fee to the output with two decimal places
+		 *  Each user's fees come from the live statistics
+		 *  The report adds them up for the total due
 		 */
-		float totalDue = 0;
 		for (User user : users) {
-		    float fee = 0;
 		    if (user.getCheckedOutList().size() > 0) {
-		        List<Book> userBooks = user.getCheckedOutList();
-		        for (Book book : userBooks) {
-		            fee += book.calculateFees();  
-		        }
-		        totalDue += fee;  
-
-		        
-		        String formattedFee = String.format("%.2f", fee);
-
-		        
-		        output += user.getName() + "\t\t\t\t\t" + "$" + formattedFee + "\n";
+		        report.userFee(user.getName(), statistics.userFees(user));
 		    }
 		}
-		 // Format the totalDue to two decimal places
-		String formattedTotalDue = String.format("%.2f", totalDue);
-		output += "====================================================\n";
-		output += "\t\t\t\tTOTAL DUE\t$" +  formattedTotalDue + "\n\n\n";
-		output += "\n\n";
-		System.out.println(output);// You can use this for testing to see if the report is as expected.
-		
-		/*
-		 * Here we will write to the file.
-		 * 
-		 * The variable output has all the content we need to write to the report file.
-		 * 
-		 * PLACE CODE HERE!!
-		 */
-	
-	
-	/*
-	 * THIS IS THE REPORT WRITER 
-	 */
-	try {
-		String pathN = "report.txt";
-		File reportF = new File("./report/"+pathN);
-		
-		//Use this below instead of a reader to actually write the file
-		FileWriter fileWriter = new FileWriter(reportF);
-		BufferedWriter bufferedReportWriter = new BufferedWriter(fileWriter);
-		//This writes the report on the text file
-		bufferedReportWriter.write(output);
-		//Closes the writer to avoid errors
-		bufferedReportWriter.close();
-		
-		
-	
-	}catch (IOException e) {
-    e.printStackTrace();
-}
+		report.endUsers();
 	}
 
 	
@@ -403,18 +887,85 @@ public class LibraryCatalog{
 	 * We iterate through the list of books and use the filter
 	 * If we get true for the filter applied then we go ahead and add the book to the list
 	 * Should get a list of filtered books 
+	 * 
+	 * This scans the whole catalog. For exact title, author or genre matches use findByTitle,
+	 * findByAuthor and findByGenre, which use the secondary indexes, or build a BookQuery for search().
 	 */
 	public List<Book> searchForBook(FilterFunction<Book> func) {
-		  List<Book> filteredBooks = new ArrayList<>();
+		this.structureLock.readLock().lock();
+		try {
+			List<Book> filteredBooks = new ArrayList<>();
 	        for (Book book : libraryBooks) {
 	            if (func.filter(book)) {
 	                filteredBooks.add(book);
 	            }
 	        }
 	        return filteredBooks;
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
 	    }
+	
+	/**
+	 * Finds the books that match a query, using the title, author, genre and keyword indexes when the
+	 * query has terms they can answer (see BookQuery for the plan). Queries with no such term scan the
+	 * catalog like searchForBook.
+	 * 
+	 * Like findByGenre and the other index lookups, only changes made through the catalog are seen by
+	 * the indexes: a book whose genre was changed with Book.setGenre is still found under the old one.
+	 * 
+	 * @param query The query, for example BookQuery.genre("Mystery").and(BookQuery.checkedOut(false)).
+	 * @return The matching books, by increasing id.
+	 */
+	public List<Book> search(BookQuery query) {
+		this.structureLock.readLock().lock();
+		try {
+			IntList candidates = query.candidates(this);
+			if(candidates == null) {
+				// No index can answer the query
+				IntArrayList ids = new IntArrayList();
+				for(Book book: libraryBooks) {
+					if(query.filter(book)) {
+						ids.add(book.getId());
+					}
+				}
+				ids.sort();
+				return booksOf(ids);
+			}
+			List<Book> books = new ArrayList<>();
+			for(int i = 0; i < candidates.size(); i++) {
+				Book book = this.bookIndex.get(candidates.get(i));
+				if(book != null && query.filter(book)) {
+					books.add(book);
+				}
+			}
+			return books;
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
 
 	
+	/**
+	 * Same as searchForBook(func), but with parallel the catalog is split into ranges that are filtered
+	 * on the common fork-join pool (see ParallelSearch). Worth it for big catalogs or expensive filters.
+	 * Catalogs under ParallelSearch.PARALLEL_THRESHOLD books are still searched on this thread.
+	 * 
+	 * @param func The filter. With parallel it's called from several threads at once.
+	 * @param parallel Whether to search in parallel.
+	 * @return The matching books, in catalog order.
+	 */
+	public List<Book> searchForBook(FilterFunction<Book> func, boolean parallel) {
+		if(!parallel) {
+			return searchForBook(func);
+		}
+		this.structureLock.readLock().lock();
+		try {
+			return ParallelSearch.filter(libraryBooks, func, ForkJoinPool.commonPool());
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
 	/*
 	 * Applied the same as above
 	 * We iterate through the list of users and use the filter
@@ -422,14 +973,38 @@ public class LibraryCatalog{
 	 * Should get a list of filtered users 
 	 */
 	public List<User> searchForUsers(FilterFunction<User> func) {
-		 List<User> filteredUsers = new ArrayList<>();
+		this.structureLock.readLock().lock();
+		try {
+			List<User> filteredUsers = new ArrayList<>();
 	        for (User user : users) {
 	            if (func.filter(user)) {
 	                filteredUsers.add(user);
 	            }
 	        }
 	        return filteredUsers;
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
 	    }
+	/**
+	 * Same as searchForUsers(func), but with parallel the users are filtered in ranges on the common
+	 * fork-join pool, like searchForBook(func, parallel).
+	 * 
+	 * @param func The filter. With parallel it's called from several threads at once.
+	 * @param parallel Whether to search in parallel.
+	 * @return The matching users, in the order of getUsers().
+	 */
+	public List<User> searchForUsers(FilterFunction<User> func, boolean parallel) {
+		if(!parallel) {
+			return searchForUsers(func);
+		}
+		this.structureLock.readLock().lock();
+		try {
+			return ParallelSearch.filter(users, func, ForkJoinPool.commonPool());
+		} finally {
+			this.structureLock.readLock().unlock();
+		}
+	}
 	
 		
 	 
@@ -0,0 +1,217 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import data_structures.ArrayList;
+import data_structures.StringDictionary;
+import interfaces.List;
+
+/**
+ * Loads catalog.csv by memory mapping it and parsing line aligned chunks of it in parallel.
+ *
+ * The file is split into chunks of roughly CHUNK_SIZE bytes. Each boundary is moved forward to the byte
+ * right after the next '\n', so every chunk holds whole lines. Each chunk is mapped on its own (which
+ * also keeps us under the 2 GB limit of a single mapping), decoded as UTF-8 and parsed with a CsvReader
+ * on a fork-join pool. The books of each chunk are then appended in chunk order, so the result is in
+ * the same order as the file.
+ *
+ * Since chunks are cut at line breaks, quoted fields that contain line breaks are not supported here.
+ * Use the sequential loader for those files.
+ *
+ * Chunks don't know how many lines come before them, so they count their lines from 1. When a chunk
+ * fails, its lines before it are counted and it's parsed again on the calling thread, so the error has
+ * the line number in the whole file.
+ */
+class ParallelCatalogLoader {
+
+	// Target number of bytes per chunk
+	static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Parses every book in the file.
+	 *
+	 * @param path Path of the catalog CSV file, the first line is the header.
+	 * @param pool Pool the chunks are parsed on.
+	 * @return The books in file order.
+	 * @throws IOException If an IO error occurs or a row can't be parsed.
+	 */
+	static List<Book> load(String path, ForkJoinPool pool) throws IOException {
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			long size = channel.size();
+			// Data starts after the header line
+			long dataStart = nextLineStart(channel, 0);
+			int chunkCount = (int) Math.max(1, (size - dataStart + CHUNK_SIZE - 1) / CHUNK_SIZE);
+
+			// Line aligned boundaries. Chunk i is [bounds[i], bounds[i+1])
+			long[] bounds = new long[chunkCount + 1];
+			bounds[0] = dataStart;
+			for(int i = 1; i < chunkCount; i++)
+				bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, dataStart + (long) i * CHUNK_SIZE - 1));
+			bounds[chunkCount] = size;
+
+			ChunkTask[] tasks = new ChunkTask[chunkCount];
+			for(int i = 0; i < chunkCount; i++)
+				tasks[i] = new ChunkTask(channel, bounds[i], bounds[i + 1]);
+			try {
+				pool.invoke(new RecursiveTask<Void>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected Void compute() {
+						invokeAll(tasks);
+						return null;
+					}
+				});
+			}
+			catch(ChunkFailure failure) {
+				ChunkTask failed = failure.getTask();
+				// Parsing the same bytes again throws the same error, now with the right line number
+				failed.parse(countLines(channel, failed.start) + 1);
+				// Only if it somehow didn't fail again
+				failure.rethrow();
+			}
+
+			// Merge in file order, sizing the result once
+			int total = 0;
+			for(ChunkTask task: tasks)
+				total += task.getBooks().size();
+			ArrayList<Book> books = new ArrayList<>(total);
+			for(ChunkTask task: tasks)
+				books.addAll(task.getBooks());
+			return books;
+		}
+	}
+
+	/**
+	 * Counts the '\n' bytes before position end.
+	 */
+	private static long countLines(FileChannel channel, long end) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		long lines = 0;
+		for(long position = 0; position < end; ) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			int read = channel.read(buffer, position);
+			if(read <= 0)
+				break;
+			for(int i = 0; i < read; i++) {
+				if(buffer.get(i) == '\n')
+					lines++;
+			}
+			position += read;
+		}
+		return lines;
+	}
+
+	/**
+	 * Returns the position right after the first '\n' found at or after position from.
+	 * @return The start of the next line, or the size of the file if there is no other line.
+	 */
+	private static long nextLineStart(FileChannel channel, long from) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long position = from;
+		while(true) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if(read <= 0)
+				return channel.size();
+			for(int i = 0; i < read; i++) {
+				if(buffer.get(i) == '\n')
+					return position + i + 1;
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Maps and parses one chunk of the file.
+	 */
+	private static class ChunkTask extends RecursiveTask<List<Book>> {
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+
+		ChunkTask(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		List<Book> getBooks() {
+			return this.getRawResult();
+		}
+
+		@Override
+		protected List<Book> compute() {
+			try {
+				return parse(1);
+			}
+			catch(IOException | RuntimeException e) {
+				throw new ChunkFailure(this, e);
+			}
+		}
+
+		/**
+		 * Parses the books of the chunk.
+		 * @param firstLine Line number of the chunk's first line in the file, for the error messages.
+		 */
+		List<Book> parse(long firstLine) throws IOException {
+			List<Book> books = new ArrayList<>();
+			if(this.start >= this.end)
+				return books;
+			ByteBuffer bytes = this.channel.map(FileChannel.MapMode.READ_ONLY, this.start, this.end - this.start);
+			// Replace bad bytes like the FileReader of the sequential loader does, instead of failing
+			CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE)
+					.decode(bytes);
+			CsvReader reader = new CsvReader(chars, firstLine);
+			// Dictionaries are not thread safe, so each chunk interns its Strings on its own
+			StringDictionary titles = new StringDictionary();
+			StringDictionary authors = new StringDictionary();
+			StringDictionary genres = new StringDictionary();
+			while(reader.next())
+				books.add(LibraryCatalog.readBook(reader, titles, authors, genres));
+			return books;
+		}
+	}
+
+	/**
+	 * Carries the error of a chunk out of the fork-join pool, together with the chunk, so load() can
+	 * parse it again with the right line numbers.
+	 */
+	private static class ChunkFailure extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private final transient ChunkTask task;
+
+		ChunkFailure(ChunkTask task, Exception cause) {
+			super(cause);
+			this.task = task;
+		}
+
+		ChunkTask getTask() {
+			return this.task;
+		}
+
+		/**
+		 * Throws the original error of the chunk.
+		 */
+		void rethrow() throws IOException {
+			if(getCause() instanceof IOException)
+				throw (IOException) getCause();
+			throw (RuntimeException) getCause();
+		}
+	}
+}
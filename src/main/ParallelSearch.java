@@ -0,0 +1,95 @@
+package main;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import data_structures.ArrayList;
+import interfaces.FilterFunction;
+import interfaces.List;
+
+/**
+ * Filters a list on a fork-join pool, for searchForBook and searchForUsers over big catalogs.
+ *
+ * The list's Spliterator is split in halves until the ranges are at most PARALLEL_THRESHOLD elements
+ * long, and each range is filtered on its own thread. The matches of each range are kept apart and
+ * copied into the result once at the end, in range order, so the result is in list order, the same
+ * as a sequential pass.
+ *
+ * The filter is called from several threads at once, so it must not change shared state.
+ */
+class ParallelSearch {
+
+	// Lists smaller than this are filtered on the calling thread, and ranges are never split below it.
+	// A cheap filter (a String comparison) takes a few hundred microseconds for this many elements,
+	// enough to pay for handing the range to another thread. See ParallelSearchBenchmarks.
+	static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	private ParallelSearch() {
+	}
+
+	/**
+	 * Returns the elements of list accepted by filter, in list order.
+	 *
+	 * @param list The elements. Must not change during the search.
+	 * @param filter The filter, safe to call from several threads.
+	 * @param pool The pool the ranges run on.
+	 * @return A new list with the accepted elements.
+	 */
+	static <E> List<E> filter(List<E> list, FilterFunction<E> filter, ForkJoinPool pool) {
+		if(list.size() < PARALLEL_THRESHOLD) {
+			List<E> result = new ArrayList<>();
+			for(E e: list) {
+				if(filter.filter(e))
+					result.add(e);
+			}
+			return result;
+		}
+		List<List<E>> ranges = pool.invoke(new RangeTask<>(list.spliterator(), filter));
+		int total = 0;
+		for(List<E> range: ranges)
+			total += range.size();
+		ArrayList<E> result = new ArrayList<>(total);
+		for(List<E> range: ranges)
+			result.addAll(range);
+		return result;
+	}
+
+	/**
+	 * Filters the elements of a Spliterator, splitting it while it's big enough.
+	 * Returns the matches of each range it ended up filtering, in order.
+	 */
+	private static class RangeTask<E> extends RecursiveTask<ArrayList<List<E>>> {
+		private static final long serialVersionUID = 1L;
+
+		private final Spliterator<E> elements;
+		private final FilterFunction<E> filter;
+
+		RangeTask(Spliterator<E> elements, FilterFunction<E> filter) {
+			this.elements = elements;
+			this.filter = filter;
+		}
+
+		@Override
+		protected ArrayList<List<E>> compute() {
+			Spliterator<E> prefix = this.elements.estimateSize() > PARALLEL_THRESHOLD ? this.elements.trySplit() : null;
+			if(prefix == null) {
+				List<E> matches = new ArrayList<>();
+				this.elements.forEachRemaining(e -> {
+					if(this.filter.filter(e))
+						matches.add(e);
+				});
+				ArrayList<List<E>> ranges = new ArrayList<>(1);
+				ranges.add(matches);
+				return ranges;
+			}
+			// The prefix goes to another thread, the rest of the range stays on this one
+			RangeTask<E> first = new RangeTask<>(prefix, this.filter);
+			first.fork();
+			List<List<E>> rest = new RangeTask<>(this.elements, this.filter).compute();
+			ArrayList<List<E>> ranges = first.join();
+			ranges.addAll(rest);
+			return ranges;
+		}
+	}
+}
@@ -2,6 +2,11 @@ package main;
 
 
 
+import java.util.function.IntFunction;
+
+import data_structures.ArrayList;
+import data_structures.IntArrayList;
+import interfaces.IntList;
 import interfaces.List;
 
 /*
@@ -9,11 +14,18 @@ import interfaces.List;
  *  the user id
  *  the name of the user
  *  the list of books that the user has checkedOut
+ *  
+ * The checked out books can also be kept in compact form: only their ids, in an IntList,
+ * plus a way to look the books up. That takes 4 bytes per book instead of a list node,
+ * which matters when there are tens of millions of loans.
  */
 public class User {
 	private int id; 
 	private String name; 
 	private List<Book> checkedOutList; 
+	// Compact form: ids of the checked out books and how to find them. Both null when checkedOutList is used.
+	private IntList checkedOutIds;
+	private IntFunction<Book> bookLookup;
 	
 	/*
 	 * Constructor for the user class
@@ -25,6 +37,17 @@ public class User {
 	        this.checkedOutList = checkedOutList;  
 	    }
 
+	/*
+	 * Constructs a user that keeps only the ids of its checked out books.
+	 * bookLookup turns an id into its Book (for example the catalog's index), it returns null for unknown ids.
+	 */
+	public User(int id, String name, IntList checkedOutIds, IntFunction<Book> bookLookup) {
+		this.id = id;
+		this.name = name;
+		this.checkedOutIds = checkedOutIds;
+		this.bookLookup = bookLookup;
+	}
+
 	public int getId() {
 		return this.id;
 	}
@@ -41,12 +64,47 @@ public class User {
 		this.name = name;
 	}
 
+	/*
+	 * In compact form this builds a new list each time, looking up every id.
+	 * Books that can't be found anymore are left out, and changing the list doesn't change the user.
+	 */
 	public List<Book> getCheckedOutList() {
-		return this.checkedOutList;
+		if(this.checkedOutIds == null)
+			return this.checkedOutList;
+		List<Book> books = new ArrayList<>(this.checkedOutIds.size());
+		this.checkedOutIds.forEach(bookID -> {
+			Book book = this.bookLookup.apply(bookID);
+			if(book != null)
+				books.add(book);
+		});
+		return books;
+	}
+
+	/*
+	 * Returns the ids of the checked out books, in order.
+	 * In compact form this is the stored list, otherwise a new one built from the books.
+	 */
+	public IntList getCheckedOutIds() {
+		if(this.checkedOutIds != null)
+			return this.checkedOutIds;
+		IntList ids = new IntArrayList(this.checkedOutList.size());
+		for(Book book: this.checkedOutList)
+			ids.add(book.getId());
+		return ids;
+	}
+
+	/*
+	 * Whether the user keeps only the ids of its checked out books (see the second constructor).
+	 */
+	public boolean isCompact() {
+		return this.checkedOutIds != null;
 	}
 
 	public void setCheckedOutList(List<Book> checkedOutList) {
 		this.checkedOutList = checkedOutList;
+		// The books are stored directly from now on
+		this.checkedOutIds = null;
+		this.bookLookup = null;
 	}
 	
 }
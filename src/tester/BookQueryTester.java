@@ -0,0 +1,68 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import interfaces.List;
+import main.Book;
+import main.BookQuery;
+import main.LibraryCatalog;
+
+public class BookQueryTester {
+
+	@Test
+	public void testSameBooksAsScan() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		Book some = catalog.getBookCatalog().get(0);
+		String word = some.getTitle().split(" ")[0];
+		BookQuery[] queries = {
+				BookQuery.genre(some.getGenre()),
+				BookQuery.author(some.getAuthor()).or(BookQuery.title(some.getTitle())),
+				BookQuery.genre(some.getGenre()).and(BookQuery.checkedOut(true)),
+				BookQuery.genre(some.getGenre()).and(BookQuery.author(some.getAuthor()).not()),
+				BookQuery.checkedOut(false).and(BookQuery.lastCheckOutBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 9, 15))),
+				BookQuery.titleContains(" " + word.toUpperCase() + " "),
+				BookQuery.titleContains(word.substring(1)),
+				BookQuery.titleContains("the ").and(BookQuery.genre(some.getGenre()).or(BookQuery.checkedOut(true))),
+				BookQuery.genre("No Such Genre").and(BookQuery.checkedOut(true)),
+				// No index can answer these, they fall back to a scan
+				BookQuery.checkedOut(true),
+				BookQuery.checkedOut(true).or(BookQuery.genre(some.getGenre())),
+				BookQuery.genre(some.getGenre()).or(BookQuery.titleContains(word.substring(1))),
+				BookQuery.checkedOut(true).and(BookQuery.titleContains(word.substring(1))),
+		};
+		for(BookQuery query: queries) {
+			List<Book> expected = catalog.searchForBook(query);
+			List<Book> result = catalog.search(query);
+			assertTrue("search(" + query + ") found " + result.size() + " books instead of " + expected.size(), result.size() == expected.size());
+			for(int i = 0; i < result.size(); i++) {
+				assertTrue("search(" + query + ") found a book searchForBook didn't.", expected.contains(result.get(i)));
+				assertTrue("search(" + query + ") isn't sorted by id.", i == 0 || result.get(i - 1).getId() < result.get(i).getId());
+			}
+		}
+	}
+	@Test
+	public void testUsesIndex() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.addBook("A Very Rare Title", "Zed Quill", "Cooking");
+		int[] calls = new int[1];
+		BookQuery query = BookQuery.matching(book -> {
+			calls[0]++;
+			return true;
+		}).and(BookQuery.author("Zed Quill"));
+		assertTrue("Wrong books found.", catalog.search(query).size() == 1);
+		// Only the book from the author index is checked
+		assertTrue("The opaque filter ran on " + calls[0] + " books.", calls[0] == 1);
+
+		calls[0] = 0;
+		query = BookQuery.titleContains("a very rare").and(BookQuery.matching(book -> {
+			calls[0]++;
+			return true;
+		}));
+		assertTrue("Wrong books found.", catalog.search(query).size() == 1 && calls[0] == 1);
+	}
+}
@@ -0,0 +1,85 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import data_structures.StringDictionary;
+import main.Book;
+import main.LibraryCatalog;
+
+public class CatalogInternTester {
+
+	@Test
+	public void testCharRangeEncode() {
+		StringDictionary dictionary = new StringDictionary();
+		char[] line = "Mystery,Fiction,Mystery,,Fiction".toCharArray();
+		int mystery = dictionary.encode(line, 0, 7);
+		String instance = dictionary.get(mystery);
+		assertTrue("The same chars got different codes.", dictionary.encode(line, 16, 23) == mystery && dictionary.get(mystery) == instance);
+		assertTrue("The char version disagrees with the String version.", dictionary.encode("Mystery") == mystery
+				&& dictionary.encode(line, 8, 15) == dictionary.code("Fiction") && dictionary.encode(line, 24, 24) == dictionary.code(""));
+		assertTrue("intern gave a different instance.", dictionary.intern(new String("Mystery")) == instance);
+	}
+	@Test
+	public void testBooksShareStrings() throws IOException {
+		for(boolean parallel: new boolean[] { false, true }) {
+			LibraryCatalog catalog = new LibraryCatalog("data/catalog.csv", "data/user.csv", parallel);
+			catalog.addBook("New Book", "New Author", "Mystery");
+			Book first = null;
+			for(Book book: catalog.getBookCatalog()) {
+				if(!book.getGenre().equals("Mystery"))
+					continue;
+				if(first == null)
+					first = book;
+				else if(book.getGenre() != first.getGenre())
+					fail("Two Mystery books have different genre instances (parallel: " + parallel + ").");
+			}
+			int code = catalog.genreCode("Mystery");
+			assertTrue("genreCode and genreName don't agree.", code >= 0 && catalog.genreName(code) == first.getGenre()
+					&& catalog.genreCode("Poetry") == -1);
+		}
+	}
+	@Test
+	public void testCompact() {
+		StringDictionary dictionary = new StringDictionary();
+		for(int i = 0; i < 100; i++)
+			dictionary.encode("Value " + i);
+		String kept = dictionary.get(dictionary.code("Value 42"));
+		int[] newCodes = dictionary.compact(code -> code % 3 == 0);
+		assertTrue("Wrong size after compacting.", dictionary.size() == 34 && newCodes.length == 100);
+		for(int code = 0; code < 100; code++) {
+			int expected = code % 3 == 0 ? code / 3 : -1;
+			if(newCodes[code] != expected || dictionary.code("Value " + code) != expected)
+				fail("Value " + code + " has the wrong code after compacting.");
+		}
+		assertTrue("A kept value changed instance.", dictionary.get(newCodes[42]) == kept);
+		assertTrue("New values don't get the next code.", dictionary.encode("Value 1") == 34 && dictionary.encode("Value 0") == 0);
+	}
+	@Test
+	public void testLookupsAfterManyRemovals() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		int books = catalog.getBookCatalog().size();
+		// Many titles and authors that end up unused, so the dictionaries are compacted several times
+		for(int round = 0; round < 5; round++) {
+			for(int i = 0; i < 500; i++)
+				catalog.addBook("Passing Title " + round + " " + i, "Passing Author " + i, "Poetry");
+			catalog.searchAllKeywords("passing");
+			for(Book book: catalog.findByGenre("Poetry"))
+				catalog.removeBook(book.getId());
+		}
+		assertTrue("Books were lost.", catalog.getBookCatalog().size() == books && catalog.findByGenre("Poetry").isEmpty());
+		for(Book book: catalog.getBookCatalog()) {
+			if(!catalog.findByTitle(book.getTitle()).contains(book) || !catalog.findByAuthor(book.getAuthor()).contains(book))
+				fail("The indexes lost " + book + " after compacting.");
+		}
+		assertTrue("A removed title was found.", catalog.findByTitle("Passing Title 0 1").isEmpty() && catalog.searchAllKeywords("passing").isEmpty());
+		Book some = catalog.getBookCatalog().get(0);
+		assertTrue("Keyword search lost a book after compacting.", catalog.searchAllKeywords(some.getTitle()).contains(some));
+		catalog.addBook("Passing Title 0 1", "Passing Author 1", "Poetry");
+		assertTrue("A title can't come back after it was dropped.", catalog.findByTitle("Passing Title 0 1").size() == 1);
+	}
+}
@@ -0,0 +1,129 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+import main.User;
+
+public class CatalogSnapshotTester {
+
+	LibraryCatalog catalog;
+	File snapshot;
+
+	@Before
+	public void setup() throws IOException {
+		catalog = new LibraryCatalog();
+		// Change the catalog so the snapshot isn't just the CSVs again
+		catalog.checkOutBook(1);
+		catalog.returnBook(2);
+		catalog.removeBook(3);
+		// Still in user 1's checked out list
+		catalog.removeBook(4);
+		catalog.addBook("Snapshot \u00c9dition", "Ada Lovelace", "Science Fiction");
+		// The largest id, the restored catalog must not give it out again
+		catalog.removeBook(51);
+		snapshot = File.createTempFile("catalog", ".snapshot");
+		catalog.saveSnapshot(snapshot.getPath());
+	}
+	@After
+	public void cleanup() {
+		snapshot.delete();
+	}
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		LibraryCatalog loaded = LibraryCatalog.loadSnapshot(snapshot.getPath());
+		List<Book> books = catalog.getBookCatalog();
+		assertTrue("Wrong number of books.", loaded.getBookCatalog().size() == books.size());
+		for(int i = 0; i < books.size(); i++) {
+			Book expected = books.get(i);
+			Book book = loaded.getBookCatalog().get(i);
+			if(book.getId() != expected.getId() || !book.toString().equals(expected.toString())
+					|| book.isCheckedOut() != expected.isCheckedOut() || !book.getLastCheckOut().equals(expected.getLastCheckOut()))
+				fail("Book " + expected.getId() + " was restored as " + book);
+		}
+		List<User> users = catalog.getUsers();
+		assertTrue("Wrong number of users.", loaded.getUsers().size() == users.size());
+		for(int i = 0; i < users.size(); i++) {
+			User expected = users.get(i);
+			User user = loaded.getUsers().get(i);
+			if(user.getId() != expected.getId() || !user.getName().equals(expected.getName())
+					|| !Arrays.equals(user.getCheckedOutIds().toArray(), expected.getCheckedOutIds().toArray()))
+				fail("User " + expected.getId() + " was restored with the wrong name or books.");
+		}
+		assertTrue("The restored catalog gives a different report.", loaded.generateReportString().equals(catalog.generateReportString()));
+		assertTrue("User 1 lost the removed book.", Arrays.equals(loaded.getUsers().get(0).getCheckedOutIds().toArray(), new int[] { 2, 4, 6 }));
+		assertTrue("The removed book was restored into the catalog.", loaded.searchForBook(book -> book.getId() == 4).isEmpty());
+		// The restored catalog is a working catalog, not just a copy of the data
+		assertTrue("Failed to return a restored book.", loaded.returnBook(1) && loaded.getBookAvailability(1));
+	}
+	@Test
+	public void testNextId() throws IOException {
+		LibraryCatalog loaded = LibraryCatalog.loadSnapshot(snapshot.getPath());
+		catalog.addBook("After", "Snapshot", "Mystery");
+		loaded.addBook("After", "Snapshot", "Mystery");
+		int id = catalog.getBookCatalog().get(catalog.getBookCatalog().size() - 1).getId();
+		int loadedId = loaded.getBookCatalog().get(loaded.getBookCatalog().size() - 1).getId();
+		assertTrue("The restored catalog gave out id " + loadedId + " instead of " + id + ".", loadedId == id && id == 52);
+	}
+	@Test
+	public void testCompactUsers() throws IOException {
+		LibraryCatalog compact = new LibraryCatalog("data/catalog.csv", "data/user.csv", false, true);
+		compact.removeBook(4);
+		compact.saveSnapshot(snapshot.getPath());
+		LibraryCatalog loaded = LibraryCatalog.loadSnapshot(snapshot.getPath());
+		User user = loaded.getUsers().get(0);
+		assertTrue("User 1 was restored in list form.", user.isCompact());
+		assertTrue("User 1 lost the id of the removed book.", Arrays.equals(user.getCheckedOutIds().toArray(), new int[] { 2, 4, 6 }));
+		assertTrue("User 1 found the removed book.", user.getCheckedOutList().size() == 2);
+		assertTrue("The restored catalog gives a different report.", loaded.generateReportString().equals(compact.generateReportString()));
+	}
+	@Test
+	public void testSaveReplacesTheFile() throws IOException {
+		catalog.removeBook(1);
+		catalog.saveSnapshot(snapshot.getPath());
+		assertTrue("The snapshot wasn't replaced.", LibraryCatalog.loadSnapshot(snapshot.getPath()).getBookCatalog().size() == catalog.getBookCatalog().size());
+		File[] left = snapshot.getAbsoluteFile().getParentFile().listFiles((directory, name) -> name.startsWith(snapshot.getName()) && name.endsWith(".tmp"));
+		assertTrue("Saving left a temporary file behind.", left != null && left.length == 0);
+	}
+	@Test
+	public void testCorruptedByte() throws IOException {
+		byte[] bytes = Files.readAllBytes(snapshot.toPath());
+		// Every part of the file: header, strings, books, users and the checksum itself
+		for(int position = 0; position < bytes.length; position += Math.max(1, bytes.length / 200)) {
+			byte[] corrupted = bytes.clone();
+			corrupted[position] ^= 0x10;
+			Files.write(snapshot.toPath(), corrupted);
+			try {
+				LibraryCatalog.loadSnapshot(snapshot.getPath());
+				fail("Flipping a bit at byte " + position + " wasn't detected.");
+			} catch(IOException e) {
+				// Expected
+			}
+		}
+	}
+	@Test
+	public void testTruncated() throws IOException {
+		byte[] bytes = Files.readAllBytes(snapshot.toPath());
+		for(int length: new int[] { 0, 3, 8, bytes.length / 2, bytes.length - 1 }) {
+			Files.write(snapshot.toPath(), Arrays.copyOf(bytes, length));
+			try {
+				LibraryCatalog.loadSnapshot(snapshot.getPath());
+				fail("A snapshot cut to " + length + " bytes was loaded.");
+			} catch(IOException e) {
+				// Expected
+			}
+		}
+	}
+}
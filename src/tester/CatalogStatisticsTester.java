@@ -0,0 +1,112 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import interfaces.List;
+import main.Book;
+import main.CatalogStatistics;
+import main.LibraryCatalog;
+import main.User;
+
+public class CatalogStatisticsTester {
+
+	LibraryCatalog LC;
+
+	@Before
+	public void setup() throws IOException {
+		LC = new LibraryCatalog();
+	}
+	@Test
+	public void testMatchesAfterLoading() {
+		assertMatchesRecomputation("after loading");
+	}
+	@Test
+	public void testMatchesAfterChanges() {
+		for(int id = 1; id <= 20; id++) {
+			LC.checkOutBook(id);
+			assertMatchesRecomputation("after checking out book " + id);
+		}
+		for(int id = 30; id <= 50; id += 2) {
+			LC.returnBook(id);
+			assertMatchesRecomputation("after returning book " + id);
+		}
+		// A book in some user's checked out list: the user keeps it, so their fees stay the same
+		int held = LC.getUsers().get(0).getCheckedOutList().get(0).getId();
+		LC.removeBook(held);
+		assertMatchesRecomputation("after removing book " + held);
+		LC.removeBook(5);
+		assertMatchesRecomputation("after removing book 5");
+
+		LC.addBook("A New Genre Book", "Some Author", "Poetry");
+		LC.addBook("Another Mystery", "Some Author", "Mystery");
+		assertMatchesRecomputation("after adding books");
+		int added = LC.getBookCatalog().get(LC.getBookCatalog().size() - 2).getId();
+		assertTrue("Failed to check out the added book.", LC.checkOutBook(added));
+		assertMatchesRecomputation("after checking out the added book");
+		LC.removeBooks(book -> book.getGenre().equals("Poetry"));
+		assertMatchesRecomputation("after removing the Poetry books");
+
+		// The order follows the catalog, not the order of the check outs
+		for(int id = 20; id >= 1; id--)
+			LC.returnBook(id);
+		for(int id = 20; id >= 1; id--)
+			LC.checkOutBook(id);
+		assertMatchesRecomputation("after checking out books backwards");
+	}
+	@Test
+	public void testMatchesWithCompactUsers() throws IOException {
+		LC = new LibraryCatalog("data/catalog.csv", "data/user.csv", false, true);
+		int held = LC.getUsers().get(0).getCheckedOutIds().get(0);
+		// Compact users can't find the removed book anymore, so it stops counting in their fees
+		LC.removeBook(held);
+		assertMatchesRecomputation("after removing book " + held + " from compact users");
+	}
+
+	/**
+	 * Recomputes every statistic by scanning the catalog and compares it with the live one.
+	 */
+	private void assertMatchesRecomputation(String when) {
+		CatalogStatistics statistics = LC.getStatistics();
+		HashMap<String, Integer> genreCounts = new HashMap<>();
+		int checkedOut = 0;
+		for(Book book: LC.getBookCatalog()) {
+			genreCounts.merge(book.getGenre(), 1, Integer::sum);
+			if(book.isCheckedOut())
+				checkedOut++;
+		}
+		for(String genre: genreCounts.keySet()) {
+			if(statistics.genreCount(genre) != genreCounts.get(genre))
+				fail("Wrong count for " + genre + " " + when + ": " + statistics.genreCount(genre) + " instead of " + genreCounts.get(genre) + ".");
+		}
+		for(String genre: statistics.reportGenres()) {
+			if(statistics.genreCount(genre) != genreCounts.getOrDefault(genre, 0))
+				fail("Genre " + genre + " is counted but has no books " + when + ".");
+		}
+
+		List<Book> books = statistics.checkedOutBooks();
+		assertTrue("Wrong checked out count " + when + ".", statistics.checkedOutCount() == checkedOut && books.size() == checkedOut);
+		int next = 0;
+		for(Book book: LC.getBookCatalog()) {
+			if(book.isCheckedOut() && books.get(next++) != book)
+				fail("Checked out books aren't in catalog order " + when + ": " + book + " is at the wrong place.");
+		}
+
+		float total = 0;
+		for(User user: LC.getUsers()) {
+			float fee = 0;
+			for(Book book: user.getCheckedOutList())
+				fee += book.calculateFees();
+			total += fee;
+			if(Math.abs(fee - statistics.userFees(user)) > 0.001f)
+				fail("User " + user.getId() + " owes " + fee + " but the statistics say " + statistics.userFees(user) + " " + when + ".");
+		}
+		assertTrue("Wrong total fees " + when + ".", Math.abs(total - statistics.totalFees()) < 0.01f);
+	}
+}
@@ -0,0 +1,106 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import data_structures.StringDictionary;
+import interfaces.List;
+import main.Book;
+import main.ColumnarBookStore;
+import main.LibraryCatalog;
+
+public class ColumnarBookStoreTester {
+
+	@Test
+	public void testSameReport() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		ColumnarBookStore store = ColumnarBookStore.load("data/catalog.csv");
+		StringWriter report = new StringWriter();
+		store.writeReport(report, catalog.getUsers());
+		assertTrue("The columnar report is different from the catalog's.", report.toString().equals(catalog.generateReportString()));
+	}
+	@Test
+	public void testSetId() {
+		ColumnarBookStore store = new ColumnarBookStore();
+		for(int id = 1; id <= 1000; id++)
+			store.add(id, "Title " + id, "Author", "Fiction", LocalDate.of(2023, 1, 1), false);
+		// Move every book to a new id through its view, so the id table loses and gains entries in every run
+		for(int id = 1; id <= 1000; id++)
+			store.getById(id).setId(id + 5000);
+		for(int id = 1; id <= 1000; id++) {
+			Book book = store.getById(id + 5000);
+			if(store.getById(id) != null || book == null || !book.getTitle().equals("Title " + id))
+				fail("Book " + id + " can't be found under its new id.");
+		}
+		try {
+			store.getById(5001).setId(5002);
+			fail("Taking another book's id should throw IllegalArgumentException.");
+		} catch(IllegalArgumentException e) {
+			// Expected
+		}
+		store.getById(5001).setId(5001);
+		assertTrue("Keeping the same id lost the book.", store.getById(5001) != null && store.getById(5002) != null);
+	}
+	@Test
+	public void testViews() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		ColumnarBookStore store = ColumnarBookStore.of(catalog.getBookCatalog());
+		assertTrue("The store has the wrong size.", store.size() == catalog.getBookCatalog().size());
+		for(Book book: catalog.getBookCatalog()) {
+			Book view = store.getById(book.getId());
+			if(view == null || view.getId() != book.getId() || !view.getTitle().equals(book.getTitle())
+					|| !view.getAuthor().equals(book.getAuthor()) || !view.getGenre().equals(book.getGenre())
+					|| !view.getLastCheckOut().equals(book.getLastCheckOut()) || view.isCheckedOut() != book.isCheckedOut()
+					|| view.calculateFees() != book.calculateFees() || !view.toString().equals(book.toString()))
+				fail("The view of book " + book.getId() + " doesn't match the book.");
+		}
+		assertTrue("getById found a book that doesn't exist.", store.getById(-5) == null);
+
+		int mysteries = catalog.searchForBook(book -> book.getGenre().equals("Mystery")).size();
+		assertTrue("searchByGenre found the wrong books.", store.searchByGenre("Mystery").size() == mysteries
+				&& store.genreCount("Mystery") == mysteries && store.searchByGenre("Poetry").isEmpty());
+		List<Book> found = store.searchForBook(book -> book.getGenre().equals("Mystery"));
+		assertTrue("searchForBook kept the cursor instead of new views.", found.size() == mysteries
+				&& (found.size() < 2 || found.get(0).getId() != found.get(1).getId()));
+	}
+	@Test
+	public void testChanges() {
+		ColumnarBookStore store = new ColumnarBookStore(0);
+		for(int id = 1; id <= 1000; id++)
+			store.add(id, "Title " + (id % 7), "Author " + (id % 3), id % 2 == 0 ? "Fiction" : "Mystery", LocalDate.of(2023, 1, 1), false);
+		assertTrue("Wrong counts after adding.", store.size() == 1000 && store.genreCount("Fiction") == 500 && store.checkedOutCount() == 0);
+		assertTrue("Failed to check out a book.", store.checkOutBook(500) && !store.checkOutBook(500) && store.getById(500).isCheckedOut());
+		assertTrue("A book checked out today owes fees.", store.checkedOutCount() == 1 && store.totalFees() == 0);
+		Book view = store.getById(7);
+		view.setCheckedOut(true);
+		view.setLastCheckOut(LocalDate.of(2023, 8, 1));
+		view.setGenre("Fiction");
+		assertTrue("Changes through a view are missing.", store.isCheckedOut(store.rowOf(7)) && store.genreCount("Fiction") == 501
+				&& store.totalFees() == 10 + 1.5f * (45 - 31));
+		assertTrue("Failed to return a book.", store.returnBook(500) && !store.returnBook(500) && store.checkedOutCount() == 1);
+		try {
+			store.add(7, "Again", "Someone", "Fiction", LocalDate.of(2023, 1, 1), false);
+			fail("Adding a duplicate id should throw IllegalArgumentException.");
+		}
+		catch(IllegalArgumentException e) {
+			// Expected
+		}
+	}
+	@Test
+	public void testStringDictionary() {
+		StringDictionary dictionary = new StringDictionary(0);
+		for(int i = 0; i < 10000; i++)
+			assertTrue("Codes should follow the order values are added.", dictionary.encode("value" + i) == i);
+		for(int i = 0; i < 10000; i++) {
+			if(dictionary.encode("value" + i) != i || dictionary.code("value" + i) != i || !dictionary.get(i).equals("value" + i))
+				fail("value" + i + " got a different code.");
+		}
+		assertTrue("Missing values should have no code.", dictionary.code("missing") == -1 && dictionary.size() == 10000);
+	}
+}
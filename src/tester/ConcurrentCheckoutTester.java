@@ -0,0 +1,146 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.Book;
+import main.LibraryCatalog;
+import main.User;
+
+public class ConcurrentCheckoutTester {
+
+	static final int THREADS = 8;
+
+	LibraryCatalog LC;
+
+	@Before
+	public void setup() throws IOException {
+		LC = new LibraryCatalog();
+	}
+	@Test
+	public void testOnlyOneThreadChecksOutABook() throws InterruptedException {
+		int id = firstAvailableBook();
+		for(int round = 0; round < 200; round++) {
+			AtomicInteger successes = new AtomicInteger();
+			runConcurrently(thread -> {
+				if(LC.checkOutBook(id))
+					successes.incrementAndGet();
+			});
+			if(successes.get() != 1)
+				fail("Round " + round + ": " + successes.get() + " threads checked out book " + id + ", expected exactly 1.");
+			assertTrue("Failed to return book " + id + " after round " + round + ".", LC.returnBook(id));
+		}
+	}
+	@Test
+	public void testStatisticsMatchAfterConcurrentCheckouts() throws InterruptedException {
+		int books = LC.getBookCatalog().size();
+		runConcurrently(thread -> {
+			Random random = new Random(thread);
+			for(int i = 0; i < 5000; i++) {
+				int id = 1 + random.nextInt(books);
+				if(random.nextBoolean())
+					LC.checkOutBook(id);
+				else
+					LC.returnBook(id);
+				LC.getStatistics().checkedOutCount();
+			}
+		});
+		int checkedOut = 0;
+		for(Book book: LC.getBookCatalog()) {
+			if(book.isCheckedOut())
+				checkedOut++;
+		}
+		assertTrue("Statistics count " + LC.getStatistics().checkedOutCount() + " checked out books but there are " + checkedOut + ".",
+				LC.getStatistics().checkedOutCount() == checkedOut);
+		assertTrue("Report listed the wrong checked out books.", LC.getStatistics().checkedOutBooks().size() == checkedOut);
+	}
+
+	@Test(timeout = 10000)
+	public void testCheckOutsDontWaitForStatistics() throws InterruptedException {
+		int books = LC.getBookCatalog().size();
+		// While this thread holds the statistics' monitor, check outs on every stripe must still finish
+		synchronized(LC.getStatistics()) {
+			runConcurrently(thread -> {
+				for(int id = 1 + thread; id <= books; id += THREADS) {
+					LC.checkOutBook(id);
+					LC.returnBook(id);
+				}
+			});
+		}
+		assertTrue("Every book was returned but some are still counted.", LC.getStatistics().checkedOutCount() == 0);
+	}
+	@Test
+	public void testFeesMatchAfterConcurrentCheckouts() throws InterruptedException {
+		int books = LC.getBookCatalog().size();
+		runConcurrently(thread -> {
+			Random random = new Random(100 + thread);
+			for(int i = 0; i < 5000; i++) {
+				int id = 1 + random.nextInt(books);
+				if(random.nextBoolean())
+					LC.checkOutBook(id);
+				else
+					LC.returnBook(id);
+			}
+		});
+		float total = 0;
+		for(User user: LC.getUsers()) {
+			float fee = 0;
+			for(Book book: user.getCheckedOutList())
+				fee += book.calculateFees();
+			total += fee;
+			if(Math.abs(fee - LC.getStatistics().userFees(user)) > 0.01f)
+				fail("User " + user.getId() + " owes " + fee + " but the statistics say " + LC.getStatistics().userFees(user) + ".");
+		}
+		assertTrue("The total fees are wrong.", Math.abs(total - LC.getStatistics().totalFees()) < 0.1f);
+	}
+
+	private int firstAvailableBook() {
+		for(Book book: LC.getBookCatalog()) {
+			if(!book.isCheckedOut())
+				return book.getId();
+		}
+		fail("The catalog has no available book.");
+		return -1;
+	}
+
+	/**
+	 * Runs the task on THREADS threads that all start at the same time, and waits for them.
+	 * Fails the test if a thread throws.
+	 */
+	private static void runConcurrently(ThreadTask task) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		Throwable[] errors = new Throwable[THREADS];
+		Thread[] threads = new Thread[THREADS];
+		for(int i = 0; i < THREADS; i++) {
+			int thread = i;
+			threads[i] = new Thread(() -> {
+				try {
+					start.await();
+					task.run(thread);
+				} catch(Throwable e) {
+					errors[thread] = e;
+				}
+			});
+			threads[i].start();
+		}
+		start.countDown();
+		for(Thread thread: threads)
+			thread.join();
+		for(Throwable error: errors) {
+			if(error != null)
+				throw new AssertionError("A thread failed: " + error, error);
+		}
+	}
+
+	private interface ThreadTask {
+		void run(int thread) throws Exception;
+	}
+}
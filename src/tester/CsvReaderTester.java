@@ -0,0 +1,123 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import data_structures.IntArrayList;
+import main.CsvReader;
+
+public class CsvReaderTester {
+
+	/**
+	 * Gives at most one character per read, so every field is split between two reads.
+	 */
+	private static class TrickleReader extends Reader {
+		private final String data;
+		private int position;
+
+		TrickleReader(String data) {
+			this.data = data;
+		}
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if(this.position == this.data.length())
+				return -1;
+			if(length == 0)
+				return 0;
+			buffer[offset] = this.data.charAt(this.position++);
+			return 1;
+		}
+		@Override
+		public void close() {
+		}
+	}
+
+	@Test
+	public void testQuotedFields() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("1,\"The Lion, the Witch\",\"Say \"\"hi\"\"\" , plain  \n"));
+		assertTrue("Failed to read the record.", reader.next() && reader.fieldCount() == 4);
+		assertTrue("The comma inside quotes split the field: " + reader.getString(1), reader.getString(1).equals("The Lion, the Witch"));
+		assertTrue("\"\" wasn't turned into a quote: " + reader.getString(2), reader.getString(2).equals("Say \"hi\""));
+		assertTrue("Spaces around an unquoted field weren't trimmed.", reader.getString(3).equals("plain"));
+		assertTrue("Found a record after the last one.", !reader.next());
+	}
+	@Test
+	public void testLineEndings() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("a,b\r\n\r\n\"two\nlines\",c\r\nd,e"));
+		assertTrue("CRLF was kept in the field.", reader.next() && reader.getString(1).equals("b") && reader.lineNumber() == 1);
+		assertTrue("The empty line wasn't skipped.", reader.next() && reader.lineNumber() == 3);
+		assertTrue("A quoted line break ended the record.", reader.getString(0).equals("two\nlines") && reader.getString(1).equals("c"));
+		assertTrue("The line break inside quotes wasn't counted.", reader.next() && reader.lineNumber() == 5 && reader.getString(1).equals("e"));
+		assertTrue("Found a record after the last one.", !reader.next());
+	}
+	@Test
+	public void testUnclosedQuote() {
+		try {
+			CsvReader reader = new CsvReader(new StringReader("1,\"never closed\n2,b\n"));
+			reader.next();
+			fail("An unclosed quote should throw IOException.");
+		} catch(IOException e) {
+			// Expected
+		}
+	}
+	@Test
+	public void testFieldsAcrossReads() throws IOException {
+		String data = "1,\"A title, with a comma\",\"An \"\"author\"\"\",{2 4 6}\r\n22,second,x,{}\n";
+		CsvReader reader = new CsvReader(new TrickleReader(data));
+		assertTrue("Failed to read the first record.", reader.next() && reader.getInt(0) == 1
+				&& reader.getString(1).equals("A title, with a comma") && reader.getString(2).equals("An \"author\""));
+		IntArrayList ids = new IntArrayList();
+		assertTrue("Failed to read the ids.", reader.getInts(3, ids::add) == 3 && ids.get(2) == 6);
+		assertTrue("Failed to read the second record.", reader.next() && reader.getInt(0) == 22
+				&& reader.getString(1).equals("second") && reader.getInts(3, id -> fail("{} has no ids")) == 0);
+		assertTrue("Found a record after the last one.", !reader.next());
+	}
+	@Test
+	public void testFieldAcrossBufferBoundary() throws IOException {
+		// Enough records to fill the 64K buffer several times, so some fields start before its end and finish
+		// after the refill. The first record is longer than the whole buffer, which makes it grow.
+		StringBuilder data = new StringBuilder();
+		String longTitle = "x".repeat(70_000);
+		data.append("0,\"").append(longTitle).append("\"\n");
+		int records = 20_000;
+		for(int i = 1; i <= records; i++)
+			data.append(i).append(",\"Title, number ").append(i).append("\",\"").append("y".repeat(i % 7)).append("\"\r\n");
+		CsvReader reader = new CsvReader(new StringReader(data.toString()));
+		assertTrue("The record longer than the buffer was cut.", reader.next() && reader.getString(1).equals(longTitle));
+		for(int i = 1; i <= records; i++) {
+			if(!reader.next() || reader.getInt(0) != i || !reader.getString(1).equals("Title, number " + i)
+					|| !reader.getString(2).equals("y".repeat(i % 7)))
+				fail("Record " + i + " was read wrong.");
+		}
+		assertTrue("Found a record after the last one.", !reader.next());
+	}
+	@Test
+	public void testInts() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("2147483647,-2147483648,+7, 0 ,2147483648,-2147483649,12a,,-\n"));
+		reader.next();
+		assertTrue("Failed to parse the limits.", reader.getInt(0) == Integer.MAX_VALUE && reader.getInt(1) == Integer.MIN_VALUE);
+		assertTrue("Failed to parse a sign or spaces.", reader.getInt(2) == 7 && reader.getInt(3) == 0);
+		for(int field = 4; field < 9; field++) {
+			try {
+				reader.getInt(field);
+				fail("Field " + field + " isn't a valid int but was parsed.");
+			} catch(NumberFormatException e) {
+				// Expected
+			}
+		}
+	}
+	@Test
+	public void testDatesAndBooleans() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("2023-7-5,2023-09-15,TRUE,false,yes\n"));
+		reader.next();
+		assertTrue("Failed to parse the dates.", reader.getDate(0).equals(LocalDate.of(2023, 7, 5)) && reader.getDate(1).equals(LocalDate.of(2023, 9, 15)));
+		assertTrue("Failed to parse the booleans.", reader.getBoolean(2) && !reader.getBoolean(3) && !reader.getBoolean(4));
+	}
+}
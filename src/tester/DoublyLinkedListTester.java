@@ -0,0 +1,83 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import data_structures.DoublyLinkedList;
+
+public class DoublyLinkedListTester {
+
+	DoublyLinkedList<Integer> list;
+
+	@Before
+	public void setup() {
+		list = new DoublyLinkedList<>();
+		for(int i = 0; i < 10; i++)
+			list.add(i);
+	}
+	@Test
+	public void testGetFromBothEnds() {
+		for(int i = 0; i < 10; i++) {
+			if(list.get(i) != i)
+				fail("Didn't get the correct value at position " + i);
+		}
+		list.add(5, 50);
+		assertTrue("Failed to add in the second half.", list.get(5) == 50 && list.get(6) == 5 && list.size() == 11);
+		list.remove(9);
+		assertTrue("Failed to remove in the second half.", list.get(9) == 9 && list.last() == 9 && list.size() == 10);
+	}
+	@Test
+	public void testCursorRemovesWhileWalking() {
+		ListIterator<Integer> cursor = list.listIterator();
+		while(cursor.hasNext()) {
+			if(cursor.next() % 2 == 0)
+				cursor.remove();
+		}
+		assertTrue("Failed to remove the even numbers.", list.size() == 5 && list.first() == 1 && list.last() == 9);
+		for(int i = 0; i < 5; i++) {
+			if(list.get(i) != 2 * i + 1)
+				fail("Wrong value at position " + i + " after removing: " + list.get(i));
+		}
+	}
+	@Test
+	public void testCursorAddsAndSets() {
+		ListIterator<Integer> cursor = list.listIterator(3);
+		cursor.add(30);
+		assertTrue("Added element should be before the cursor.", cursor.next() == 3 && cursor.nextIndex() == 5);
+		cursor.set(33);
+		assertTrue("Failed to add and set at the cursor.", list.get(3) == 30 && list.get(4) == 33 && list.size() == 11);
+	}
+	@Test
+	public void testCursorWalksBackwards() {
+		ListIterator<Integer> cursor = list.listIterator(list.size());
+		int expected = 9;
+		while(cursor.hasPrevious()) {
+			if(cursor.previous() != expected || cursor.nextIndex() != expected)
+				fail("Wrong element walking backwards, expected " + expected);
+			if(expected == 4)
+				cursor.remove();
+			expected--;
+		}
+		assertTrue("Failed to remove while walking backwards.", list.size() == 9 && list.get(4) == 5);
+		try {
+			cursor.previous();
+			fail("previous() at the start should throw NoSuchElementException");
+		} catch(NoSuchElementException e) {
+			// Expected
+		}
+		cursor.remove();
+		assertTrue("Failed to remove the first element with the cursor.", list.size() == 8 && list.first() == 1);
+		try {
+			cursor.remove();
+			fail("remove() twice should throw IllegalStateException");
+		} catch(IllegalStateException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import data_structures.IntArrayList;
+import interfaces.IntList;
+import main.LibraryCatalog;
+import main.User;
+
+public class IntArrayListTester {
+
+	@Test
+	public void testAddGetRemove() {
+		IntList list = new IntArrayList(0);
+		for(int i = 0; i < 100; i++)
+			list.add(i * 3);
+		list.add(0, -1);
+		assertTrue("Failed to add at the front.", list.size() == 101 && list.get(0) == -1 && list.get(1) == 0);
+		assertTrue("remove(index) returned the wrong value.", list.remove(0) == -1 && list.get(0) == 0);
+		assertTrue("removeValue failed to remove a present value.", list.removeValue(30) && !list.contains(30));
+		assertTrue("removeValue removed a missing value.", !list.removeValue(31) && list.size() == 99);
+		assertTrue("set returned the wrong old value.", list.set(98, 7) == 297 && list.get(98) == 7);
+		assertTrue("firstIndex/lastIndex are wrong.", list.firstIndex(3) == 1 && list.lastIndex(7) == 98 && list.firstIndex(1000) == -1);
+		try {
+			list.get(99);
+			fail("get(size) should throw IndexOutOfBoundsException.");
+		}
+		catch(IndexOutOfBoundsException e) {
+			// Expected
+		}
+		list.clear();
+		assertTrue("clear failed to empty the list.", list.isEmpty() && list.toArray().length == 0);
+	}
+	@Test
+	public void testSortAndBinarySearch() {
+		IntArrayList list = IntArrayList.of(42, 7, -3, 19, 7, 100);
+		list.sort();
+		assertTrue("sort gave " + list, list.toString().equals("{ -3, 7, 7, 19, 42, 100 }"));
+		assertTrue("binarySearch failed to find 19.", list.binarySearch(19) == 3);
+		assertTrue("binarySearch gave the wrong insertion point for 20.", list.binarySearch(20) == -5);
+		int sum = 0;
+		PrimitiveIterator.OfInt it = list.iterator();
+		while(it.hasNext())
+			sum += it.nextInt();
+		assertTrue("The iterator went through the wrong values.", sum == 172);
+	}
+	@Test
+	public void testIterator() {
+		IntArrayList list = IntArrayList.of(1, 2, 3, 4, 5, 6);
+		PrimitiveIterator.OfInt it = list.iterator();
+		while(it.hasNext()) {
+			if(it.nextInt() % 2 == 0)
+				it.remove();
+		}
+		assertTrue("Iterator remove left " + list, list.toString().equals("{ 1, 3, 5 }"));
+		it = list.iterator();
+		it.nextInt();
+		list.add(7);
+		try {
+			it.nextInt();
+			fail("The iterator didn't notice the list changed.");
+		}
+		catch(ConcurrentModificationException e) {
+			// Expected
+		}
+	}
+	@Test
+	public void testCompactUsers() throws IOException {
+		LibraryCatalog lists = new LibraryCatalog("data/catalog.csv", "data/user.csv", false, false);
+		LibraryCatalog compact = new LibraryCatalog("data/catalog.csv", "data/user.csv", false, true);
+		assertTrue("The compact users gave a different report.", lists.generateReportString().equals(compact.generateReportString()));
+		for(int i = 0; i < lists.getUsers().size(); i++) {
+			User expected = lists.getUsers().get(i);
+			User user = compact.getUsers().get(i);
+			assertTrue("User " + user.getId() + " has different book ids.",
+					expected.getCheckedOutIds().toString().equals(user.getCheckedOutIds().toString()));
+			assertTrue("User " + user.getId() + " has different books.", expected.getCheckedOutList().size() == user.getCheckedOutList().size());
+		}
+	}
+	@Test
+	public void testCompactUsersWhileBooksChange() throws Exception {
+		LibraryCatalog compact = new LibraryCatalog("data/catalog.csv", "data/user.csv", false, true);
+		int[] expected = new int[compact.getUsers().size()];
+		for(int i = 0; i < expected.length; i++)
+			expected[i] = compact.getUsers().get(i).getCheckedOutList().size();
+		// Adding books makes the id index grow and rehash while the users look their books up
+		Thread writer = new Thread(() -> {
+			for(int i = 0; i < 20_000; i++)
+				compact.addBook("Title " + i, "Author", "Fiction");
+			compact.removeBooks(book -> book.getAuthor().equals("Author"));
+		});
+		writer.start();
+		while(writer.isAlive()) {
+			for(int i = 0; i < expected.length; i++) {
+				User user = compact.getUsers().get(i);
+				if(user.getCheckedOutList().size() != expected[i])
+					fail("User " + user.getId() + " lost books while the catalog was changing.");
+			}
+		}
+		writer.join();
+	}
+}
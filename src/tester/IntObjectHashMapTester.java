@@ -0,0 +1,113 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.PrimitiveIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import data_structures.IntObjectHashMap;
+
+public class IntObjectHashMapTester {
+
+	IntObjectHashMap<String> map;
+
+	@Before
+	public void setup() {
+		map = new IntObjectHashMap<>();
+		for(int i = 1; i <= 100; i++)
+			map.put(i, "Book " + i);
+	}
+	@Test
+	public void testPutAndGet() {
+		assertTrue("Failed to store the 100 entries.", map.size() == 100);
+		for(int i = 1; i <= 100; i++) {
+			if(!("Book " + i).equals(map.get(i)))
+				fail("Didn't get the correct value for key " + i);
+		}
+		assertTrue("Found a value for a key that was never added (key = 101).", map.get(101) == null && !map.containsKey(101));
+	}
+	@Test
+	public void testPutReplaces() {
+		String old = map.put(7, "Seven");
+		assertTrue("Failed to return the replaced value or to replace the value for key 7.",
+				"Book 7".equals(old) && "Seven".equals(map.get(7)) && map.size() == 100);
+	}
+	@Test
+	public void testNegativeAndZeroKeys() {
+		map.put(0, "Zero");
+		map.put(-5, "Negative");
+		map.put(Integer.MIN_VALUE, "Min");
+		assertTrue("Failed to store keys 0, -5 and Integer.MIN_VALUE.",
+				"Zero".equals(map.get(0)) && "Negative".equals(map.get(-5)) && "Min".equals(map.get(Integer.MIN_VALUE)));
+	}
+	@Test
+	public void testRemove() {
+		for(int i = 1; i <= 100; i += 2)
+			map.remove(i);
+		assertTrue("Failed to remove the 50 odd keys.", map.size() == 50);
+		for(int i = 1; i <= 100; i++) {
+			boolean expected = i % 2 == 0;
+			if(map.containsKey(i) != expected)
+				fail("Key " + i + " should " + (expected ? "" : "not ") + "be in the map after removing the odd keys.");
+		}
+		assertTrue("Removing a missing key should return null.", map.remove(1) == null && map.size() == 50);
+	}
+	@Test
+	public void testRemoveKeepsCollidingKeysReachable() {
+		// Keys that are a table length apart start probing from the same slot, so removing one of them
+		// must shift the others back instead of cutting the run.
+		IntObjectHashMap<Integer> small = new IntObjectHashMap<>(4);
+		for(int i = 0; i < 1000; i++)
+			small.put(i * 1024, i);
+		for(int i = 0; i < 1000; i += 3)
+			small.remove(i * 1024);
+		for(int i = 0; i < 1000; i++) {
+			Integer value = small.get(i * 1024);
+			if(i % 3 == 0 ? value != null : value == null || value != i)
+				fail("Lost key " + (i * 1024) + " after removing colliding keys.");
+		}
+	}
+	@Test
+	public void testClear() {
+		map.clear();
+		assertTrue("Failed to empty the map.", map.isEmpty() && map.get(1) == null);
+		map.put(1, "Again");
+		assertTrue("Failed to reuse the map after clear.", map.size() == 1 && "Again".equals(map.get(1)));
+	}
+	@Test
+	public void testIteration() {
+		boolean[] seen = new boolean[101];
+		int count = 0;
+		for(String value: map) {
+			int key = Integer.parseInt(value.substring(5));
+			if(seen[key])
+				fail("Iterator gave the value for key " + key + " twice.");
+			seen[key] = true;
+			count++;
+		}
+		assertTrue("Iterator didn't give every value.", count == 100);
+
+		PrimitiveIterator.OfInt keys = map.keyIterator();
+		int sum = 0;
+		while(keys.hasNext())
+			sum += keys.nextInt();
+		assertTrue("Key iterator didn't give every key.", sum == 5050);
+	}
+	@Test
+	public void testNullValue() {
+		try {
+			map.put(1000, null);
+			fail("Null values should not be allowed.");
+		} catch(NullPointerException e) {
+			return;
+		}
+	}
+	@Test
+	public void testPutIfAbsent() {
+		assertTrue("putIfAbsent replaced a value.", "Book 7".equals(map.putIfAbsent(7, "Seven")) && "Book 7".equals(map.get(7)));
+		assertTrue("putIfAbsent didn't add a new key.", map.putIfAbsent(101, "Book 101") == null && "Book 101".equals(map.get(101)) && map.size() == 101);
+	}
+}
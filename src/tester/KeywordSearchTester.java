@@ -0,0 +1,114 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import data_structures.PostingList;
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+
+public class KeywordSearchTester {
+
+	@Test
+	public void testPostingList() {
+		int[] values = new int[1000];
+		for(int i = 0; i < values.length; i++)
+			values[i] = i * 7 + (i % 3) * 100_000;
+		Arrays.sort(values);
+		PostingList list = PostingList.of(values, values.length);
+		assertTrue("The list doesn't decode to what was encoded.", Arrays.equals(list.toArray(), values));
+		PostingList.Cursor cursor = list.cursor();
+		assertTrue("advanceTo found the wrong value.", cursor.advanceTo(values[500] - 1) == values[500] && cursor.advanceTo(values[999]) == values[999]
+				&& cursor.next() == PostingList.Cursor.END);
+
+		PostingList grown = new PostingList();
+		for(int i = values.length - 1; i >= 0; i--)
+			grown.add(values[i]);
+		assertTrue("Adding out of order lost the sort.", Arrays.equals(grown.toArray(), values) && !grown.add(values[3]));
+		assertTrue("remove failed.", grown.remove(values[3]) && !grown.remove(values[3]) && grown.size() == 999);
+		assertTrue("Small gaps should take a byte each.", PostingList.of(new int[] { 1, 2, 3, 4 }, 4).byteSize() == 4);
+	}
+	@Test
+	public void testPostingListChanges() {
+		// Random adds and removes in any order, checked against a TreeSet. Enough values to split and merge blocks.
+		Random random = new Random(7);
+		PostingList list = new PostingList();
+		TreeSet<Integer> expected = new TreeSet<>();
+		for(int i = 0; i < 20_000; i++) {
+			int value = random.nextInt(5000);
+			if(random.nextInt(3) == 0) {
+				if(list.remove(value) != expected.remove(value))
+					fail("remove(" + value + ") returned the wrong answer at step " + i + ".");
+			}
+			else if(list.add(value) != expected.add(value))
+				fail("add(" + value + ") returned the wrong answer at step " + i + ".");
+			if(i % 1000 == 0 || i == 19_999)
+				assertSameValues(list, expected, "at step " + i);
+		}
+		// Remove everything, smallest last, then reuse the list
+		for(int value: expected.descendingSet())
+			list.remove(value);
+		assertTrue("Values left after removing them all.", list.size() == 0 && list.toArray().length == 0
+				&& list.cursor().value() == PostingList.Cursor.END);
+		assertTrue("An emptied list can't grow again.", list.add(10) && list.add(5) && Arrays.equals(list.toArray(), new int[] { 5, 10 }));
+	}
+	@Test
+	public void testTopKWithHugeK() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		// The result can't be longer than the catalog, and k must not size anything
+		assertTrue("Wrong results for a huge k.", catalog.searchAnyKeywords("the", Integer.MAX_VALUE).size() == catalog.searchAnyKeywords("the", 1000).size());
+	}
+	@Test
+	public void testSearchAllKeywords() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		for(Book book: catalog.getBookCatalog()) {
+			// Every book matches the words of its own title and author, in any case
+			String query = book.getTitle().toUpperCase() + ", " + book.getAuthor().toLowerCase();
+			boolean found = false;
+			for(Book result: catalog.searchAllKeywords(query))
+				found |= result == book;
+			if(!found)
+				fail("Searching \"" + query + "\" didn't find " + book);
+		}
+		catalog.addBook("The Keyword Index", "Ada Lovelace", "Science Fiction");
+		assertTrue("An added book can't be found.", catalog.searchAllKeywords("lovelace index").size() == 1
+				&& catalog.searchAllKeywords("lovelace nosuchword").isEmpty());
+		Book added = catalog.searchAllKeywords("lovelace").get(0);
+		catalog.removeBook(added.getId());
+		assertTrue("A removed book was found.", catalog.searchAllKeywords("lovelace").isEmpty());
+	}
+	@Test
+	public void testSearchAnyKeywords() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		catalog.addBook("Rings of Rare Words", "Zed Quill", "Fiction");
+		catalog.addBook("Rare Words", "Someone Else", "Fiction");
+		List<Book> best = catalog.searchAnyKeywords("rings rare words quill", 2);
+		assertTrue("The book with every word should come first.", best.size() == 2 && best.get(0).getTitle().equals("Rings of Rare Words")
+				&& best.get(1).getTitle().equals("Rare Words"));
+		assertTrue("k was not respected.", catalog.searchAnyKeywords("the", 3).size() <= 3 && catalog.searchAnyKeywords("the", 0).isEmpty());
+	}
+
+	private static void assertSameValues(PostingList list, TreeSet<Integer> expected, String when) {
+		int[] values = new int[expected.size()];
+		int i = 0;
+		for(int value: expected)
+			values[i++] = value;
+		assertTrue("The list has the wrong values " + when + ".", list.size() == values.length && Arrays.equals(list.toArray(), values));
+		// advanceTo from a fresh cursor to every 10th value, and to the gaps just before them
+		PostingList.Cursor cursor = list.cursor();
+		for(i = 0; i < values.length; i += 10) {
+			if(cursor.advanceTo(values[i] - 1) != (i > 0 && values[i - 1] == values[i] - 1 ? values[i - 1] : values[i])
+					|| cursor.advanceTo(values[i]) != values[i])
+				fail("advanceTo(" + values[i] + ") found the wrong value " + when + ".");
+		}
+		assertTrue("advanceTo past the end didn't end " + when + ".", cursor.advanceTo(Integer.MAX_VALUE - 1) == PostingList.Cursor.END);
+	}
+}
@@ -0,0 +1,29 @@
+package tester;
+
+import java.util.function.IntUnaryOperator;
+
+import data_structures.ArrayList;
+import data_structures.DoublyLinkedList;
+import data_structures.SinglyLinkedList;
+import interfaces.List;
+
+/*
+ * The three List implementations, for the testers that run every test on each of them.
+ */
+final class ListImplementations {
+
+	private ListImplementations() {
+	}
+
+	/**
+	 * Returns a new ArrayList, SinglyLinkedList and DoublyLinkedList, each holding value(0) to value(size - 1).
+	 */
+	static java.util.List<List<Integer>> of(int size, IntUnaryOperator value) {
+		java.util.List<List<Integer>> lists = java.util.List.of(new ArrayList<Integer>(), new SinglyLinkedList<Integer>(), new DoublyLinkedList<Integer>());
+		for(List<Integer> list: lists) {
+			for(int i = 0; i < size; i++)
+				list.add(value.applyAsInt(i));
+		}
+		return lists;
+	}
+}
@@ -0,0 +1,156 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+import org.junit.Test;
+
+import data_structures.ArrayList;
+import interfaces.List;
+
+/*
+ * Every test runs on the three List implementations.
+ */
+public class ListIteratorTester {
+
+	private static java.util.List<List<Integer>> lists(int size) {
+		return ListImplementations.of(size, i -> i);
+	}
+	@Test
+	public void testRemoveWhileIterating() {
+		for(List<Integer> list: lists(20)) {
+			Iterator<Integer> it = list.iterator();
+			while(it.hasNext()) {
+				if(it.next() % 3 != 1)
+					it.remove();
+			}
+			assertTrue(list.getClass().getSimpleName() + " kept the wrong number of elements: " + list.size(), list.size() == 7);
+			int expected = 1;
+			for(int value: list) {
+				if(value != expected)
+					fail(list.getClass().getSimpleName() + " has " + value + " where " + expected + " was expected");
+				expected += 3;
+			}
+			assertTrue(list.getClass().getSimpleName() + " has the wrong first or last element.", list.first() == 1 && list.last() == 19);
+			list.add(100);
+			assertTrue(list.getClass().getSimpleName() + " failed to add after removing.", list.get(7) == 100 && list.last() == 100);
+		}
+	}
+	@Test
+	public void testRemoveEverything() {
+		for(List<Integer> list: lists(10)) {
+			Iterator<Integer> it = list.iterator();
+			while(it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+			assertTrue(list.getClass().getSimpleName() + " isn't empty after removing everything.", list.isEmpty());
+			list.add(5);
+			assertTrue(list.getClass().getSimpleName() + " failed to add to the emptied list.", list.size() == 1 && list.first() == 5 && list.last() == 5);
+		}
+	}
+	@Test
+	public void testGetInTheMiddleOfRemoving() {
+		for(List<Integer> list: lists(10)) {
+			Iterator<Integer> it = list.iterator();
+			it.next();
+			it.next();
+			it.remove();
+			// The list must look right even though the iterator is not done
+			assertTrue(list.getClass().getSimpleName() + " get() is wrong during iteration.", list.get(1) == 2 && list.get(8) == 9 && list.size() == 9);
+			assertTrue(list.getClass().getSimpleName() + " iterator lost its place.", it.next() == 2);
+		}
+	}
+	@Test
+	public void testReadsLeaveTheGapAlone() throws ReflectiveOperationException {
+		ArrayList<Integer> list = new ArrayList<>();
+		for(int i = 0; i < 10; i++)
+			list.add(i);
+		// Remove 2 and 3 and stop, leaving a gap in the middle of the array
+		Iterator<Integer> it = list.iterator();
+		for(int i = 0; i < 4; i++) {
+			if(it.next() >= 2)
+				it.remove();
+		}
+		Field field = ArrayList.class.getDeclaredField("elements");
+		field.setAccessible(true);
+		Object[] before = ((Object[]) field.get(list)).clone();
+
+		int[] sum = new int[1];
+		for(int value: list)
+			sum[0] += value;
+		list.spliterator().forEachRemaining(value -> sum[0] += value);
+		Spliterator<Integer> second = list.spliterator();
+		second.trySplit().forEachRemaining(value -> sum[0] += value);
+		while(second.tryAdvance(value -> sum[0] += value));
+		assertTrue("Iterating skipped the wrong elements.", sum[0] == 3 * (45 - 2 - 3));
+		assertTrue("Searching didn't skip the gap.", list.contains(9) && !list.contains(3) && list.firstIndex(4) == 2
+				&& list.lastIndex(9) == 7 && list.firstIndex(2) == -1);
+		assertTrue("toString didn't skip the gap: " + list, list.toString().startsWith("{ 0, 1, 4, 5, 6, 7, 8, 9, null"));
+		assertTrue("A method that only reads changed the array.", Arrays.equals(before, (Object[]) field.get(list)));
+
+		// The first iterator can go on removing
+		assertTrue("The iterator lost its place.", it.next() == 4);
+		it.remove();
+		ArrayList<Integer> copy = new ArrayList<>();
+		copy.addAll(list);
+		assertTrue("addAll didn't skip the gap: " + copy, copy.size() == 7 && copy.get(2) == 5 && copy.last() == 9);
+	}
+	@Test
+	public void testFailFast() {
+		for(List<Integer> list: lists(10)) {
+			Iterator<Integer> it = list.iterator();
+			it.next();
+			list.add(10);
+			try {
+				it.next();
+				fail(list.getClass().getSimpleName() + " iterator didn't notice add()");
+			} catch(ConcurrentModificationException e) {
+				// Expected
+			}
+			it = list.iterator();
+			Iterator<Integer> other = list.iterator();
+			it.next();
+			it.remove();
+			try {
+				other.next();
+				fail(list.getClass().getSimpleName() + " iterator didn't notice another iterator's remove()");
+			} catch(ConcurrentModificationException e) {
+				// Expected
+			}
+		}
+	}
+	@Test
+	public void testIllegalCalls() {
+		for(List<Integer> list: lists(1)) {
+			Iterator<Integer> it = list.iterator();
+			try {
+				it.remove();
+				fail(list.getClass().getSimpleName() + " remove() before next() should throw IllegalStateException");
+			} catch(IllegalStateException e) {
+				// Expected
+			}
+			it.next();
+			it.remove();
+			try {
+				it.remove();
+				fail(list.getClass().getSimpleName() + " remove() twice should throw IllegalStateException");
+			} catch(IllegalStateException e) {
+				// Expected
+			}
+			try {
+				it.next();
+				fail(list.getClass().getSimpleName() + " next() at the end should throw NoSuchElementException");
+			} catch(NoSuchElementException e) {
+				// Expected
+			}
+		}
+	}
+}
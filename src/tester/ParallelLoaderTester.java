@@ -0,0 +1,98 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import benchmarks.DataGenerator;
+import main.LibraryCatalog;
+
+public class ParallelLoaderTester {
+
+	@Test
+	public void testSameReportAsExpected() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog("data/catalog.csv", "data/user.csv", true);
+		String expected = new String(Files.readAllBytes(Paths.get("report/expected_report.txt")), StandardCharsets.UTF_8);
+		assertTrue("The parallel load doesn't give the expected report.", catalog.generateReportString().equals(expected));
+	}
+	@Test
+	public void testSameBooksAsSequential() throws IOException {
+		File catalogFile = File.createTempFile("catalog", ".csv");
+		File userFile = File.createTempFile("user", ".csv");
+		try {
+			// About 20 MB, so the file is split in several chunks
+			DataGenerator generator = new DataGenerator(1, 0.3);
+			generator.writeCatalog(catalogFile, 300_000);
+			generator.writeUsers(userFile, 15_000, 300_000);
+			LibraryCatalog sequential = new LibraryCatalog(catalogFile.getPath(), userFile.getPath(), false);
+			LibraryCatalog parallel = new LibraryCatalog(catalogFile.getPath(), userFile.getPath(), true);
+			assertTrue("The loads have different sizes.", sequential.getBookCatalog().size() == parallel.getBookCatalog().size());
+			for(int i = 0; i < sequential.getBookCatalog().size(); i++) {
+				if(!sequential.getBookCatalog().get(i).toString().equals(parallel.getBookCatalog().get(i).toString())
+						|| sequential.getBookCatalog().get(i).getId() != parallel.getBookCatalog().get(i).getId())
+					fail("Book " + i + " is different: " + parallel.getBookCatalog().get(i));
+			}
+			assertTrue("The reports are different.", sequential.generateReportString().equals(parallel.generateReportString()));
+		} finally {
+			catalogFile.delete();
+			userFile.delete();
+		}
+	}
+	@Test
+	public void testInvalidUtf8() throws IOException {
+		File catalogFile = File.createTempFile("catalog", ".csv");
+		File userFile = File.createTempFile("user", ".csv");
+		try {
+			Files.write(userFile.toPath(), "ID,Full Name,Books\n".getBytes(StandardCharsets.US_ASCII));
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			bytes.write("ID,Title,Author,Genre,Last Checkout Date,Checked Out\n1,Caf".getBytes(StandardCharsets.US_ASCII));
+			// A Latin-1 e acute, which isn't valid UTF-8
+			bytes.write(0xE9);
+			bytes.write(" Stories,Some Author,Fiction,2023-01-01,false\n2,Other,Some Author,Fiction,2023-01-01,false\n".getBytes(StandardCharsets.US_ASCII));
+			Files.write(catalogFile.toPath(), bytes.toByteArray());
+			LibraryCatalog sequential = new LibraryCatalog(catalogFile.getPath(), userFile.getPath(), false);
+			LibraryCatalog parallel = new LibraryCatalog(catalogFile.getPath(), userFile.getPath(), true);
+			assertTrue("The loads have different sizes.", parallel.getBookCatalog().size() == 2 && sequential.getBookCatalog().size() == 2);
+			String title = sequential.getBookCatalog().get(0).getTitle();
+			assertTrue("The bad byte was decoded as " + parallel.getBookCatalog().get(0).getTitle() + " instead of " + title + ".",
+					parallel.getBookCatalog().get(0).getTitle().equals(title));
+		} finally {
+			catalogFile.delete();
+			userFile.delete();
+		}
+	}
+	@Test
+	public void testErrorLineNumber() throws IOException {
+		File catalogFile = File.createTempFile("catalog", ".csv");
+		File userFile = File.createTempFile("user", ".csv");
+		// Line 1 is the header, book i is on line i + 1. The bad line is far past the first 8 MB chunk.
+		int badLine = 240_000;
+		try(BufferedWriter out = new BufferedWriter(new FileWriter(catalogFile, StandardCharsets.UTF_8))) {
+			out.write("ID,Title,Author,Genre,Last Checkout Date,Checked Out\n");
+			for(int id = 1; id < 250_000; id++) {
+				String idField = id + 1 == badLine ? "notanumber" : String.valueOf(id);
+				out.write(idField + ",A Fairly Long Title Number " + id + ",Some Author,Fiction,2023-01-01,false\n");
+			}
+		}
+		Files.write(userFile.toPath(), "ID,Name,Books\n".getBytes(StandardCharsets.UTF_8));
+		try {
+			new LibraryCatalog(catalogFile.getPath(), userFile.getPath(), true);
+			fail("A bad id should fail the load.");
+		} catch(NumberFormatException e) {
+			assertTrue("Wrong line in: " + e.getMessage(), e.getMessage().startsWith("Line " + badLine + ","));
+		} finally {
+			catalogFile.delete();
+			userFile.delete();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.junit.Test;
+
+import benchmarks.DataGenerator;
+import data_structures.ArrayList;
+import interfaces.FilterFunction;
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+import main.User;
+
+public class ParallelSearchTester {
+
+	@Test
+	public void testSpliterator() {
+		ArrayList<Integer> list = new ArrayList<>();
+		for(int i = 0; i < 1000; i++)
+			list.add(i);
+		Spliterator<Integer> second = list.spliterator();
+		Spliterator<Integer> first = second.trySplit();
+		assertTrue("The halves have the wrong sizes.", first.estimateSize() == 500 && second.estimateSize() == 500
+				&& first.hasCharacteristics(Spliterator.SIZED | Spliterator.ORDERED));
+		int[] next = new int[1];
+		first.forEachRemaining(i -> {
+			if(i != next[0]++)
+				fail("The first half isn't in order.");
+		});
+		assertTrue("tryAdvance failed.", second.tryAdvance(i -> next[0] = i) && next[0] == 500 && second.estimateSize() == 499);
+		second.forEachRemaining(i -> next[0] = i);
+		assertTrue("The second half doesn't end with the last element.", next[0] == 999 && !second.tryAdvance(i -> {}));
+
+		// A gap left by removing through the iterator must be skipped
+		Iterator<Integer> iterator = list.iterator();
+		iterator.next();
+		iterator.remove();
+		Spliterator<Integer> all = list.spliterator();
+		assertTrue("Wrong size after remove.", all.estimateSize() == 999 && all.tryAdvance(i -> next[0] = i) && next[0] == 1);
+		try {
+			list.spliterator().forEachRemaining(i -> {
+				if(i == 10)
+					list.add(-1);
+			});
+			fail("Changing the list while splitting should throw ConcurrentModificationException.");
+		} catch(ConcurrentModificationException e) {
+			// Expected
+		}
+	}
+	@Test
+	public void testSameResultsAsSequential() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		// Big enough to be split
+		for(int i = 0; i < 40_000; i++)
+			catalog.addBook("Title " + (i % 97), "Author " + (i % 13), i % 3 == 0 ? "Mystery" : "Fiction");
+		List<Book> sequential = catalog.searchForBook(book -> book.getGenre().equals("Mystery") && book.getTitle().endsWith("7"));
+		List<Book> parallel = catalog.searchForBook(book -> book.getGenre().equals("Mystery") && book.getTitle().endsWith("7"), true);
+		assertTrue("Found " + parallel.size() + " books instead of " + sequential.size(), parallel.size() == sequential.size() && parallel.size() > 0);
+		for(int i = 0; i < sequential.size(); i++) {
+			if(parallel.get(i) != sequential.get(i))
+				fail("The parallel search isn't in catalog order at " + i);
+		}
+		assertTrue("Everything should match.", catalog.searchForBook(book -> true, true).size() == catalog.getBookCatalog().size());
+
+		List<User> users = catalog.searchForUsers(user -> user.getId() % 2 == 0, true);
+		assertTrue("searchForUsers lost users.", users.size() == catalog.searchForUsers(user -> user.getId() % 2 == 0).size());
+	}
+	@Test
+	public void testSameUsersAsSequential() throws IOException {
+		File catalogFile = File.createTempFile("catalog", ".csv");
+		File userFile = File.createTempFile("user", ".csv");
+		try {
+			// Enough users to be split in several ranges. Compact users look their books up from the pool threads.
+			DataGenerator generator = new DataGenerator(3, 0.3);
+			generator.writeCatalog(catalogFile, 100_000);
+			generator.writeUsers(userFile, 40_000, 100_000);
+			LibraryCatalog catalog = new LibraryCatalog(catalogFile.getPath(), userFile.getPath(), false, true);
+			Set<Thread> threads = ConcurrentHashMap.newKeySet();
+			FilterFunction<User> filter = user -> {
+				threads.add(Thread.currentThread());
+				return user.getCheckedOutList().size() > 1;
+			};
+			List<User> sequential = catalog.searchForUsers(filter);
+			threads.clear();
+			List<User> parallel = catalog.searchForUsers(filter, true);
+			boolean onPool = false;
+			for(Thread thread: threads)
+				onPool |= thread instanceof ForkJoinWorkerThread;
+			assertTrue("The parallel search never ran on the pool.", onPool);
+			assertTrue("Found " + parallel.size() + " users instead of " + sequential.size(), parallel.size() == sequential.size()
+					&& parallel.size() > 0 && parallel.size() < catalog.getUsers().size());
+			for(int i = 0; i < sequential.size(); i++) {
+				if(parallel.get(i) != sequential.get(i))
+					fail("The parallel search isn't in user order at " + i);
+			}
+		} finally {
+			catalogFile.delete();
+			userFile.delete();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import data_structures.PrefixTrie;
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+
+public class PrefixTrieTester {
+
+	@Test
+	public void testAddRemove() {
+		PrefixTrie trie = new PrefixTrie();
+		trie.add("Romeo");
+		trie.add("Romulus");
+		trie.add("Rome");
+		trie.add("rome");
+		// root, "rom", "e", "o", "ulus"
+		assertTrue("Wrong counts.", trie.size() == 3 && trie.count("ROME") == 2 && trie.count("Rom") == 0 && trie.nodeCount() == 5);
+		assertTrue("remove failed.", trie.remove("Rome") && trie.count("rome") == 1 && trie.remove("rome") && !trie.remove("rome"));
+		assertTrue("A key that was never added was removed.", !trie.remove("Rom") && !trie.remove("Romans"));
+		assertTrue("Wrong size after remove.", trie.size() == 2 && trie.count("romeo") == 1 && trie.count("romulus") == 1);
+		trie.remove("Romulus");
+		// "rom" + "eo" merge back into one edge
+		assertTrue("Nodes weren't merged after remove.", trie.nodeCount() == 2 && trie.count("Romeo") == 1);
+		trie.remove("Romeo");
+		assertTrue("The trie isn't empty.", trie.size() == 0 && trie.nodeCount() == 1 && trie.complete("", 5).isEmpty());
+	}
+	@Test
+	public void testComplete() {
+		PrefixTrie trie = new PrefixTrie();
+		String[] keys = { "The Hobbit", "The Hobbit", "the hobbit", "The Hound", "The Hound", "The Help", "Hamlet", "Thesaurus" };
+		for(String key: keys)
+			trie.add(key);
+		List<String> result = trie.complete("the h", 10);
+		// Most copies first, same count in alphabetical order, spelled as first added
+		assertTrue("Wrong completions: " + result, result.size() == 3 && result.get(0).equals("The Hobbit")
+				&& result.get(1).equals("The Hound") && result.get(2).equals("The Help"));
+		result = trie.complete("THE", 10);
+		assertTrue("Wrong completions: " + result, result.size() == 4 && result.get(3).equals("Thesaurus"));
+		assertTrue("n wasn't respected.", trie.complete("", 2).size() == 2 && trie.complete("", 0).isEmpty());
+		assertTrue("A prefix ending inside an edge failed.", trie.complete("the hob", 10).size() == 1 && trie.complete("the hobbits", 10).isEmpty());
+		assertTrue("An unknown prefix matched.", trie.complete("x", 10).isEmpty() && trie.complete("the hx", 10).isEmpty());
+	}
+	@Test
+	public void testSpellingOfRemovedCopies() {
+		PrefixTrie trie = new PrefixTrie();
+		trie.add("Zzz Title");
+		trie.add("ZZZ TITLE");
+		trie.add("ZZZ TITLE");
+		trie.add("zzz title");
+		trie.remove("Zzz Title");
+		// The first spelling is gone, the oldest one left takes its place
+		assertTrue("Completed a removed spelling: " + trie.complete("zzz", 5), trie.complete("zzz", 5).get(0).equals("ZZZ TITLE"));
+		trie.remove("ZZZ TITLE");
+		assertTrue("Completed a spelling that still has a copy.", trie.complete("zzz", 5).get(0).equals("ZZZ TITLE"));
+		trie.remove("ZZZ TITLE");
+		assertTrue("Completed a removed spelling: " + trie.complete("zzz", 5), trie.complete("zzz", 5).get(0).equals("zzz title"));
+		trie.add("Zzz Title");
+		trie.remove("zzz title");
+		assertTrue("Completed a removed spelling: " + trie.complete("zzz", 5), trie.complete("zzz", 5).get(0).equals("Zzz Title") && trie.count("zzz title") == 1);
+	}
+	@Test
+	public void testCompleteTitle() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		for(Book book: catalog.getBookCatalog()) {
+			String prefix = book.getTitle().substring(0, Math.min(3, book.getTitle().length())).toUpperCase();
+			List<String> result = catalog.completeTitle(prefix, 100);
+			if(!result.contains(book.getTitle()))
+				fail("Completing \"" + prefix + "\" didn't give " + book.getTitle());
+			for(String title: result) {
+				if(!title.toUpperCase().startsWith(prefix))
+					fail(title + " doesn't start with " + prefix);
+			}
+		}
+		catalog.addBook("Zymurgy for Beginners", "Zed Quill", "Cooking");
+		assertTrue("An added book can't be completed.", catalog.completeTitle("zym", 5).size() == 1 && catalog.completeAuthor("zed q", 5).size() == 1);
+		catalog.removeBook(catalog.findByTitle("Zymurgy for Beginners").get(0).getId());
+		assertTrue("A removed book was completed.", catalog.completeTitle("zym", 5).isEmpty() && catalog.completeAuthor("zed q", 5).isEmpty());
+
+		catalog.addBook("Zzz Title", "Zed Quill", "Cooking");
+		catalog.addBook("ZZZ TITLE", "Zed Quill", "Cooking");
+		catalog.removeBook(catalog.findByTitle("Zzz Title").get(0).getId());
+		String title = catalog.completeTitle("zzz", 5).get(0);
+		assertTrue("Completed " + title + ", which no book has.", catalog.findByTitle(title).size() == 1);
+	}
+}
@@ -0,0 +1,111 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+
+public class RemoveIfTester {
+
+	private static java.util.List<List<Integer>> lists(int size) {
+		return ListImplementations.of(size, i -> i % 10);
+	}
+	@Test
+	public void testRemoveIf() {
+		for(List<Integer> list: lists(100)) {
+			int removed = list.removeIf(e -> e % 2 == 0);
+			assertTrue(list.getClass().getSimpleName() + " removed " + removed + " elements, expected 50.", removed == 50 && list.size() == 50);
+			for(int value: list) {
+				if(value % 2 == 0)
+					fail(list.getClass().getSimpleName() + " kept the even value " + value);
+			}
+			assertTrue(list.getClass().getSimpleName() + " has the wrong last element.", list.last() == 9);
+			list.add(42);
+			assertTrue(list.getClass().getSimpleName() + " failed to add after removeIf.", list.last() == 42 && list.get(50) == 42);
+		}
+	}
+	@Test
+	public void testRetainIfAndRemoveAll() {
+		for(List<Integer> list: lists(100)) {
+			int removed = list.retainIf(e -> e < 3);
+			assertTrue(list.getClass().getSimpleName() + " retainIf removed " + removed + " elements, expected 70.", removed == 70 && list.size() == 30);
+			assertTrue(list.getClass().getSimpleName() + " removeAll(1) is wrong.", list.removeAll(1) == 10 && list.size() == 20 && !list.contains(1));
+			assertTrue(list.getClass().getSimpleName() + " removeIf with nothing to remove changed the list.", list.removeIf(e -> e > 100) == 0 && list.size() == 20);
+			assertTrue(list.getClass().getSimpleName() + " failed to remove everything.", list.removeIf(e -> true) == 20 && list.isEmpty());
+			list.add(7);
+			assertTrue(list.getClass().getSimpleName() + " failed to add to the emptied list.", list.first() == 7 && list.last() == 7);
+		}
+	}
+	@Test
+	public void testFilterThrows() {
+		for(List<Integer> list: lists(20)) {
+			int[] calls = new int[1];
+			try {
+				list.removeIf(e -> {
+					if(++calls[0] == 10)
+						throw new IllegalStateException();
+					return e < 5;
+				});
+				fail(list.getClass().getSimpleName() + " didn't pass the filter's exception on");
+			} catch(IllegalStateException e) {
+				// Expected
+			}
+			// 0 to 4 of the first 9 elements are removed, the rest is untouched
+			assertTrue(list.getClass().getSimpleName() + " is inconsistent after the filter threw: " + list.size(), list.size() == 15);
+			int count = 0;
+			for(int value: list)
+				count++;
+			assertTrue(list.getClass().getSimpleName() + " size doesn't match its elements.", count == 15 && list.get(0) == 5 && list.last() == 9);
+		}
+	}
+	@Test
+	public void testRemoveBooks() throws IOException {
+		LibraryCatalog LC = new LibraryCatalog();
+		int mysteries = LC.getStatistics().genreCount("Mystery");
+		int removed = LC.removeBooks(book -> book.getGenre().equals("Mystery"));
+		assertTrue("removeBooks removed " + removed + " books, expected " + mysteries + ".", removed == mysteries && LC.getBookCatalog().size() == 50 - mysteries);
+		assertTrue("Statistics still count the removed books.", LC.getStatistics().genreCount("Mystery") == 0);
+		for(Book book: LC.getBookCatalog()) {
+			if(book.getGenre().equals("Mystery"))
+				fail("Book " + book.getId() + " is still in the catalog.");
+		}
+		// Book 1 is a mystery, it is gone from the index too
+		assertTrue("Removed book can still be checked out.", !LC.checkOutBook(1));
+	}
+	@Test
+	public void testRemoveBooksWhenTheFilterThrows() throws IOException {
+		LibraryCatalog LC = new LibraryCatalog();
+		// Build the keyword index and the tries so removeBooks has to drop them
+		LC.searchAllKeywords("the");
+		LC.completeTitle("the", 5);
+		Book first = LC.getBookCatalog().get(0);
+		try {
+			LC.removeBooks(book -> {
+				if(book.getId() == 10)
+					throw new IllegalStateException("Filter failed");
+				return book == first;
+			});
+			fail("The filter's exception was lost.");
+		} catch(IllegalStateException e) {
+			// Expected
+		}
+		assertTrue("The matched book wasn't removed.", LC.getBookCatalog().size() == 49 && LC.getBookCatalog().get(0) != first);
+		assertTrue("The title index still has the removed book.", LC.findByTitle(first.getTitle()).isEmpty() && LC.countByTitle(first.getTitle()) == 0);
+		assertTrue("The author index still has the removed book.", !LC.findByAuthor(first.getAuthor()).contains(first));
+		assertTrue("The genre index still has the removed book.", !LC.findByGenre(first.getGenre()).contains(first));
+		for(Book book: LC.searchAnyKeywords(first.getTitle(), 50)) {
+			if(book == first)
+				fail("The keyword index still has the removed book.");
+		}
+		assertTrue("The title completions still have the removed book.", !LC.completeTitle(first.getTitle(), 5).contains(first.getTitle()));
+		// The catalog still takes changes
+		LC.removeBooks(book -> book.getId() == 10);
+		assertTrue("removeBooks failed after the exception.", LC.getBookCatalog().size() == 48);
+	}
+}
@@ -0,0 +1,42 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.LibraryCatalog;
+
+public class ReportTester {
+
+	LibraryCatalog LC;
+	String expected;
+
+	@Before
+	public void setup() throws IOException {
+		LC = new LibraryCatalog();
+		expected = new String(Files.readAllBytes(Paths.get("report/expected_report.txt")), StandardCharsets.UTF_8);
+	}
+	@Test
+	public void testReportString() {
+		assertTrue("generateReportString() doesn't match report/expected_report.txt.", LC.generateReportString().equals(expected));
+	}
+	@Test
+	public void testWriteReport() throws IOException {
+		StringWriter output = new StringWriter();
+		LC.writeReport(output);
+		assertTrue("writeReport() doesn't match report/expected_report.txt.", output.toString().equals(expected));
+	}
+	@Test
+	public void testReportFile() throws IOException {
+		LC.generateReport();
+		String written = new String(Files.readAllBytes(Paths.get("report/report.txt")), StandardCharsets.UTF_8);
+		assertTrue("report/report.txt doesn't match report/expected_report.txt.", written.equals(expected));
+	}
+}
@@ -0,0 +1,92 @@
+package tester;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import interfaces.FilterFunction;
+import interfaces.List;
+import main.Book;
+import main.LibraryCatalog;
+
+public class SecondaryIndexTester {
+
+	/**
+	 * Checks that the index gave the same books, in the same order, as a full scan.
+	 */
+	private static void assertSameBooks(String message, List<Book> found, LibraryCatalog catalog, FilterFunction<Book> filter) {
+		List<Book> expected = catalog.searchForBook(filter);
+		if(found.size() != expected.size())
+			fail(message + ": found " + found.size() + " books, expected " + expected.size());
+		for(int i = 0; i < found.size(); i++) {
+			if(found.get(i) != expected.get(i))
+				fail(message + ": book " + i + " is different");
+		}
+	}
+	@Test
+	public void testFindMatchesSearch() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		for(Book book: catalog.getBookCatalog()) {
+			assertSameBooks("findByTitle(" + book.getTitle() + ")", catalog.findByTitle(book.getTitle()), catalog, b -> b.getTitle().equals(book.getTitle()));
+			assertSameBooks("findByAuthor(" + book.getAuthor() + ")", catalog.findByAuthor(book.getAuthor()), catalog, b -> b.getAuthor().equals(book.getAuthor()));
+			assertSameBooks("findByGenre(" + book.getGenre() + ")", catalog.findByGenre(book.getGenre()), catalog, b -> b.getGenre().equals(book.getGenre()));
+			assertTrue("countByTitle is wrong for " + book.getTitle(),
+					catalog.countByTitle(book.getTitle()) == catalog.searchForBook(b -> b.getTitle().equals(book.getTitle())).size());
+		}
+		assertTrue("Found books for a missing title.", catalog.findByTitle("No Such Book").isEmpty() && catalog.countByTitle("No Such Book") == 0);
+	}
+	@Test
+	public void testIndexesFollowChanges() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		int mysteries = catalog.findByGenre("Mystery").size();
+		catalog.addBook("Index Test", "Some Author", "Mystery");
+		catalog.addBook("Index Test", "Some Author", "Poetry");
+		assertTrue("Added books are missing from the indexes.", catalog.countByTitle("Index Test") == 2
+				&& catalog.findByAuthor("Some Author").size() == 2 && catalog.findByGenre("Mystery").size() == mysteries + 1
+				&& catalog.findByGenre("Poetry").size() == 1);
+
+		Book added = catalog.findByGenre("Poetry").get(0);
+		catalog.removeBook(added.getId());
+		assertTrue("A removed book is still indexed.", catalog.countByTitle("Index Test") == 1 && catalog.findByGenre("Poetry").isEmpty());
+
+		int removed = catalog.removeBooks(book -> book.getGenre().equals("Mystery"));
+		assertTrue("removeBooks left books in the genre index.", removed == mysteries + 1 && catalog.findByGenre("Mystery").isEmpty()
+				&& catalog.bookCount("Index Test") == 0);
+		assertSameBooks("findByGenre(Fiction) after the changes", catalog.findByGenre("Fiction"), catalog, b -> b.getGenre().equals("Fiction"));
+	}
+	@Test
+	public void testCatalogDoesNotReuseIds() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		int books = catalog.getBookCatalog().size();
+		// Removing a book in the middle used to make addBook hand out the id of the last book again
+		catalog.removeBook(catalog.getBookCatalog().get(0).getId());
+		Book last = catalog.getBookCatalog().last();
+		catalog.addBook("New Book", "New Author", "Fiction");
+		Book added = catalog.getBookCatalog().last();
+		assertTrue("addBook reused an id.", added.getId() > last.getId() && catalog.getBookCatalog().size() == books);
+		assertTrue("The last loaded book can't be returned anymore.", catalog.checkOutBook(last.getId()) || catalog.returnBook(last.getId()));
+		catalog.removeBook(added.getId());
+		catalog.addBook("Newer Book", "New Author", "Fiction");
+		assertTrue("addBook reused the id of a removed book.", catalog.getBookCatalog().last().getId() == added.getId() + 1);
+	}
+	@Test
+	public void testRestoredCatalogDoesNotReuseIds() throws IOException {
+		LibraryCatalog catalog = new LibraryCatalog();
+		// Book 50 has the largest id, and user 3 still has it after it's removed
+		catalog.removeBook(50);
+		File snapshot = File.createTempFile("catalog", ".snapshot");
+		try {
+			catalog.saveSnapshot(snapshot.getPath());
+			LibraryCatalog restored = LibraryCatalog.loadSnapshot(snapshot.getPath());
+			restored.addBook("New Book", "New Author", "Fiction");
+			assertTrue("The restored catalog reused the id of a removed book.", restored.getBookCatalog().last().getId() == 51);
+			assertTrue("User 3 lost book 50.", restored.getUsers().get(2).getCheckedOutIds().contains(50));
+		} finally {
+			snapshot.delete();
+		}
+	}
+}